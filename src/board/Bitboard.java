@@ -5,7 +5,6 @@ import java.util.LinkedList;
 
 import engine.EngineGeneralAttributes;
 
-import memory.Transposition;
 import network.MessageOutputWriter;
 
 /**
@@ -22,6 +21,11 @@ public class Bitboard {
 	/********************* __Variablen__ ************************/
 	/************************************************************/
 
+	/**
+	 * Die vier Trap-Felder (c3, f3, c6, f6).
+	 */
+	public static final int[] TRAPS = { 18, 21, 42, 45 };
+
 	/**
 	 * Liste mit Masken für jede einzelne Position auf dem Feld (jew. ein
 	 * gesetztes Bit).
@@ -34,15 +38,18 @@ public class Bitboard {
 	private long[][] bitboard = null;
 
 	/**
-	 * Hash-Wert dieses Boards!
+	 * Zobrist-Hash aller Figuren dieses Boards. Wird bei jeder Änderung
+	 * inkrementell aktualisiert (siehe togglePieces).
 	 */
 	private long hash = 0L;
 
 	/**
-	 * Eine Instanz des Transposition-Tables, damit der MakeMove funktioniert
-	 * und den 'hash' korrekt updated.
+	 * Undo-Stack für makeStep/unmakeStep: der ausgeführte Schritt und eine
+	 * u.U. geschlagene Figur (0 = keine).
 	 */
-	private Transposition transposition = null;
+	private int[] undoSteps = new int[64];
+	private int[] undoCaptures = new int[64];
+	private int undoSize = 0;
 
 	/**
 	 * Instanz der Attribute.
@@ -50,21 +57,18 @@ public class Bitboard {
 	private EngineGeneralAttributes generalAttributes;
 
 	/**
-	 * PERFORMANCE ENHANCING VARIABLES
+	 * PERFORMANCE ENHANCING VARIABLES. Zusammengefasste Bitmaps, die bei jeder
+	 * Änderung des Bitboards inkrementell mitgeführt werden, damit
+	 * getGeneralBitmap, getColorBitmap und getColorBitmapHigher nur noch
+	 * Feldzugriffe sind. Wer das Array aus getBitboard() direkt verändert, muss
+	 * danach setBitboard() aufrufen!
 	 */
+	/* Alle belegten Felder */
 	private long generalBitmapP = 0L;
-	private long colorBitmapGoldP = 0L;
-	private long colorBitmapSilverP = 0L;
-	private long colorBitmapHigherGoldCamelP = 0L;
-	private long colorBitmapHigherSilverCamelP = 0L;
-	private long colorBitmapHigherGoldHorseP = 0L;
-	private long colorBitmapHigherSilverHorseP = 0L;
-	private long colorBitmapHigherGoldDogP = 0L;
-	private long colorBitmapHigherSilverDogP = 0L;
-	private long colorBitmapHigherGoldCatP = 0L;
-	private long colorBitmapHigherSilverCatP = 0L;
-	private long colorBitmapHigherGoldRabbitP = 0L;
-	private long colorBitmapHigherSilverRabbitP = 0L;
+	/* Alle Figuren einer Farbe [color] */
+	private long[] colorBitmapP = new long[2];
+	/* Alle Figuren einer Farbe, die stärker als der Typ sind [color][type] */
+	private long[][] colorBitmapHigherP = new long[2][6];
 
 	/****************************************************************/
 	/********************* _Konstruktoren_ **************************/
@@ -78,7 +82,6 @@ public class Bitboard {
 
 		generateEmptyBitboard();
 		generateMasks();
-		initPerformanceEnhancingVariables();
 	}
 
 	public Bitboard(EngineGeneralAttributes generalAttributes, long[][] board,
@@ -117,6 +120,7 @@ public class Bitboard {
 			this.bitboard[i][Constants.Color.GOLD] = Constants.Bitmap.EMPTY_BITMAP;
 		}
 
+		initPerformanceEnhancingVariables();
 	}
 
 	/**
@@ -133,47 +137,55 @@ public class Bitboard {
 	}
 
 	/**
-	 * Initialisiert einmalig alle Variablen, die der Performance maßgeblich
-	 * helfen können.
+	 * Berechnet alle Variablen, die der Performance maßgeblich helfen können,
+	 * komplett neu aus dem Bitboard. Danach werden sie nur noch inkrementell
+	 * verändert (siehe togglePieces).
 	 */
 	public void initPerformanceEnhancingVariables() {
 
-		for (int i = 0; i < 6; i++) {
+		generalBitmapP = 0L;
 
-			generalBitmapP = generalBitmapP
-					| this.bitboard[i][Constants.Color.SILVER]
-					| this.bitboard[i][Constants.Color.GOLD];
+		for (int color = 0; color < 2; color++) {
 
-			colorBitmapGoldP = colorBitmapGoldP
-					| this.bitboard[i][Constants.Color.GOLD];
-			colorBitmapSilverP = colorBitmapSilverP
-					| this.bitboard[i][Constants.Color.SILVER];
+			long colorMap = 0L;
 
-			switch (i) {
-			case Constants.Type.ELEPHANT:
-				colorBitmapHigherGoldCamelP = colorBitmapGoldP;
-				colorBitmapHigherSilverCamelP = colorBitmapSilverP;
-				break;
-			case Constants.Type.CAMEL:
-				colorBitmapHigherGoldHorseP = colorBitmapGoldP;
-				colorBitmapHigherSilverHorseP = colorBitmapSilverP;
-				break;
-			case Constants.Type.HORSE:
-				colorBitmapHigherGoldDogP = colorBitmapGoldP;
-				colorBitmapHigherSilverDogP = colorBitmapSilverP;
-				break;
-			case Constants.Type.DOG:
-				colorBitmapHigherGoldCatP = colorBitmapGoldP;
-				colorBitmapHigherSilverCatP = colorBitmapSilverP;
-				break;
-			case Constants.Type.CAT:
-				colorBitmapHigherGoldRabbitP = colorBitmapGoldP;
-				colorBitmapHigherSilverRabbitP = colorBitmapSilverP;
-				break;
+			for (int type = 0; type < 6; type++) {
+				/* Alle Figuren vor diesem Typ sind stärker */
+				colorBitmapHigherP[color][type] = colorMap;
+				colorMap |= this.bitboard[type][color];
 			}
 
+			colorBitmapP[color] = colorMap;
+			generalBitmapP |= colorMap;
+		}
+
+		hash = Zobrist.hash(bitboard);
+
+	}
+
+	/**
+	 * Schaltet die Bits einer Figur (Typ/Farbe) um und hält dabei alle
+	 * zusammengefassten Bitmaps und den Zobrist-Hash aktuell. Mit zwei
+	 * gesetzten Bits (von/nach) entspricht das genau einem Schritt.
+	 * 
+	 * @param type
+	 *            Figurtyp
+	 * @param color
+	 *            Farbe
+	 * @param mask
+	 *            umzuschaltende Felder
+	 */
+	private void togglePieces(int type, int color, long mask) {
+
+		bitboard[type][color] ^= mask;
+		generalBitmapP ^= mask;
+		colorBitmapP[color] ^= mask;
+
+		for (int i = type + 1; i < 6; i++) {
+			colorBitmapHigherP[color][i] ^= mask;
 		}
 
+		hash ^= Zobrist.pieces(type, color, mask);
 	}
 
 	/****************************************************************/
@@ -191,17 +203,7 @@ public class Bitboard {
 	 */
 	public long getGeneralBitmap() {
 
-		long generalBitmap = 0L;
-
-		for (int i = 0; i < this.bitboard.length; i++) {
-			generalBitmap = generalBitmap
-					| this.bitboard[i][Constants.Color.SILVER]
-					| this.bitboard[i][Constants.Color.GOLD];
-		}
-
-		return generalBitmap;
-
-		// return generalBitmapP;
+		return generalBitmapP;
 
 	}
 
@@ -230,22 +232,7 @@ public class Bitboard {
 	 */
 	public long getColorBitmap(int color) {
 
-		long colorBitmap = 0L;
-
-		for (int i = 0; i < this.bitboard.length; i++) {
-			colorBitmap = colorBitmap | this.bitboard[i][color];
-		}
-
-		return colorBitmap;
-
-		// switch (color) {
-		// case Constants.Color.GOLD:
-		// return colorBitmapGoldP;
-		// case Constants.Color.SILVER:
-		// return colorBitmapSilverP;
-		// default:
-		// return 0L;
-		// }
+		return colorBitmapP[color];
 
 	}
 
@@ -258,33 +245,9 @@ public class Bitboard {
 	 * @return
 	 */
 	public long getColorBitmapHigher(int color, int type) {
-		long colorMap = 0L;
 
-		for (int i = 0; i < type; i++) {
-			colorMap = colorMap | this.bitboard[i][color];
-		}
+		return colorBitmapHigherP[color][type];
 
-		return colorMap;
-
-		// switch (type) {
-		// case Constants.Type.CAMEL:
-		// return color == Constants.Color.GOLD ? colorBitmapHigherGoldCamelP
-		// : colorBitmapHigherSilverCamelP;
-		// case Constants.Type.HORSE:
-		// return color == Constants.Color.GOLD ? colorBitmapHigherGoldHorseP
-		// : colorBitmapHigherSilverHorseP;
-		// case Constants.Type.DOG:
-		// return color == Constants.Color.GOLD ? colorBitmapHigherGoldDogP
-		// : colorBitmapHigherSilverDogP;
-		// case Constants.Type.CAT:
-		// return color == Constants.Color.GOLD ? colorBitmapHigherGoldCatP
-		// : colorBitmapHigherSilverCatP;
-		// case Constants.Type.RABBIT:
-		// return color == Constants.Color.GOLD ? colorBitmapHigherGoldRabbitP
-		// : colorBitmapHigherSilverRabbitP;
-		// default:
-		// return 0L;
-		// }
 	}
 
 	/**
@@ -374,9 +337,9 @@ public class Bitboard {
 	 *            Die zu setzende Figur.
 	 */
 	public void setPieceAtPosition(Piece piece) {
-		bitboard[piece.getType()][piece.getColor()] |= getMaskAtPosition(piece
-				.getPosition());
-		initPerformanceEnhancingVariables();
+		long mask = getMaskAtPosition(piece.getPosition())
+				& ~bitboard[piece.getType()][piece.getColor()];
+		togglePieces(piece.getType(), piece.getColor(), mask);
 	}
 
 	/**
@@ -386,9 +349,9 @@ public class Bitboard {
 	 *            Die zu entfernende Figur.
 	 */
 	public void unsetPieceAtPosition(Piece piece) {
-		bitboard[piece.getType()][piece.getColor()] &= ~getMaskAtPosition(piece
-				.getPosition());
-		initPerformanceEnhancingVariables();
+		long mask = getMaskAtPosition(piece.getPosition())
+				& bitboard[piece.getType()][piece.getColor()];
+		togglePieces(piece.getType(), piece.getColor(), mask);
 	}
 
 	/****************************************************************/
@@ -429,30 +392,7 @@ public class Bitboard {
 	 * @return
 	 */
 	public long getBitmapAroundPosition(int col, int row) {
-
-		long bitmap = getMaskAt(col, row);
-
-		/* nicht am rechten Rand */
-		if (col < 7) {
-			bitmap |= getMaskAt(col + 1, row);
-		}
-
-		/* nicht am linken Rand */
-		if (col > 0) {
-			bitmap |= getMaskAt(col - 1, row);
-		}
-
-		/* nicht am oberen Rand */
-		if (row < 7) {
-			bitmap |= getMaskAt(col, row + 1);
-		}
-
-		/* nicht am oberen Rand */
-		if (row > 0) {
-			bitmap |= getMaskAt(col, row - 1);
-		}
-
-		return bitmap;
+		return BitboardTables.AROUND[(row << 3) + col];
 	}
 
 	/**
@@ -488,17 +428,29 @@ public class Bitboard {
 	 * @return ob die Figur blockiert ist.
 	 */
 	public boolean pieceIsFrozen(Piece piece) {
+		Position pos = piece.getPosition();
+		return pieceIsFrozen((pos.getRow() << 3) + pos.getCol(),
+				piece.getColor(), piece.getType());
+	}
 
-		long tmpBitmap = getBitmapAroundPosition(piece.getPosition().getCol(),
-				piece.getPosition().getRow());
-		int enemyColor = (piece.getColor() == 0) ? 1 : 0;
+	/**
+	 * Wie {@link #pieceIsFrozen(Piece)}, aber ohne Piece-Instanz.
+	 * 
+	 * @param square
+	 *            Feld der Figur (row * 8 + col)
+	 * @param color
+	 *            Farbe der Figur
+	 * @param type
+	 *            Typ der Figur
+	 * @return ob die Figur blockiert ist.
+	 */
+	public boolean pieceIsFrozen(int square, int color, int type) {
 
-		/* Die eigene Figur aus der Auswahl entfernen! */
-		tmpBitmap &= ~getMaskAt(piece.getPosition().getCol(), piece
-				.getPosition().getRow());
+		long tmpBitmap = BitboardTables.NEIGHBORS[square];
+		int enemyColor = (color == 0) ? 1 : 0;
 
 		/* Eine gleichfarbige Figur steht neben der Figur! */
-		if ((tmpBitmap & getColorBitmap(piece.getColor())) != 0) {
+		if ((tmpBitmap & getColorBitmap(color)) != 0) {
 			return false;
 		}
 
@@ -506,7 +458,7 @@ public class Bitboard {
 		 * Nur höherwertige Constanten checken --> Geht als Schleife, da Figuren
 		 * absteigend sortiert wurden bei ihrer Definition!
 		 */
-		for (int i = 0; i < piece.getType(); i++) {
+		for (int i = 0; i < type; i++) {
 			if ((tmpBitmap & getTypeBitmap(enemyColor, i)) != 0) {
 				return true;
 			}
@@ -524,20 +476,33 @@ public class Bitboard {
 	 * @return
 	 */
 	public long getPieceMovementBitmap(Piece piece) {
-
 		Position pos = piece.getPosition();
-		int col = pos.getCol(), row = pos.getRow();
-		long bitmap = 0L;
+		return getPieceMovementBitmap((pos.getRow() << 3) + pos.getCol(),
+				piece.getColor(), piece.getType());
+	}
 
-		/* Ob eine Figur gefreezed wurde, muss übergeordnet abgefragt werden!!! */
+	/**
+	 * Wie {@link #getPieceMovementBitmap(Piece)}, aber ohne Piece-Instanz.
+	 * 
+	 * @param square
+	 *            Feld der Figur (row * 8 + col)
+	 * @param color
+	 *            Farbe der Figur
+	 * @param type
+	 *            Typ der Figur
+	 * @return alle Felder, auf die die Figur ziehen kann.
+	 */
+	public long getPieceMovementBitmap(int square, int color, int type) {
 
-		long generalBitmap = getGeneralBitmap();
+		int col = square & 7, row = square >>> 3;
+
+		/* Ob eine Figur gefreezed wurde, muss übergeordnet abgefragt werden!!! */
 
-		bitmap = getBitmapAroundPosition(col, row);
+		long bitmap = BitboardTables.NEIGHBORS[square];
 
 		/* Hasen dürfen nicht zurück gehen */
-		if (piece.getType() == Constants.Type.RABBIT) {
-			switch (piece.getColor()) {
+		if (type == Constants.Type.RABBIT) {
+			switch (color) {
 			case Constants.Color.SILVER:
 				if (row < 7)
 					bitmap &= ~getMaskAt(col, row + 1);
@@ -553,224 +518,214 @@ public class Bitboard {
 		 * Es kann sein, dass bestimmte Positionen durch andere Figuren belegt
 		 * sind. Die Dürfen auch nicht begangen werden
 		 */
-		bitmap &= ~generalBitmap;
+		bitmap &= ~getGeneralBitmap();
 
 		return bitmap;
 
 	}
 
 	/**
-	 * Geht stumpf für eine Position alle Push-Möglichkeiten durch und gibt die
-	 * List mit validen Pushs zurück. Es wird davon ausgegangen, dass bei der
-	 * attackMap schon alle Typüberprüfungen gemacht wurde.
-	 * 
-	 * @param attackMap
-	 *            eine Map mit möglichen Pushes (Richtungen)
-	 * @param col
-	 *            col
-	 * @param row
-	 *            row
-	 * @return Liste mit allen Push-Möglichkeiten
+	 * Verschiebt alle Bits einer Bitmap um ein Feld nach oben (row + 1). Was
+	 * über den Rand hinausgeht, fällt weg.
 	 */
-	private LinkedList<MoveSpecial> getPushListAtPosition(long attackMap,
-			int col, int row) {
-		LinkedList<MoveSpecial> resultList = new LinkedList<MoveSpecial>();
+	public static long shiftNorth(long bitmap) {
+		return bitmap << 8;
+	}
 
-		/* nach oben pushen ist möglich ? */
-		if ((row < 7) && (attackMap & getMaskAt(col, row + 1)) != 0) {
-			/* Figur nach oben pushen */
-			if (row < 6 && isEmptyField(col, row + 2)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row + 1), 0, 1), new MoveNormal(new Position(col, row),
-						0, 1)));
-			}
-			/* Figur nach links pushen */
-			if (col > 0 && isEmptyField(col - 1, row + 1)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row + 1), -1, 0), new MoveNormal(
-						new Position(col, row), 0, 1)));
-			}
-			/* Figur nach rechts pushen */
-			if (col < 7 && isEmptyField(col + 1, row + 1)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row + 1), 1, 0), new MoveNormal(new Position(col, row),
-						0, 1)));
-			}
+	/**
+	 * Verschiebt alle Bits einer Bitmap um ein Feld nach unten (row - 1).
+	 */
+	public static long shiftSouth(long bitmap) {
+		return bitmap >>> 8;
+	}
 
-		}
+	/**
+	 * Verschiebt alle Bits einer Bitmap um ein Feld nach rechts (col + 1). Die
+	 * h-Linie wird vorher ausmaskiert, damit nichts in die nächste Reihe
+	 * überläuft.
+	 */
+	public static long shiftEast(long bitmap) {
+		return (bitmap & Constants.Bitmap.NOT_FILE_H) << 1;
+	}
 
-		/* nach links pushen möglich ? */
-		if ((col > 0) && (attackMap & getMaskAt(col - 1, row)) != 0) {
-			/* Figur nach links pushen */
-			if (col > 1 && isEmptyField(col - 2, row)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(
-						col - 1, row), -1, 0), new MoveNormal(new Position(col,
-						row), -1, 0)));
-			}
-			/* Figur nach oben pushen */
-			if (row < 7 && isEmptyField(col - 1, row + 1)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(
-						col - 1, row), 0, 1), new MoveNormal(new Position(col,
-						row), -1, 0)));
-			}
-			/* Figur nach unten pushen */
-			if (row > 0 && isEmptyField(col - 1, row - 1)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(
-						col - 1, row), 0, -1), new MoveNormal(new Position(col,
-						row), -1, 0)));
-			}
+	/**
+	 * Verschiebt alle Bits einer Bitmap um ein Feld nach links (col - 1).
+	 */
+	public static long shiftWest(long bitmap) {
+		return (bitmap & Constants.Bitmap.NOT_FILE_A) >>> 1;
+	}
 
-		}
+	/**
+	 * Alle Felder, die direkt neben (mindestens) einem Feld der Bitmap liegen.
+	 * Die Felder der Bitmap selbst sind nur enthalten, wenn sie auch Nachbar
+	 * eines anderen Feldes sind.
+	 */
+	public static long neighbors(long bitmap) {
+		return shiftNorth(bitmap) | shiftSouth(bitmap) | shiftEast(bitmap)
+				| shiftWest(bitmap);
+	}
 
-		/* nach unten pushen möglich ? */
-		if ((row > 0) && (attackMap & getMaskAt(col, row - 1)) != 0) {
-			/* Figur nach unten pushen */
-			if (row > 1 && isEmptyField(col, row - 2)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row - 1), 0, -1), new MoveNormal(
-						new Position(col, row), 0, -1)));
-			}
-			/* Figur nach links pushen */
-			if (col > 0 && isEmptyField(col - 1, row - 1)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row - 1), -1, 0), new MoveNormal(
-						new Position(col, row), 0, -1)));
-			}
-			/* Figur nach rechts pushen */
-			if (col < 7 && isEmptyField(col + 1, row - 1)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row - 1), 1, 0), new MoveNormal(new Position(col, row),
-						0, -1)));
-			}
+	/**
+	 * Alle gefreezten Figuren einer Farbe auf einmal: neben einer stärkeren
+	 * gegnerischen Figur und ohne eigene Figur daneben.
+	 * 
+	 * @param color
+	 *            Farbe der Figuren
+	 * @return Bitmap mit allen gefreezten Figuren der Farbe.
+	 */
+	public long getFrozenBitmap(int color) {
+		int enemyColor = (color == 0) ? 1 : 0;
+		long frozen = 0L;
+
+		/* Der Elefant kann nicht gefreezed werden */
+		for (int type = 1; type < 6; type++) {
+			frozen |= bitboard[type][color]
+					& neighbors(colorBitmapHigherP[enemyColor][type]);
 		}
 
-		/* nach rechts pushen möglich ? */
-		if ((col < 7) && (attackMap & getMaskAt(col + 1, row)) != 0) {
-			/* Figur nach rechts pushen */
-			if (col < 6 && isEmptyField(col + 2, row)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(
-						col + 1, row), 1, 0), new MoveNormal(new Position(col,
-						row), 1, 0)));
-			}
-			/* Figur nach unten pushen */
-			if (row > 0 && isEmptyField(col + 1, row - 1)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(
-						col + 1, row), 0, -1), new MoveNormal(new Position(col,
-						row), 1, 0)));
-			}
-			/* Figur nach oben pushen */
-			if (row < 7 && isEmptyField(col + 1, row + 1)) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(
-						col + 1, row), 0, 1), new MoveNormal(new Position(col,
-						row), 1, 0)));
-			}
+		return frozen & ~neighbors(colorBitmapP[color]);
+	}
+
+	/**
+	 * Das Nachbarfeld in einer Richtung oder -1, wenn es außerhalb des
+	 * Spielfeldes liegt.
+	 */
+	public static int neighbor(int square, int direction) {
+		switch (direction) {
+		case Constants.Direction.NORTH:
+			return (square < 56) ? square + 8 : -1;
+		case Constants.Direction.SOUTH:
+			return (square >= 8) ? square - 8 : -1;
+		case Constants.Direction.EAST:
+			return ((square & 7) < 7) ? square + 1 : -1;
+		default:
+			return ((square & 7) > 0) ? square - 1 : -1;
 		}
-		return resultList;
 	}
 
+	/*
+	 * Reihenfolge, in der die Push-Richtungen der gegnerischen Figur probiert
+	 * werden, abhängig davon, in welcher Richtung der Gegner steht (Index).
+	 */
+	private static final int[][] PUSH_DIRECTIONS = {
+			{ Constants.Direction.NORTH, Constants.Direction.WEST,
+					Constants.Direction.EAST },
+			{ Constants.Direction.SOUTH, Constants.Direction.WEST,
+					Constants.Direction.EAST },
+			{ Constants.Direction.EAST, Constants.Direction.SOUTH,
+					Constants.Direction.NORTH },
+			{ Constants.Direction.WEST, Constants.Direction.NORTH,
+					Constants.Direction.SOUTH } };
+
+	/* Reihenfolge, in der die Gegner bei einem Push gesucht werden */
+	private static final int[] PUSH_ORDER = { Constants.Direction.NORTH,
+			Constants.Direction.WEST, Constants.Direction.SOUTH,
+			Constants.Direction.EAST };
+
+	/* Reihenfolge, in der die eigene Figur bei einem Pull zieht */
+	private static final int[] PULL_ORDER = { Constants.Direction.EAST,
+			Constants.Direction.WEST, Constants.Direction.SOUTH,
+			Constants.Direction.NORTH };
+
+	/*
+	 * Richtungen, aus denen bei einem Pull nachgezogen wird, abhängig von der
+	 * Zugrichtung der eigenen Figur (Index).
+	 */
+	private static final int[][] PULL_DIRECTIONS = {
+			{ Constants.Direction.WEST, Constants.Direction.SOUTH,
+					Constants.Direction.EAST },
+			{ Constants.Direction.WEST, Constants.Direction.NORTH,
+					Constants.Direction.EAST },
+			{ Constants.Direction.NORTH, Constants.Direction.WEST,
+					Constants.Direction.SOUTH },
+			{ Constants.Direction.NORTH, Constants.Direction.EAST,
+					Constants.Direction.SOUTH } };
+
 	/**
-	 * Geht stumpf für eine Position alle Pull-Möglichkeiten durch und gibt die
-	 * List mit validen Pulls zurück. Es wird davon ausgegangen, dass bei der
+	 * Geht stumpf für eine Position alle Push-Möglichkeiten durch und hängt die
+	 * validen Pushs an die Liste an. Es wird davon ausgegangen, dass bei der
 	 * attackMap schon alle Typüberprüfungen gemacht wurde.
 	 * 
 	 * @param attackMap
 	 *            eine Map mit möglichen Pushes (Richtungen)
-	 * @param col
-	 *            col
-	 * @param row
-	 *            row
-	 * @return Liste mit allen Pull-Möglichkeiten
+	 * @param square
+	 *            Feld der schiebenden Figur
+	 * @param color
+	 *            Farbe der schiebenden Figur
+	 * @param type
+	 *            Typ der schiebenden Figur
+	 * @param enemyType
+	 *            Typ der geschobenen Figur(en)
+	 * @param list
+	 *            Ergebnisliste
 	 */
-	private LinkedList<MoveSpecial> getPullListAtPosition(long attackMap,
-			int col, int row) {
-		LinkedList<MoveSpecial> resultList = new LinkedList<MoveSpecial>();
+	private void addPushMoves(long attackMap, int square, int color,
+			int type, int enemyType, MoveList list) {
+		int enemyColor = (color == 0) ? 1 : 0;
+		long generalBitmap = getGeneralBitmap();
 
-		/* nach rechts gehen */
-		if (col < 7 && isEmptyField(col + 1, row)) {
-			/* von oben reinziehen */
-			if (row < 7 && (attackMap & getMaskAt(col, row + 1)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 1, 0), new MoveNormal(new Position(col, row + 1),
-						0, -1)));
-			}
-			/* von links reinziehen */
-			if (col > 0 && (attackMap & getMaskAt(col - 1, row)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 1, 0), new MoveNormal(new Position(col - 1, row),
-						1, 0)));
-			}
-			/* von unten reinziehen */
-			if (row > 0 && (attackMap & getMaskAt(col, row - 1)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 1, 0), new MoveNormal(new Position(col, row - 1),
-						0, 1)));
-			}
-		}
-		/* nach links gehen */
-		if (col > 0 && isEmptyField(col - 1, row)) {
-			/* von oben reinziehen */
-			if (row < 7 && (attackMap & getMaskAt(col, row + 1)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), -1, 0), new MoveNormal(
-						new Position(col, row + 1), 0, -1)));
-			}
-			/* von rechts reinziehen */
-			if (col < 7 && (attackMap & getMaskAt(col + 1, row)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), -1, 0), new MoveNormal(
-						new Position(col + 1, row), -1, 0)));
-			}
-			/* von unten reinziehen */
-			if (row > 0 && (attackMap & getMaskAt(col, row - 1)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), -1, 0), new MoveNormal(
-						new Position(col, row - 1), 0, 1)));
-			}
-		}
-		/* nach unten gehen */
-		if (row > 0 && isEmptyField(col, row - 1)) {
-			/* von links reinziehen */
-			if (col > 0 && (attackMap & getMaskAt(col - 1, row)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 0, -1), new MoveNormal(
-						new Position(col - 1, row), 1, 0)));
-			}
-			/* von oben reinziehen */
-			if (row < 7 && (attackMap & getMaskAt(col, row + 1)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 0, -1), new MoveNormal(
-						new Position(col, row + 1), 0, -1)));
+		for (int direction : PUSH_ORDER) {
+			int enemySquare = neighbor(square, direction);
+
+			if (enemySquare < 0 || (attackMap & masks[enemySquare]) == 0) {
+				continue;
 			}
-			/* von rechts reinziehen */
-			if (col < 7 && (attackMap & getMaskAt(col + 1, row)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 0, -1), new MoveNormal(
-						new Position(col + 1, row), -1, 0)));
+
+			for (int pushDirection : PUSH_DIRECTIONS[direction]) {
+				int target = neighbor(enemySquare, pushDirection);
+
+				if (target >= 0 && (generalBitmap & masks[target]) == 0) {
+					list.add(Step.move(
+							Step.create(enemySquare, pushDirection, enemyType,
+									enemyColor),
+							Step.create(square, direction, type, color)));
+				}
 			}
 		}
-		/* nach oben gehen */
-		if (row < 7 && isEmptyField(col, row + 1)) {
-			/* von links reinziehen */
-			if (col > 0 && (attackMap & getMaskAt(col - 1, row)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 0, 1), new MoveNormal(new Position(col - 1, row),
-						1, 0)));
-			}
-			/* von unten reinziehen */
-			if (row > 0 && (attackMap & getMaskAt(col, row - 1)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 0, 1), new MoveNormal(new Position(col, row - 1),
-						0, 1)));
+	}
+
+	/**
+	 * Geht stumpf für eine Position alle Pull-Möglichkeiten durch und hängt die
+	 * validen Pulls an die Liste an. Es wird davon ausgegangen, dass bei der
+	 * attackMap schon alle Typüberprüfungen gemacht wurde.
+	 * 
+	 * @param attackMap
+	 *            eine Map mit möglichen Pulls (Richtungen)
+	 * @param square
+	 *            Feld der ziehenden Figur
+	 * @param color
+	 *            Farbe der ziehenden Figur
+	 * @param type
+	 *            Typ der ziehenden Figur
+	 * @param enemyType
+	 *            Typ der gezogenen Figur(en)
+	 * @param list
+	 *            Ergebnisliste
+	 */
+	private void addPullMoves(long attackMap, int square, int color,
+			int type, int enemyType, MoveList list) {
+		int enemyColor = (color == 0) ? 1 : 0;
+		long generalBitmap = getGeneralBitmap();
+
+		for (int direction : PULL_ORDER) {
+			int target = neighbor(square, direction);
+
+			if (target < 0 || (generalBitmap & masks[target]) != 0) {
+				continue;
 			}
-			/* von rechts reinziehen */
-			if (col < 7 && (attackMap & getMaskAt(col + 1, row)) != 0) {
-				resultList.add(new MoveSpecial(new MoveNormal(new Position(col,
-						row), 0, 1), new MoveNormal(new Position(col + 1, row),
-						-1, 0)));
+
+			for (int pullFrom : PULL_DIRECTIONS[direction]) {
+				int enemySquare = neighbor(square, pullFrom);
+
+				if (enemySquare >= 0 && (attackMap & masks[enemySquare]) != 0) {
+					list.add(Step.move(
+							Step.create(square, direction, type, color),
+							Step.create(enemySquare,
+									Constants.Direction.OPPOSITE[pullFrom],
+									enemyType, enemyColor)));
+				}
 			}
 		}
-
-		return resultList;
 	}
 
 	/**
@@ -786,39 +741,65 @@ public class Bitboard {
 	 */
 	public LinkedList<MoveSpecial> getPieceSpecialMoveList(Piece piece) {
 
+		LinkedList<MoveSpecial> resultList = new LinkedList<MoveSpecial>();
+		MoveList list = new MoveList(32);
 		Position pos = piece.getPosition();
-		int col = pos.getCol(), row = pos.getRow();
-		int enemyColor = (piece.getColor() == Constants.Color.GOLD) ? Constants.Color.SILVER
-				: Constants.Color.GOLD;
-		long bitmap = 0L;
 
-		LinkedList<MoveSpecial> resultList = new LinkedList<MoveSpecial>();
+		addPieceSpecialMoves((pos.getRow() << 3) + pos.getCol(),
+				piece.getColor(), piece.getType(), list);
+
+		for (int i = 0; i < list.size(); i++) {
+			resultList.add((MoveSpecial) Step.toMove(list.get(i)));
+		}
+
+		return resultList;
+	}
+
+	/**
+	 * Hängt alle Push/Pull-Züge der Figur auf dem übergebenen Feld als
+	 * kodierte Züge an die Liste an. Ob die Figur gefreezed ist, muss
+	 * übergeordnet abgefragt werden!
+	 * 
+	 * @param square
+	 *            Feld der Figur (row * 8 + col)
+	 * @param color
+	 *            Farbe der Figur
+	 * @param type
+	 *            Typ der Figur
+	 * @param list
+	 *            Ergebnisliste
+	 */
+	public void addPieceSpecialMoves(int square, int color, int type,
+			MoveList list) {
 
 		/* Sonderfall: Hase */
-		if (piece.getType() == Constants.Type.RABBIT)
-			return resultList;
+		if (type == Constants.Type.RABBIT)
+			return;
 
-		/* Ob die Figur gefreezed ist, muss übergeordnet abgefragt werden!!! */
+		int enemyColor = (color == Constants.Color.GOLD) ? Constants.Color.SILVER
+				: Constants.Color.GOLD;
+		long bitmap = BitboardTables.NEIGHBORS[square];
 
-		bitmap = getBitmapAroundPosition(col, row);
+		/* Keine schwächere Figur daneben */
+		if ((bitmap & colorBitmapP[enemyColor]
+				& ~colorBitmapHigherP[enemyColor][type + 1]) == 0)
+			return;
 
 		/* Überprüfen niedriger Figuren */
-		for (int type = piece.getType() + 1; type < 6; type++) {
+		for (int enemyType = type + 1; enemyType < 6; enemyType++) {
 
-			long attackMap = bitmap & getTypeBitmap(enemyColor, type);
+			long attackMap = bitmap & bitboard[enemyType][enemyColor];
 			/* Position belegt? */
 			if (attackMap != 0) {
 
 				/* Das stumpfe Durchgehen aller Möglichkeiten... */
-				resultList.addAll(getPushListAtPosition(attackMap, col, row));
+				addPushMoves(attackMap, square, color, type, enemyType, list);
 
 				/* Das stumpfe Durchgehen aller Möglichkeiten... */
-				resultList.addAll(getPullListAtPosition(attackMap, col, row));
+				addPullMoves(attackMap, square, color, type, enemyType, list);
 
 			}
 		}
-
-		return resultList;
 	}
 
 	/**
@@ -881,37 +862,61 @@ public class Bitboard {
 	public Piece removePiecesFromTraps() {
 		Piece removedPiece = null;
 
-		LinkedList<Position> traps = new LinkedList<Position>();
-		traps.add(new Position(2, 2));
-		traps.add(new Position(5, 2));
-		traps.add(new Position(2, 5));
-		traps.add(new Position(5, 5));
+		for (int trap : TRAPS) {
 
-		for (Position pos : traps) {
+			int captured = capturePieceOnTrap(trap);
 
-			if ((getMaskAt(pos.getCol(), pos.getRow()) & getGeneralBitmap()) != 0) {
+			if (captured != 0) {
+				removedPiece = new Piece(new Position(trap & 7, trap >>> 3),
+						(captured >>> 9) & 1, (captured >>> 6) & 7);
+			}
+		}
 
-				Piece piece = findPieceAt(pos);
-				if ((piece != null)
-						&& ((getColorBitmap(piece.getColor()) & (getBitmapAroundPosition(pos) & ~getBitmapAtPosition(pos))) == 0)) {
-					unsetPieceAtPosition(piece);
-					removedPiece = piece;
+		return removedPiece;
+	}
 
-					if (generalAttributes.getUseMemory() && transposition != null) {
-						/* den Zobrist-Hash updaten! */
-						synchronized (transposition.getClass()) {
-							transposition.setTypeAt(this, piece.getColor(),
-									piece.getType(), piece.getPosition().getCol(),
-									piece.getPosition().getRow());
-						}
-							
-					}
+	/**
+	 * Entfernt eine ungeschützte Figur von dem übergebenen Trap-Feld und
+	 * updated den Hash.
+	 * 
+	 * @param trap
+	 *            das Trap-Feld
+	 * @return die entfernte Figur kodiert (Feld | Typ << 6 | Farbe << 9, Bit 15
+	 *         gesetzt) oder 0, wenn nichts entfernt wurde.
+	 */
+	private int capturePieceOnTrap(int trap) {
 
-				}
-			}
+		if ((masks[trap] & getGeneralBitmap()) == 0) {
+			return 0;
 		}
 
-		return removedPiece;
+		int color = ((masks[trap] & getColorBitmap(Constants.Color.GOLD)) != 0) ? Constants.Color.GOLD
+				: Constants.Color.SILVER;
+
+		if ((getColorBitmap(color) & BitboardTables.NEIGHBORS[trap]) != 0) {
+			return 0;
+		}
+
+		int type = getTypeAt(trap, color);
+
+		togglePieces(type, color, masks[trap]);
+
+		return (1 << 15) | trap | (type << 6) | (color << 9);
+	}
+
+	/**
+	 * Ermittelt den Typ der Figur einer Farbe auf einem Feld.
+	 * 
+	 * @return der Typ oder Constants.Type.NONE
+	 */
+	public int getTypeAt(int square, int color) {
+		long mask = masks[square];
+		for (int type = 0; type < 6; type++) {
+			if ((bitboard[type][color] & mask) != 0) {
+				return type;
+			}
+		}
+		return Constants.Type.NONE;
 	}
 
 	/**
@@ -932,29 +937,8 @@ public class Bitboard {
 			}
 		}
 
+		/* Berechnet dabei auch die zusammengefassten Bitmaps */
 		clone.setBitboard(res);
-		clone.setZobristHash(this.hash);
-		clone.setTransposition(transposition);
-
-		clone.initPerformanceEnhancingVariables();
-
-		// clone.colorBitmapGoldP = this.colorBitmapGoldP;
-		// clone.colorBitmapHigherGoldCamelP = this.colorBitmapHigherGoldCamelP;
-		// clone.colorBitmapHigherGoldCatP = this.colorBitmapHigherGoldCatP;
-		// clone.colorBitmapHigherGoldDogP = this.colorBitmapHigherGoldDogP;
-		// clone.colorBitmapHigherGoldHorseP = this.colorBitmapHigherGoldHorseP;
-		// clone.colorBitmapHigherGoldRabbitP =
-		// this.colorBitmapHigherGoldRabbitP;
-		// clone.colorBitmapHigherSilverCamelP =
-		// this.colorBitmapHigherSilverCamelP;
-		// clone.colorBitmapHigherSilverCatP = this.colorBitmapHigherSilverCatP;
-		// clone.colorBitmapHigherSilverDogP = this.colorBitmapHigherSilverDogP;
-		// clone.colorBitmapHigherSilverHorseP =
-		// this.colorBitmapHigherSilverHorseP;
-		// clone.colorBitmapHigherSilverRabbitP =
-		// this.colorBitmapHigherSilverRabbitP;
-		// clone.colorBitmapSilverP = this.colorBitmapSilverP;
-		// clone.generalBitmapP = this.generalBitmapP;
 
 		return clone;
 	}
@@ -974,27 +958,17 @@ public class Bitboard {
 			}
 		}
 
-		board.setZobristHash(this.hash);
-		board.setTransposition(transposition);
-		board.initPerformanceEnhancingVariables();
-
-		// board.colorBitmapGoldP = this.colorBitmapGoldP;
-		// board.colorBitmapHigherGoldCamelP = this.colorBitmapHigherGoldCamelP;
-		// board.colorBitmapHigherGoldCatP = this.colorBitmapHigherGoldCatP;
-		// board.colorBitmapHigherGoldDogP = this.colorBitmapHigherGoldDogP;
-		// board.colorBitmapHigherGoldHorseP = this.colorBitmapHigherGoldHorseP;
-		// board.colorBitmapHigherGoldRabbitP =
-		// this.colorBitmapHigherGoldRabbitP;
-		// board.colorBitmapHigherSilverCamelP =
-		// this.colorBitmapHigherSilverCamelP;
-		// board.colorBitmapHigherSilverCatP = this.colorBitmapHigherSilverCatP;
-		// board.colorBitmapHigherSilverDogP = this.colorBitmapHigherSilverDogP;
-		// board.colorBitmapHigherSilverHorseP =
-		// this.colorBitmapHigherSilverHorseP;
-		// board.colorBitmapHigherSilverRabbitP =
-		// this.colorBitmapHigherSilverRabbitP;
-		// board.colorBitmapSilverP = this.colorBitmapSilverP;
-		// board.generalBitmapP = this.generalBitmapP;
+		board.hash = this.hash;
+
+		board.generalBitmapP = this.generalBitmapP;
+
+		for (int color = 0; color < 2; color++) {
+			board.colorBitmapP[color] = this.colorBitmapP[color];
+			for (int type = 0; type < 6; type++) {
+				board.colorBitmapHigherP[color][type] =
+						this.colorBitmapHigherP[color][type];
+			}
+		}
 
 		return board;
 	}
@@ -1013,20 +987,17 @@ public class Bitboard {
 
 	public void setBitboard(long[][] board) {
 		this.bitboard = board;
+		initPerformanceEnhancingVariables();
 	}
 
-	public void setZobristHash(long hash) {
-		this.hash = hash;
-	}
-
+	/**
+	 * Zobrist-Hash der Figuren. Für Farbe am Zug und übrige Schritte siehe
+	 * Zobrist.key.
+	 */
 	public long getZobristHash() {
 		return this.hash;
 	}
 
-	public void setTransposition(Transposition transposition) {
-		this.transposition = transposition;
-	}
-
 	/**
 	 * Errechnet eine Fläche, die mit *distance Schritten begangen werden
 	 * könnte. Also die Fläche abgedeckt von *distance Schritten.
@@ -1041,6 +1012,16 @@ public class Bitboard {
 	 */
 	public long area(int col, int row, int distance) {
 
+		/* Auf dem Spielfeld: vorberechnet */
+		if (col >= 0 && col <= 7 && row >= 0 && row <= 7) {
+			if (distance < 0) {
+				return 0L;
+			}
+			return BitboardTables.AREA[(row << 3) + col][Math.min(distance,
+					BitboardTables.MAX_DISTANCE)];
+		}
+
+		/* Ausgangsfeld außerhalb des Spielfeldes */
 		long result = 0L;
 
 		/* col-Richtung */
@@ -1087,10 +1068,7 @@ public class Bitboard {
 	 */
 	public int distancemax(int col, int row) {
 
-		int maxCol = (col <= 3) ? (7 - col) : col;
-		int maxRow = (row <= 3) ? (7 - row) : row;
-
-		return maxCol + maxRow;
+		return BitboardTables.DISTANCE_MAX[(row << 3) + col];
 
 	}
 
@@ -1105,20 +1083,7 @@ public class Bitboard {
 	 * @return Anzahl der Vorkommen
 	 */
 	public int getTypeCount(int color, int type) {
-		int count = 0;
-		long typeMask = getTypeBitmap(color, type);
-
-		/* Vorkommen suchen */
-		for (int i = 0; i < 64; i++) {
-			long mask = 1L << i;
-			/* eine gefunden */
-			if ((typeMask & mask) != 0) {
-				count++;
-			}
-		}
-		return count;
-
-		// return getBitCount(typeMask);
+		return Bits.count(bitboard[type][color]);
 	}
 
 	/**
@@ -1129,21 +1094,7 @@ public class Bitboard {
 	 * @return wieviele Bits gesetzt sind.
 	 */
 	public int getBitCount(long map) {
-		int count = 0;
-
-		for (int i = 0; i < 64; i++) {
-			if (((1L << i) & map) != 0)
-				count++;
-		}
-
-		return count;
-
-		// while (map != 0) {
-		// count += map & 1;
-		// map = map >> 1;
-		// }
-		//
-		// return count;
+		return Bits.count(map);
 	}
 
 	/**
@@ -1197,12 +1148,7 @@ public class Bitboard {
 	 * @return die Map
 	 */
 	public long getSetRowMap(int row) {
-		long res = 0L;
-
-		for (int i = 0; i < 8; i++)
-			res |= getMaskAt(i, row);
-
-		return res;
+		return BitboardTables.ROW[row];
 	}
 
 	public long getRowMap(int row) {
@@ -1217,12 +1163,7 @@ public class Bitboard {
 	 * @return die Map
 	 */
 	public long getColMap(int col) {
-		long res = 0L;
-
-		for (int i = 0; i < 8; i++)
-			res |= getMaskAt(col, i);
-
-		return res;
+		return BitboardTables.COL[col];
 	}
 
 	/****************************************************************/
@@ -1239,33 +1180,12 @@ public class Bitboard {
 	public void applyMove(MoveNormal move) {
 		Piece piece = findPieceAt(move.getFrom());
 
-		if (generalAttributes.getUseMemory()) {
-			/* Updaten des Zobrist-Hashes!!!! */
-			/* Entfernen der Figur an seiner alten Position: */
-			synchronized (transposition.getClass()) {
-				transposition.setTypeAt(this, piece.getColor(), piece.getType(),
-						piece.getPosition().getCol(), piece.getPosition().getRow());
-			}
-			
-		}
-
 		unsetPieceAtPosition(piece);
 
 		piece.setPosition(new Position(piece.getPosition().getCol()
 				+ move.getDirCol(), piece.getPosition().getRow()
 				+ move.getDirRow()));
 		setPieceAtPosition(piece);
-
-		if (generalAttributes.getUseMemory()) {
-			/* Updaten des Zobrist-Hashes!!!! */
-			/* Entfernen der Figur an seiner alten Position: */
-			synchronized (transposition.getClass()) {
-				transposition.setTypeAt(this, piece.getColor(), piece.getType(),
-						piece.getPosition().getCol(), piece.getPosition().getRow());
-			}
-			
-		}
-
 	}
 
 	/**
@@ -1315,6 +1235,137 @@ public class Bitboard {
 
 	}
 
+	/**
+	 * Führt einen einzelnen kodierten Schritt (siehe {@link Step}) aus.
+	 * Figurtyp und Farbe stehen im Schritt selbst, es muss also nicht gesucht
+	 * werden.
+	 * 
+	 * @param step
+	 *            der kodierte Schritt
+	 */
+	public void applyStep(int step) {
+		int from = Step.getFrom(step);
+		int to = Step.getTo(step);
+		int type = Step.getType(step);
+		int color = Step.getColor(step);
+
+		togglePieces(type, color, masks[from] | masks[to]);
+	}
+
+	/**
+	 * Wendet einen kodierten Zug (ein oder zwei Schritte) auf das Board an.
+	 * 
+	 * @param move
+	 *            der kodierte Zug
+	 */
+	public void applyMove(int move) {
+		applyStep(Step.getFirst(move));
+
+		if (Step.isSpecial(move)) {
+			applyStep(Step.getSecond(move));
+		}
+	}
+
+	/**
+	 * Lässt den kodierten Zug ausführen und entfernt u.U. Figuren von Traps,
+	 * die gefangen genommen wurde.
+	 * 
+	 * @param move
+	 *            der kodierte Zug
+	 */
+	public void applyMoveAndRemovePieces(int move) {
+
+		applyMove(move);
+		removePiecesFromTraps();
+
+	}
+
+	/**
+	 * Führt einen kodierten Schritt reversibel aus. Eine dadurch gefangene
+	 * Figur wird sofort vom Trap entfernt (pro Schritt kann höchstens eine
+	 * Figur gefangen werden). Mit {@link #unmakeStep()} wird der Schritt samt
+	 * Figur und Hash wieder zurückgenommen.
+	 * 
+	 * @param step
+	 *            der kodierte Schritt
+	 */
+	public void makeStep(int step) {
+
+		if (undoSize == undoSteps.length) {
+			growUndoStack();
+		}
+
+		undoSteps[undoSize] = step;
+
+		applyStep(step);
+
+		int captured = 0;
+		for (int trap : TRAPS) {
+			captured = capturePieceOnTrap(trap);
+			if (captured != 0) {
+				break;
+			}
+		}
+
+		undoCaptures[undoSize] = captured;
+		undoSize++;
+	}
+
+	/**
+	 * Nimmt den zuletzt mit {@link #makeStep(int)} ausgeführten Schritt zurück.
+	 */
+	public void unmakeStep() {
+
+		undoSize--;
+
+		/* Gefangene Figur zurücksetzen */
+		int captured = undoCaptures[undoSize];
+		if (captured != 0) {
+			int type = (captured >>> 6) & 7;
+			int color = (captured >>> 9) & 1;
+			togglePieces(type, color, masks[captured & 0x3F]);
+		}
+
+		/* Schritt rückwärts */
+		int step = undoSteps[undoSize];
+		togglePieces(Step.getType(step), Step.getColor(step),
+				masks[Step.getFrom(step)] | masks[Step.getTo(step)]);
+	}
+
+	/**
+	 * Führt einen kodierten Zug (ein oder zwei Schritte) reversibel aus. Bei
+	 * Push/Pull wird nach jedem einzelnen Schritt auf gefangene Figuren
+	 * geprüft.
+	 * 
+	 * @param move
+	 *            der kodierte Zug
+	 */
+	public void makeMove(int move) {
+		makeStep(Step.getFirst(move));
+
+		if (Step.isSpecial(move)) {
+			makeStep(Step.getSecond(move));
+		}
+	}
+
+	/**
+	 * Nimmt einen mit {@link #makeMove(int)} ausgeführten Zug zurück.
+	 * 
+	 * @param move
+	 *            der kodierte Zug
+	 */
+	public void unmakeMove(int move) {
+		if (Step.isSpecial(move)) {
+			unmakeStep();
+		}
+		unmakeStep();
+	}
+
+	private void growUndoStack() {
+		undoSteps = Arrays.copyOf(undoSteps, undoSteps.length * 2);
+		undoCaptures = Arrays.copyOf(undoCaptures, undoCaptures.length * 2);
+	}
+
 	/**
 	 * Erzeugt einen String mit der grafischen Darstellung des Spielfeldes. Alle
 	 * Figuren beider Parteien werden abgebildet.
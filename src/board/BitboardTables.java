@@ -0,0 +1,101 @@
+package board;
+
+/**
+ * Vorberechnete Bitmaps für alle Felder des Spielfeldes. Werden einmalig beim
+ * Laden der Klasse erzeugt und ersetzen die Schleifen, die diese Maps vorher
+ * bei jedem Aufruf neu zusammengesetzt haben. Felder sind wie im Bitboard als
+ * row * 8 + col indiziert.
+ *
+ * @author maurice
+ *
+ */
+public final class BitboardTables {
+
+	/**
+	 * Größte Manhattan-Distanz zwischen zwei Feldern (a1 -> h8).
+	 */
+	public static final int MAX_DISTANCE = 14;
+
+	/**
+	 * Ein gesetztes Bit pro Feld.
+	 */
+	public static final long[] MASK = new long[64];
+
+	/**
+	 * Die (bis zu) 4 direkten Nachbarfelder, ohne das Feld selbst.
+	 */
+	public static final long[] NEIGHBORS = new long[64];
+
+	/**
+	 * Das Feld selbst und seine direkten Nachbarn (wie
+	 * Bitboard.getBitmapAroundPosition).
+	 */
+	public static final long[] AROUND = new long[64];
+
+	/**
+	 * Alle Felder mit Manhattan-Distanz <= distance: AREA[square][distance].
+	 */
+	public static final long[][] AREA = new long[64][MAX_DISTANCE + 1];
+
+	/**
+	 * Maximale Distanz eines Feldes zum entferntesten Feld des Boards.
+	 */
+	public static final int[] DISTANCE_MAX = new int[64];
+
+	/**
+	 * Komplette Reihen (ROW[row]) und Spalten (COL[col]).
+	 */
+	public static final long[] ROW = new long[8];
+	public static final long[] COL = new long[8];
+
+	/**
+	 * Die Nachbarfelder der 4 Traps, in der Reihenfolge von Bitboard.TRAPS.
+	 */
+	public static final long[] TRAP_NEIGHBORS = new long[4];
+
+	/**
+	 * Die 4 Traps (c3, f3, c6, f6) als eine Bitmap.
+	 */
+	public static final long TRAP_SQUARES = (1L << 18) | (1L << 21)
+			| (1L << 42) | (1L << 45);
+
+	static {
+
+		for (int square = 0; square < 64; square++) {
+			MASK[square] = 1L << square;
+		}
+
+		for (int i = 0; i < 8; i++) {
+			ROW[i] = 0xFFL << (i << 3);
+			COL[i] = 0x0101010101010101L << i;
+		}
+
+		for (int square = 0; square < 64; square++) {
+			int col = square & 7, row = square >>> 3;
+
+			NEIGHBORS[square] = Bitboard.neighbors(MASK[square]);
+			AROUND[square] = NEIGHBORS[square] | MASK[square];
+
+			for (int other = 0; other < 64; other++) {
+				int distance = Math.abs(col - (other & 7))
+						+ Math.abs(row - (other >>> 3));
+
+				for (int d = distance; d <= MAX_DISTANCE; d++) {
+					AREA[square][d] |= MASK[other];
+				}
+			}
+
+			int maxCol = (col <= 3) ? (7 - col) : col;
+			int maxRow = (row <= 3) ? (7 - row) : row;
+			DISTANCE_MAX[square] = maxCol + maxRow;
+		}
+
+		for (int i = 0; i < 4; i++) {
+			TRAP_NEIGHBORS[i] = NEIGHBORS[Bitboard.TRAPS[i]];
+		}
+	}
+
+	private BitboardTables() {
+	}
+
+}
@@ -0,0 +1,47 @@
+package board;
+
+/**
+ * Hilfsfunktionen zum Zählen und Durchlaufen der gesetzten Bits einer Bitmap.
+ * Statt alle 64 Felder abzufragen, werden nur die gesetzten Bits besucht:
+ *
+ * <pre>
+ * for (long map = bitmap; map != 0; map = Bits.removeFirst(map)) {
+ * 	int square = Bits.first(map);
+ * 	...
+ * }
+ * </pre>
+ *
+ * Long.bitCount und Long.numberOfTrailingZeros werden von der JVM auf die
+ * entsprechenden Prozessorbefehle abgebildet.
+ *
+ * @author maurice
+ *
+ */
+public final class Bits {
+
+	/**
+	 * Anzahl gesetzter Bits.
+	 */
+	public static int count(long bitmap) {
+		return Long.bitCount(bitmap);
+	}
+
+	/**
+	 * Index (Feld) des niedrigsten gesetzten Bits. 64, wenn die Bitmap leer
+	 * ist.
+	 */
+	public static int first(long bitmap) {
+		return Long.numberOfTrailingZeros(bitmap);
+	}
+
+	/**
+	 * Die Bitmap ohne ihr niedrigstes gesetztes Bit.
+	 */
+	public static long removeFirst(long bitmap) {
+		return bitmap & (bitmap - 1);
+	}
+
+	private Bits() {
+	}
+
+}
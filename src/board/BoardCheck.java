@@ -0,0 +1,424 @@
+package board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import memory.RepetitionCounter;
+import network.MessageOutputWriter;
+import engine.EngineGeneralAttributes;
+
+/**
+ * Prüft die schnellen Varianten von Zuggenerierung und Board gegen einfache
+ * Referenzen. Die Stellungen entstehen aus zufälligen Partien ab der
+ * Standard-Aufstellung, sind also bei jedem Lauf dieselben. Geprüft wird
+ * jeweils für beide Farben.
+ *
+ * Bei der ersten Abweichung wird die Stellung ausgegeben und das Programm
+ * endet mit Exit-Code 1.
+ *
+ * Aufruf: java board.BoardCheck [Partien]
+ *
+ * @author maurice
+ *
+ */
+public class BoardCheck {
+
+	private static final String SETUP_GOLD = "Ra1 Rb1 Rc1 Rd1 Re1 Rf1 Rg1 Rh1 Da2 Hb2 Cc2 Ed2 He2 Cf2 Mg2 Dh2";
+	private static final String SETUP_SILVER = "ra8 rb8 rc8 rd8 re8 rf8 rg8 rh8 da7 mb7 cc7 hd7 ee7 cf7 hg7 dh7";
+
+	private static MoveGenerator moveGen = new MoveGenerator();
+
+	public static void main(String[] args) {
+
+		int games = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+
+		EngineGeneralAttributes generalAttributes = new EngineGeneralAttributes(
+				new MessageOutputWriter());
+
+		ArrayList<Bitboard> positions = generatePositions(generalAttributes,
+				games);
+
+		checkMoveGeneration(positions);
+		checkMakeUnmake(positions);
+		checkHash(positions);
+		checkLeafDetection(positions, generalAttributes);
+	}
+
+	/**
+	 * Die Züge des Generators (Bitmaps für alle Figuren eines Typs) müssen
+	 * in derselben Reihenfolge herauskommen wie beim Durchlaufen aller Felder
+	 * mit den Methoden des Boards je Figur. Außerdem muss jeder Zug als
+	 * Move-Objekt (AEI) dasselbe Board ergeben wie kodiert.
+	 */
+	private static void checkMoveGeneration(ArrayList<Bitboard> positions) {
+
+		MoveList moveList = new MoveList();
+		MoveList reference = new MoveList();
+		long moves = 0;
+
+		for (Bitboard board : positions) {
+			for (int color = 0; color < 2; color++) {
+
+				moveGen.generateAllColorMoves(board, color, moveList);
+				generateReference(board, color, reference);
+
+				if (!sameMoves(moveList, reference)) {
+					fail(board, "move generation, color " + color
+							+ "\n  generator: " + moveList
+							+ "\n  reference: " + reference);
+				}
+
+				for (int i = 0; i < moveList.size(); i++) {
+					Bitboard encoded = board.cloneBitboard();
+					Bitboard object = board.cloneBitboard();
+
+					encoded.applyMoveAndRemovePieces(moveList.get(i));
+					object.applyMoveAndRemovePieces(Step.toMove(moveList
+							.get(i)));
+
+					if (!sameBoard(encoded, object)) {
+						fail(board, "move object, "
+								+ Step.moveToString(moveList.get(i)));
+					}
+				}
+
+				moves += moveList.size();
+			}
+		}
+
+		System.out.println("move generation: " + positions.size()
+				+ " positions, " + moves + " moves, ok");
+	}
+
+	/**
+	 * makeMove muss dasselbe Board ergeben wie applyMoveAndRemovePieces
+	 * (inklusive geschlagener Figuren), die inkrementellen Bitmaps und der
+	 * Hash müssen zu den neu berechneten passen, und unmakeMove muss das Board
+	 * exakt wiederherstellen. Dazu wird nach jedem Zug noch ein zweiter
+	 * gemacht und in umgekehrter Reihenfolge zurückgenommen (Undo-Stack).
+	 */
+	private static void checkMakeUnmake(ArrayList<Bitboard> positions) {
+
+		MoveList moveList = new MoveList();
+		MoveList nextList = new MoveList();
+		long checks = 0;
+
+		for (Bitboard position : positions) {
+			for (int color = 0; color < 2; color++) {
+
+				Bitboard board = position.cloneBitboard();
+				moveGen.generateAllColorMoves(board, color, moveList);
+
+				for (int i = 0; i < moveList.size(); i++) {
+					int move = moveList.get(i);
+
+					Bitboard applied = board.cloneBitboard();
+					applied.applyMoveAndRemovePieces(move);
+
+					board.makeMove(move);
+					checkMade(board, applied, move);
+
+					moveGen.generateAllColorMoves(board, color, nextList);
+
+					if (!nextList.isEmpty()) {
+						int next = nextList.get(0);
+						Bitboard nextApplied = applied.cloneBitboard();
+						nextApplied.applyMoveAndRemovePieces(next);
+
+						board.makeMove(next);
+						checkMade(board, nextApplied, next);
+
+						board.unmakeMove(next);
+						checkMade(board, applied, next);
+						checks += 2;
+					}
+
+					board.unmakeMove(move);
+					checkMade(board, position, move);
+					checks += 2;
+				}
+			}
+		}
+
+		System.out.println("make/unmake: " + checks + " checks, ok");
+	}
+
+	/**
+	 * Der inkrementelle Zobrist-Hash muss nach jedem Zug (make und unmake)
+	 * dem neu berechneten entsprechen, die Repetition-Rule muss denselben Hash
+	 * benutzen. Die Schlüssel für Farbe am Zug und übrige Schritte müssen sich
+	 * alle unterscheiden, und keyAfter muss zu key passen.
+	 */
+	private static void checkHash(ArrayList<Bitboard> positions) {
+
+		RepetitionCounter repetitionCounter = new RepetitionCounter();
+		MoveList moveList = new MoveList();
+		long checks = 0;
+
+		for (Bitboard position : positions) {
+
+			Bitboard board = position.cloneBitboard();
+			long hash = board.getZobristHash();
+
+			if (hash != Zobrist.hash(board.getBitboard())
+					|| repetitionCounter.getBoardHash(board) != hash) {
+				fail(board, "hash of the position");
+			}
+
+			HashSet<Long> keys = new HashSet<Long>();
+			keys.add(hash);
+
+			for (int color = 0; color < 2; color++) {
+				for (int stepsLeft = 1; stepsLeft <= 4; stepsLeft++) {
+					keys.add(Zobrist.key(hash, color, stepsLeft));
+
+					for (int steps = 1; steps <= Math.min(stepsLeft, 2); steps++) {
+						long expected = (stepsLeft == steps) ? Zobrist.key(
+								hash, 1 - color, 4) : Zobrist.key(hash, color,
+								stepsLeft - steps);
+
+						if (Zobrist.keyAfter(hash, color, stepsLeft, steps) != expected) {
+							fail(board, "keyAfter, color " + color
+									+ ", steps left " + stepsLeft + ", steps "
+									+ steps);
+						}
+					}
+				}
+			}
+
+			if (keys.size() != 9) {
+				fail(board, "keys for color and steps left are not distinct");
+			}
+
+			for (int color = 0; color < 2; color++) {
+				moveGen.generateAllColorMoves(board, color, moveList);
+
+				for (int i = 0; i < moveList.size(); i++) {
+					int move = moveList.get(i);
+
+					board.makeMove(move);
+
+					if (board.getZobristHash() != Zobrist.hash(board
+							.getBitboard())) {
+						fail(board, "hash after " + Step.moveToString(move));
+					}
+
+					board.unmakeMove(move);
+
+					if (board.getZobristHash() != hash) {
+						fail(board, "hash after unmaking "
+								+ Step.moveToString(move));
+					}
+
+					checks += 2;
+				}
+			}
+		}
+
+		System.out.println("zobrist hash: " + checks + " checks, ok");
+	}
+
+	/**
+	 * hasAnyMove (nur Bitmaps) muss genau dann true liefern, wenn der
+	 * Generator mindestens einen Zug findet. In Partien ist fast immer ein
+	 * Zug möglich, daher kommen zufällige, dünn besetzte Stellungen dazu, in
+	 * denen oft alles eingefroren oder blockiert ist.
+	 */
+	private static void checkLeafDetection(ArrayList<Bitboard> positions,
+			EngineGeneralAttributes generalAttributes) {
+
+		ArrayList<Bitboard> boards = new ArrayList<Bitboard>(positions);
+		Random random = new Random(1);
+
+		for (int i = 0; i < positions.size(); i++) {
+			Bitboard board = new Bitboard(generalAttributes);
+
+			for (int color = 0; color < 2; color++) {
+				int pieces = 1 + random.nextInt(color == 0 ? 3 : 8);
+
+				for (int j = 0; j < pieces; j++) {
+					int square = random.nextInt(64);
+
+					if ((board.getGeneralBitmap() & (1L << square)) == 0) {
+						/* Viele Hasen, die dürfen nicht zurück */
+						int type = random.nextBoolean() ? Constants.Type.RABBIT
+								: random.nextInt(6);
+
+						board.setPieceAtPosition(new Piece(new Position(
+								square & 7, square >>> 3), color, type));
+					}
+				}
+			}
+
+			boards.add(board);
+		}
+
+		MoveList moveList = new MoveList();
+		int blocked = 0;
+
+		for (Bitboard board : boards) {
+			for (int color = 0; color < 2; color++) {
+				moveGen.generateAllColorMoves(board, color, moveList);
+
+				if (moveGen.hasAnyMove(board, color) == moveList.isEmpty()) {
+					fail(board, "hasAnyMove, color " + color + ", "
+							+ moveList.size() + " moves");
+				}
+
+				if (moveList.isEmpty()) {
+					blocked++;
+				}
+			}
+		}
+
+		System.out.println("leaf detection: " + boards.size()
+				+ " positions, " + blocked + " without a move, ok");
+	}
+
+	/**
+	 * Vergleicht das Board nach make/unmake mit dem erwarteten und mit sich
+	 * selbst, neu berechnet.
+	 */
+	private static void checkMade(Bitboard board, Bitboard expected, int move) {
+		if (!sameBoard(board, expected)
+				|| !sameBoard(board, board.cloneBitboard())) {
+			fail(board, "make/unmake, " + Step.moveToString(move)
+					+ ", expected\n" + expected);
+		}
+	}
+
+	/**
+	 * Referenz: alle Felder je Typ durchgehen, Push/Pull und Schritte über
+	 * pieceIsFrozen, addPieceSpecialMoves und getPieceMovementBitmap.
+	 */
+	private static void generateReference(Bitboard board, int color,
+			MoveList moveList) {
+
+		/* Oben, unten, links, rechts wie im Generator */
+		int[] directions = { Constants.Direction.NORTH,
+				Constants.Direction.SOUTH, Constants.Direction.WEST,
+				Constants.Direction.EAST };
+
+		moveList.clear();
+
+		for (int type = 0; type < 6; type++) {
+			for (int square = 0; square < 64; square++) {
+
+				if (board.getTypeAt(square, color) != type
+						|| board.pieceIsFrozen(square, color, type)) {
+					continue;
+				}
+
+				board.addPieceSpecialMoves(square, color, type, moveList);
+
+				long movement = board.getPieceMovementBitmap(square, color,
+						type);
+
+				for (int direction : directions) {
+					int to = Bitboard.neighbor(square, direction);
+
+					if (to >= 0 && (movement & (1L << to)) != 0) {
+						moveList.add(Step.create(square, direction, type,
+								color));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Bitboard.equals vergleicht auch hashCode() (Identität der Arrays), daher
+	 * hier über die Bitmaps, die zusammengefassten Bitmaps und den
+	 * Zobrist-Hash.
+	 */
+	private static boolean sameBoard(Bitboard a, Bitboard b) {
+
+		if (!Arrays.deepEquals(a.getBitboard(), b.getBitboard())
+				|| a.getZobristHash() != b.getZobristHash()
+				|| a.getGeneralBitmap() != b.getGeneralBitmap()) {
+			return false;
+		}
+
+		for (int color = 0; color < 2; color++) {
+			if (a.getColorBitmap(color) != b.getColorBitmap(color)) {
+				return false;
+			}
+
+			for (int type = 0; type < 6; type++) {
+				if (a.getColorBitmapHigher(color, type) != b
+						.getColorBitmapHigher(color, type)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean sameMoves(MoveList a, MoveList b) {
+		if (a.size() != b.size()) {
+			return false;
+		}
+
+		for (int i = 0; i < a.size(); i++) {
+			if (a.get(i) != b.get(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static void fail(Bitboard board, String message) {
+		System.out.println("FAILED: " + message);
+		System.out.println(board);
+		System.exit(1);
+	}
+
+	/**
+	 * Spielt zufällige Partien und merkt sich jede entstandene Stellung.
+	 */
+	private static ArrayList<Bitboard> generatePositions(
+			EngineGeneralAttributes generalAttributes, int games) {
+
+		ArrayList<Bitboard> positions = new ArrayList<Bitboard>();
+		MoveList moveList = new MoveList();
+
+		for (int game = 0; game < games; game++) {
+			Bitboard board = new Bitboard(generalAttributes);
+
+			for (String piece : (SETUP_GOLD + " " + SETUP_SILVER).split(" ")) {
+				int color = Character.isUpperCase(piece.charAt(0)) ? 1 : 0;
+				int type = "emhdcr".indexOf(Character.toLowerCase(piece
+						.charAt(0)));
+				board.setPieceAtPosition(new Piece(new Position(
+						piece.charAt(1) - 'a', piece.charAt(2) - '1'), color,
+						type));
+			}
+
+			Random random = new Random(game);
+			int color = 1;
+
+			for (int step = 0; step < 200; step++) {
+				moveGen.generateAllColorMoves(board, color, moveList);
+
+				if (moveList.isEmpty()) {
+					break;
+				}
+
+				board.applyMoveAndRemovePieces(moveList.get(random
+						.nextInt(moveList.size())));
+				positions.add(board.cloneBitboard());
+
+				if (step % 4 == 3) {
+					color = 1 - color;
+				}
+			}
+		}
+
+		return positions;
+	}
+
+}
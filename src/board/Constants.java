@@ -201,6 +201,10 @@ public class Constants {
 	 */
 	public static class Bitmap {
 		public static final long EMPTY_BITMAP = 0L;
+		/* Alle Felder außer der a-Linie (col 0) */
+		public static final long NOT_FILE_A = 0xFEFEFEFEFEFEFEFEL;
+		/* Alle Felder außer der h-Linie (col 7) */
+		public static final long NOT_FILE_H = 0x7F7F7F7F7F7F7F7FL;
 	}
 
 	/**
@@ -249,6 +253,22 @@ public class Constants {
 		public static final int SCORE = 2;
 	}
 
+	/**
+	 * Interne Klasse mit den vier Schrittrichtungen eines kodierten Zuges
+	 * (siehe {@link Step}). Die Reihenfolge entspricht OFFSET.
+	 */
+	public static class Direction {
+		public static final int NORTH = 0;
+		public static final int SOUTH = 1;
+		public static final int EAST = 2;
+		public static final int WEST = 3;
+
+		/* Veränderung des Feld-Indizes (row * 8 + col) je Richtung */
+		public static final int[] OFFSET = { 8, -8, 1, -1 };
+		/* Die jeweils entgegengesetzte Richtung */
+		public static final int[] OPPOSITE = { SOUTH, NORTH, WEST, EAST };
+	}
+
 	/**
 	 * Interne Klasse mit Node-Types für die Memory.
 	 */
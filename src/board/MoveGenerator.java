@@ -8,7 +8,10 @@ public class MoveGenerator {
 	 * Generiert eine Liste mit allen direkten resultierenden möglichen Zügen
 	 * aller Figuren der übergebenen Farbe für eine bestimmte Konstellation des
 	 * übergebenen Boards.
-	 * 
+	 *
+	 * Nur noch für Debug-Ausgaben gedacht. Die Suche verwendet
+	 * {@link #generateAllColorMoves(Bitboard, int, MoveList)}.
+	 *
 	 * @param board
 	 *            Das Board, für das die Züge generierte werden sollen.
 	 * @param color
@@ -20,6 +23,165 @@ public class MoveGenerator {
 	public LinkedList<Move> generateAllColorMoves(Bitboard board, int color) {
 
 		LinkedList<Move> possibleMoves = new LinkedList<Move>();
+		MoveList moveList = new MoveList();
+
+		generateAllColorMoves(board, color, moveList);
+
+		for (int i = 0; i < moveList.size(); i++) {
+			possibleMoves.add(Step.toMove(moveList.get(i)));
+		}
+
+		return possibleMoves;
+	}
+
+	/**
+	 * Generiert alle möglichen Züge der übergebenen Farbe als kodierte Züge
+	 * (siehe {@link Step}) in die übergebene Liste. Die Liste wird vorher
+	 * geleert. Es werden keine Objekte erzeugt.
+	 *
+	 * Gefreezte Figuren, Zielfelder und Push/Pull-Kandidaten werden für alle
+	 * Figuren eines Typs gleichzeitig über verschobene Bitmaps berechnet.
+	 * Danach werden nur noch die Figuren durchgegangen, die überhaupt ziehen
+	 * können. Die Reihenfolge der Züge ist dieselbe wie beim Durchlaufen aller
+	 * 64 Felder: Typ, Feld, Push/Pull, oben, unten, links, rechts.
+	 *
+	 * @param board
+	 *            Das Board, für das die Züge generierte werden sollen.
+	 * @param color
+	 *            Die übergebene Farbe, für die die Züge generiert werden
+	 *            sollen.
+	 * @param moveList
+	 *            Liste, in die die Züge geschrieben werden.
+	 */
+	public void generateAllColorMoves(Bitboard board, int color,
+			MoveList moveList) {
+
+		moveList.clear();
+
+		generate(board, color, moveList, true, true, -1L);
+	}
+
+	/**
+	 * Hängt nur die Push/Pull-Züge der übergebenen Farbe an die Liste an (in
+	 * derselben Reihenfolge wie bei generateAllColorMoves). Die Liste wird
+	 * nicht geleert.
+	 */
+	public void generateSpecialMoves(Bitboard board, int color,
+			MoveList moveList) {
+		generate(board, color, moveList, true, false, -1L);
+	}
+
+	/**
+	 * Hängt die Push/Pull-Züge an die Liste an, die eine gegnerische Figur in
+	 * einer Trap schlagen können. Das ist eine Obermenge, ob wirklich
+	 * geschlagen wird, prüft {@link #isCapture(Bitboard, int, int)}. Gibt es
+	 * keine passende gegnerische Figur, wird gar nichts generiert.
+	 */
+	public void generateCaptureMoves(Bitboard board, int color,
+			MoveList moveList) {
+		long victims = getCaptureVictims(board, (color == 0) ? 1 : 0);
+
+		if (victims != 0) {
+			generate(board, color, moveList, true, false, victims);
+		}
+	}
+
+	/**
+	 * Gegnerische Figuren, deren Push/Pull zu einem Schlag führen kann: die
+	 * einzige Figur ihrer Farbe neben einer Trap (wird hineingeschoben oder
+	 * -gezogen bzw. ist der letzte Nachbar einer Figur auf der Trap).
+	 */
+	private static long getCaptureVictims(Bitboard board, int enemyColor) {
+		long enemy = board.getColorBitmap(enemyColor);
+		long victims = 0L;
+
+		for (int i = 0; i < Bitboard.TRAPS.length; i++) {
+			long around = enemy & BitboardTables.TRAP_NEIGHBORS[i];
+
+			if (around != 0 && (around & (around - 1)) == 0) {
+				victims |= around;
+			}
+		}
+
+		return victims;
+	}
+
+	/**
+	 * Hängt nur die einfachen Schritte der übergebenen Farbe an die Liste an.
+	 * Die Liste wird nicht geleert.
+	 */
+	public void generateSteps(Bitboard board, int color, MoveList moveList) {
+		generate(board, color, moveList, false, true, -1L);
+	}
+
+	/**
+	 * Hängt die Schritte von Hasen an die Liste an, die mit den übrigen
+	 * Schritten das Ziel erreichen: direkt auf die Zielreihe oder, bei
+	 * mindestens 2 Schritten, auf die Reihe davor, wenn das Zielfeld frei ist.
+	 * Die Liste wird nicht geleert.
+	 *
+	 * @param board
+	 *            Das Board
+	 * @param color
+	 *            Die Farbe, die am Zug ist
+	 * @param steps
+	 *            übrige Schritte in diesem Zug
+	 * @param moveList
+	 *            Liste, an die angehängt wird
+	 */
+	public void generateGoalSteps(Bitboard board, int color, int steps,
+			MoveList moveList) {
+
+		boolean gold = color == Constants.Color.GOLD;
+		long empty = ~board.getGeneralBitmap();
+		long goalRow = BitboardTables.ROW[gold ? 7 : 0];
+		long targets = goalRow & empty;
+
+		/* Eine Reihe vor dem Ziel, wenn das Feld davor frei ist */
+		if (steps >= 2) {
+			targets |= (gold ? (goalRow & empty) >>> 8 : (goalRow & empty) << 8)
+					& empty;
+		}
+
+		/* Hasen, deren Feld in Zugrichtung ein Ziel ist */
+		long rabbits = board.getTypeBitmap(color, Constants.Type.RABBIT)
+				& (gold ? targets >>> 8 : targets << 8);
+		int direction = gold ? Constants.Direction.NORTH
+				: Constants.Direction.SOUTH;
+
+		while (rabbits != 0) {
+			int from = Bits.first(rabbits);
+			rabbits = Bits.removeFirst(rabbits);
+
+			if (!board.pieceIsFrozen(from, color, Constants.Type.RABBIT)) {
+				moveList.add(Step.create(from, direction,
+						Constants.Type.RABBIT, color));
+			}
+		}
+	}
+
+	/**
+	 * Die eigentliche Generierung, wahlweise mit Push/Pull und/oder einfachen
+	 * Schritten. Push/Pull nur für eigene Figuren neben einer gegnerischen
+	 * Figur aus victims (-1L für alle).
+	 */
+	private void generate(Bitboard board, int color, MoveList moveList,
+			boolean specials, boolean steps, long victims) {
+
+		int enemyColor = (color == 0) ? 1 : 0;
+		long empty = ~board.getGeneralBitmap();
+		long enemyMap = board.getColorBitmap(enemyColor);
+
+		/* Figuren mit einer eigenen Figur daneben können nicht freezen */
+		long friendNeighbors = Bitboard.neighbors(board.getColorBitmap(color));
+		/* Felder neben einem leeren Feld */
+		long emptyNeighbors = Bitboard.neighbors(empty);
+
+		/* Felder, von denen aus in der jeweiligen Richtung frei ist */
+		long freeNorth = Bitboard.shiftSouth(empty);
+		long freeSouth = Bitboard.shiftNorth(empty);
+		long freeWest = Bitboard.shiftEast(empty);
+		long freeEast = Bitboard.shiftWest(empty);
 
 		/* Schleife über alle Figurtypen */
 		for (int type = 0; type < 6; type++) {
@@ -27,79 +189,272 @@ public class MoveGenerator {
 			/* Alle Vorkommen der Figur */
 			long typeMap = board.getTypeBitmap(color, type);
 
-			Piece piece = new Piece();
-			Position pos = new Position();
+			if (typeMap == 0) {
+				continue;
+			}
+
+			/* Gefreezte Figuren entfernen */
+			long movable = typeMap
+					& ~(Bitboard.neighbors(board.getColorBitmapHigher(
+							enemyColor, type)) & ~friendNeighbors);
+
+			long north = 0L, south = 0L, west = 0L, east = 0L;
+
+			if (steps) {
+				north = movable & freeNorth;
+				south = movable & freeSouth;
+				west = movable & freeWest;
+				east = movable & freeEast;
+			}
+
+			/* Hasen dürfen nicht zurück gehen */
+			if (type == Constants.Type.RABBIT) {
+				if (color == Constants.Color.GOLD) {
+					south = 0L;
+				} else {
+					north = 0L;
+				}
+			}
+
+			/*
+			 * Push/Pull: neben einer schwächeren gegnerischen Figur und
+			 * entweder selbst neben einem freien Feld (Pull) oder die
+			 * gegnerische Figur steht neben einem freien Feld (Push).
+			 */
+			long special = 0L;
+
+			if (specials && type != Constants.Type.RABBIT) {
+				long weaker = enemyMap & victims
+						& ~board.getColorBitmapHigher(enemyColor, type + 1);
 
-			for (int i = 0; i < 64; i++) {
+				special = movable
+						& Bitboard.neighbors(weaker)
+						& (emptyNeighbors | Bitboard.neighbors(weaker
+								& emptyNeighbors));
+			}
+
+			/* Nur noch Figuren durchgehen, die auch ziehen können */
+			long pieces = north | south | west | east | special;
+
+			while (pieces != 0) {
+				int i = Bits.first(pieces);
 				long mask = 1L << i;
+				pieces = Bits.removeFirst(pieces);
 
-				/* Wenn an der Position eine Figur ist */
-				if ((typeMap & mask) != 0) {
-
-					pos.setCol(i % 8);
-					pos.setRow(i / 8);
-					piece.setColor(color);
-					piece.setPosition(pos);
-					piece.setType(type);
-
-					if (board.pieceIsFrozen(piece)) {
-						continue;
-					}
-					
-					/* Alle möglichen Bewegungsrichtungen der Figur */
-					long moveMask = board.getPieceMovementBitmap(piece);
-
-					/* Alle Push/Pull-Möglichkeiten dazuadden */
-					possibleMoves.addAll(board.getPieceSpecialMoveList(piece));
-					
-					/* Check aller 4 Möglichkeiten */
-					
-					/* oben */
-					if (((i / 8) <= 6)
-							&& (moveMask & (board.getMaskAt(i % 8, (i + 8) / 8))) != 0) {
-						possibleMoves.add(new MoveNormal(new Position(i % 8,
-								i / 8), 0, 1));
-					}
-					
-//					if ((i <= 54)
-//							&& (moveMask & (board.getMaskAt(i % 8, (i + 8) / 8))) != 0) {
-//						possibleMoves.add(new MoveNormal(new Position(i % 8,
-//								i / 8), 0, 1));
-//					}
-
-					/* unten */
-					if (((i / 8) >= 1)
-							&& (moveMask & (board.getMaskAt(i % 8, (i - 8) / 8))) != 0) {
-						possibleMoves.add(new MoveNormal(new Position(i % 8,
-								i / 8), 0, -1));
-					}
-					
-//					if ((i >= 8)
-//							&& (moveMask & (board.getMaskAt(i % 8, (i - 8) / 8))) != 0) {
-//						possibleMoves.add(new MoveNormal(new Position(i % 8,
-//								i / 8), 0, -1));
-//					}
-
-					/* links */
-					if (((i % 8) >= 1)
-							&& (moveMask & (board.getMaskAt((i - 1) % 8, i / 8))) != 0) {
-						possibleMoves.add(new MoveNormal(new Position(i % 8,
-								i / 8), -1, 0));
-					}
-
-					/* rechts */
-					if (((i % 8) <= 6)
-							&& (moveMask & (board.getMaskAt((i + 1) % 8, i / 8))) != 0) {
-						possibleMoves.add(new MoveNormal(new Position(i % 8,
-								i / 8), 1, 0));
-					}
-
-					
+				/* Alle Push/Pull-Möglichkeiten dazuadden */
+				if ((special & mask) != 0) {
+					board.addPieceSpecialMoves(i, color, type, moveList);
+				}
 
+				/* oben */
+				if ((north & mask) != 0) {
+					moveList.add(Step.create(i, Constants.Direction.NORTH,
+							type, color));
+				}
+
+				/* unten */
+				if ((south & mask) != 0) {
+					moveList.add(Step.create(i, Constants.Direction.SOUTH,
+							type, color));
+				}
+
+				/* links */
+				if ((west & mask) != 0) {
+					moveList.add(Step.create(i, Constants.Direction.WEST,
+							type, color));
+				}
+
+				/* rechts */
+				if ((east & mask) != 0) {
+					moveList.add(Step.create(i, Constants.Direction.EAST,
+							type, color));
 				}
 			}
 		}
+	}
 
-		return possibleMoves;
+	/**
+	 * Macht aus der Kurzform eines Zuges (siehe {@link Step#compress(int)})
+	 * wieder den vollständigen Zug, wenn er in dieser Stellung für die
+	 * übergebene Farbe erlaubt ist. Damit kann z.B. der Zug aus dem
+	 * Transposition-Table gespielt werden, ohne vorher alle Züge zu
+	 * generieren.
+	 *
+	 * @param board
+	 *            Das Board
+	 * @param color
+	 *            Die Farbe, die am Zug ist
+	 * @param code
+	 *            Kurzform des Zuges
+	 * @return der kodierte Zug oder Step.NONE, wenn er nicht möglich ist
+	 */
+	public int expandMove(Bitboard board, int color, int code) {
+
+		if (code <= 0 || code > 1280) {
+			return Step.NONE;
+		}
+
+		boolean special = code > 256;
+		int first = special ? (code - 257) >>> 2 : code - 1;
+		int from = first >>> 2;
+		int direction = first & 3;
+		int to = Bitboard.neighbor(from, direction);
+		int enemyColor = (color == 0) ? 1 : 0;
+
+		if (to < 0 || (board.getGeneralBitmap() & (1L << to)) != 0) {
+			return Step.NONE;
+		}
+
+		if (!special) {
+			int type = board.getTypeAt(from, color);
+
+			if (type == Constants.Type.NONE
+					|| board.pieceIsFrozen(from, color, type)) {
+				return Step.NONE;
+			}
+
+			/* Hasen dürfen nicht zurück gehen */
+			if (type == Constants.Type.RABBIT
+					&& direction == ((color == Constants.Color.GOLD) ? Constants.Direction.SOUTH
+							: Constants.Direction.NORTH)) {
+				return Step.NONE;
+			}
+
+			return Step.create(from, direction, type, color);
+		}
+
+		/* Der zweite Schritt endet auf dem Ausgangsfeld des ersten */
+		int secondDirection = (code - 257) & 3;
+		int secondFrom = Bitboard.neighbor(from,
+				Constants.Direction.OPPOSITE[secondDirection]);
+
+		if (secondFrom < 0) {
+			return Step.NONE;
+		}
+
+		int ownType = board.getTypeAt(from, color);
+
+		/* Pull: erst die eigene Figur, dann die gegnerische hinterher */
+		if (ownType != Constants.Type.NONE) {
+			int enemyType = board.getTypeAt(secondFrom, enemyColor);
+
+			if (enemyType == Constants.Type.NONE || enemyType <= ownType
+					|| board.pieceIsFrozen(from, color, ownType)) {
+				return Step.NONE;
+			}
+
+			return Step.move(Step.create(from, direction, ownType, color),
+					Step.create(secondFrom, secondDirection, enemyType,
+							enemyColor));
+		}
+
+		/* Push: erst die gegnerische Figur, dann die eigene hinterher */
+		int enemyType = board.getTypeAt(from, enemyColor);
+		ownType = board.getTypeAt(secondFrom, color);
+
+		if (enemyType == Constants.Type.NONE
+				|| ownType == Constants.Type.NONE || ownType >= enemyType
+				|| board.pieceIsFrozen(secondFrom, color, ownType)) {
+			return Step.NONE;
+		}
+
+		return Step.move(Step.create(from, direction, enemyType, enemyColor),
+				Step.create(secondFrom, secondDirection, ownType, color));
+	}
+
+	/**
+	 * Ob ein Zug eine gegnerische Figur in einer Trap schlägt, also danach
+	 * eine gegnerische Figur ohne eigene Nachbarn auf einer Trap steht (dort
+	 * hingeschoben/-gezogen oder ihr letzter Nachbar wurde weggeschoben).
+	 *
+	 * @param board
+	 *            Das Board vor dem Zug
+	 * @param color
+	 *            Die Farbe, die den Zug macht
+	 * @param move
+	 *            Der kodierte Zug
+	 * @return true, wenn dabei eine gegnerische Figur geschlagen wird
+	 */
+	public static boolean isCapture(Bitboard board, int color, int move) {
+
+		if (!Step.isSpecial(move)) {
+			return false;
+		}
+
+		int enemyColor = (color == 0) ? 1 : 0;
+		long enemy = board.getColorBitmap(enemyColor);
+
+		/* Nur die gegnerische Figur ändert die gegnerische Bitmap */
+		int step = (Step.getColor(Step.getFirst(move)) == enemyColor) ? Step
+				.getFirst(move) : Step.getSecond(move);
+		enemy ^= (1L << Step.getFrom(step)) | (1L << Step.getTo(step));
+
+		return (enemy & BitboardTables.TRAP_SQUARES & ~Bitboard
+				.neighbors(enemy)) != 0;
+	}
+
+	/**
+	 * Ob die übergebene Farbe überhaupt einen Zug hat. Rechnet dieselben
+	 * Bitmaps wie {@link #generateAllColorMoves(Bitboard, int, MoveList)},
+	 * hört aber bei der ersten Figur auf, die ziehen kann, und erzeugt keine
+	 * Züge. Damit kann die Suche erkennen, ob ein Knoten blockiert ist, ohne
+	 * dafür eine ganze Liste zu generieren.
+	 *
+	 * @param board
+	 *            Das Board
+	 * @param color
+	 *            Die Farbe, die am Zug ist
+	 * @return true, wenn mindestens ein Zug (auch Push/Pull) möglich ist
+	 */
+	public boolean hasAnyMove(Bitboard board, int color) {
+
+		int enemyColor = (color == 0) ? 1 : 0;
+		long empty = ~board.getGeneralBitmap();
+		long enemyMap = board.getColorBitmap(enemyColor);
+
+		long friendNeighbors = Bitboard.neighbors(board.getColorBitmap(color));
+		long emptyNeighbors = Bitboard.neighbors(empty);
+
+		/* Felder, von denen aus ein Schritt nach vorne/zur Seite frei ist */
+		long freeForward = (color == Constants.Color.GOLD) ? Bitboard
+				.shiftSouth(empty) : Bitboard.shiftNorth(empty);
+		long freeBackward = (color == Constants.Color.GOLD) ? Bitboard
+				.shiftNorth(empty) : Bitboard.shiftSouth(empty);
+		long freeSide = Bitboard.shiftEast(empty) | Bitboard.shiftWest(empty);
+
+		for (int type = 0; type < 6; type++) {
+
+			long typeMap = board.getTypeBitmap(color, type);
+
+			if (typeMap == 0) {
+				continue;
+			}
+
+			long movable = typeMap
+					& ~(Bitboard.neighbors(board.getColorBitmapHigher(
+							enemyColor, type)) & ~friendNeighbors);
+
+			/* Hasen dürfen nicht zurück gehen */
+			long steps = (type == Constants.Type.RABBIT) ? freeForward
+					| freeSide : freeForward | freeSide | freeBackward;
+
+			if ((movable & steps) != 0) {
+				return true;
+			}
+
+			if (type != Constants.Type.RABBIT) {
+				long weaker = enemyMap
+						& ~board.getColorBitmapHigher(enemyColor, type + 1);
+
+				if ((movable
+						& Bitboard.neighbors(weaker)
+						& (emptyNeighbors | Bitboard.neighbors(weaker
+								& emptyNeighbors))) != 0) {
+					return true;
+				}
+			}
+		}
+
+		return false;
 	}
 }
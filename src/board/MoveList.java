@@ -0,0 +1,163 @@
+package board;
+
+/**
+ * Liste mit kodierten Zügen (siehe {@link Step}) auf Basis eines int-Arrays.
+ * Wird pro Rekursionsebene einmal angelegt und immer wieder verwendet, sodass
+ * bei der Zuggenerierung keine Objekte erzeugt werden.
+ *
+ * Zu jedem Zug kann ein Score für das Move-Ordering hinterlegt werden.
+ *
+ * @author maurice
+ *
+ */
+public class MoveList {
+
+	/**
+	 * Startgröße. Reicht für so gut wie alle Stellungen, sonst wird vergrößert.
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private int[] moves;
+
+	private int[] scores;
+
+	private int size = 0;
+
+	/**
+	 * Konstruktor
+	 */
+	public MoveList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public MoveList(int capacity) {
+		this.moves = new int[capacity];
+		this.scores = new int[capacity];
+	}
+
+	/**
+	 * Fügt einen kodierten Zug hinten an.
+	 */
+	public void add(int move) {
+		if (size == moves.length) {
+			grow();
+		}
+		moves[size] = move;
+		scores[size] = 0;
+		size++;
+	}
+
+	public int get(int index) {
+		return moves[index];
+	}
+
+	public void set(int index, int move) {
+		moves[index] = move;
+	}
+
+	public int getScore(int index) {
+		return scores[index];
+	}
+
+	public void setScore(int index, int score) {
+		scores[index] = score;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Leert die Liste, ohne Speicher freizugeben.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Vertauscht zwei Einträge (Zug und Score).
+	 */
+	public void swap(int i, int j) {
+		int tmp = moves[i];
+		moves[i] = moves[j];
+		moves[j] = tmp;
+
+		tmp = scores[i];
+		scores[i] = scores[j];
+		scores[j] = tmp;
+	}
+
+	/**
+	 * Schiebt einen Eintrag an den Anfang, die Züge davor rücken einen Platz
+	 * nach hinten und behalten ihre Reihenfolge.
+	 */
+	public void moveToFront(int index) {
+		int move = moves[index];
+		int score = scores[index];
+
+		System.arraycopy(moves, 0, moves, 1, index);
+		System.arraycopy(scores, 0, scores, 1, index);
+
+		moves[0] = move;
+		scores[0] = score;
+	}
+
+	/**
+	 * Sortiert die Züge absteigend nach ihrem Score. Gleiche Scores behalten
+	 * ihre Reihenfolge (Insertion-Sort, die Listen sind klein).
+	 */
+	public void sortByScore() {
+		for (int i = 1; i < size; i++) {
+			int move = moves[i];
+			int score = scores[i];
+			int j = i - 1;
+
+			while (j >= 0 && scores[j] < score) {
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				j--;
+			}
+
+			moves[j + 1] = move;
+			scores[j + 1] = score;
+		}
+	}
+
+	/**
+	 * Kopiert den Inhalt einer anderen Liste in diese.
+	 */
+	public void copyFrom(MoveList other) {
+		while (moves.length < other.size) {
+			grow();
+		}
+		System.arraycopy(other.moves, 0, moves, 0, other.size);
+		System.arraycopy(other.scores, 0, scores, 0, other.size);
+		size = other.size;
+	}
+
+	private void grow() {
+		int[] newMoves = new int[moves.length * 2];
+		int[] newScores = new int[moves.length * 2];
+		System.arraycopy(moves, 0, newMoves, 0, size);
+		System.arraycopy(scores, 0, newScores, 0, size);
+		moves = newMoves;
+		scores = newScores;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder res = new StringBuilder("MoveList [");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				res.append(", ");
+			}
+			res.append(Step.moveToString(moves[i]));
+		}
+		return res.append("]").toString();
+	}
+
+}
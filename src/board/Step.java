@@ -0,0 +1,216 @@
+package board;
+
+/**
+ * Kodierung von Schritten und Zügen als primitive int-Werte, damit während der
+ * Suche keine Move-/Position-Objekte erzeugt werden müssen.
+ *
+ * Ein Schritt belegt 16 Bit:
+ *
+ * <pre>
+ *  Bit  0- 5: Ausgangsfeld (row * 8 + col)
+ *  Bit  6- 7: Richtung (siehe Constants.Direction)
+ *  Bit  8-10: Figurtyp
+ *  Bit    11: Farbe der Figur
+ *  Bit    15: gesetzt, wenn der Schritt gültig ist (damit 0 'kein Schritt' ist)
+ * </pre>
+ *
+ * Ein Zug besteht aus einem oder zwei Schritten. Der erste Schritt steht in den
+ * unteren 16 Bit, der zweite (bei Push/Pull der Partner-Schritt) in den oberen
+ * 16 Bit. Bei einem Push wird zuerst die gegnerische Figur bewegt, bei einem
+ * Pull zuerst die eigene.
+ *
+ * Die Move-Klassen werden nur noch an der Schnittstelle zum Server benötigt und
+ * über {@link #toMove(int)} erzeugt.
+ *
+ * @author maurice
+ *
+ */
+public final class Step {
+
+	/**
+	 * Kein Schritt bzw. kein Zug.
+	 */
+	public static final int NONE = 0;
+
+	private static final int VALID = 1 << 15;
+
+	private static final char[] PREFIX_GOLD = { 'E', 'M', 'H', 'D', 'C', 'R' };
+	private static final char[] PREFIX_SILVER = { 'e', 'm', 'h', 'd', 'c', 'r' };
+	private static final char[] DIRECTION_NAME = { 'n', 's', 'e', 'w' };
+
+	private Step() {
+	}
+
+	/****************************************************************/
+	/********************* ____Schritte____ *************************/
+	/****************************************************************/
+
+	/**
+	 * Kodiert einen einzelnen Schritt.
+	 *
+	 * @param from
+	 *            Ausgangsfeld (row * 8 + col)
+	 * @param direction
+	 *            Richtung (Constants.Direction)
+	 * @param type
+	 *            Figurtyp
+	 * @param color
+	 *            Farbe
+	 * @return der kodierte Schritt
+	 */
+	public static int create(int from, int direction, int type, int color) {
+		return VALID | from | (direction << 6) | (type << 8) | (color << 11);
+	}
+
+	public static int getFrom(int step) {
+		return step & 0x3F;
+	}
+
+	public static int getDirection(int step) {
+		return (step >>> 6) & 0x3;
+	}
+
+	public static int getTo(int step) {
+		return (step & 0x3F) + Constants.Direction.OFFSET[(step >>> 6) & 0x3];
+	}
+
+	public static int getType(int step) {
+		return (step >>> 8) & 0x7;
+	}
+
+	public static int getColor(int step) {
+		return (step >>> 11) & 0x1;
+	}
+
+	/****************************************************************/
+	/********************* _____Züge______ **************************/
+	/****************************************************************/
+
+	/**
+	 * Ein Zug aus genau einem Schritt.
+	 */
+	public static int move(int step) {
+		return step;
+	}
+
+	/**
+	 * Ein Push- oder Pull-Zug aus zwei Schritten, die in der übergebenen
+	 * Reihenfolge ausgeführt werden.
+	 */
+	public static int move(int firstStep, int secondStep) {
+		return firstStep | (secondStep << 16);
+	}
+
+	public static int getFirst(int move) {
+		return move & 0xFFFF;
+	}
+
+	public static int getSecond(int move) {
+		return move >>> 16;
+	}
+
+	/**
+	 * Ob es sich um einen Push/Pull (also 2 Schritte) handelt.
+	 */
+	public static boolean isSpecial(int move) {
+		return (move >>> 16) != 0;
+	}
+
+	/**
+	 * Anzahl der Schritte, die der Zug verbraucht.
+	 */
+	public static int getStepCount(int move) {
+		return ((move >>> 16) != 0) ? 2 : 1;
+	}
+
+	/**
+	 * Kurzform eines Zuges mit 11 Bit für das Transposition-Table. Typ und
+	 * Farbe stehen schon auf dem Board, und der zweite Schritt eines Push/Pull
+	 * endet immer auf dem Ausgangsfeld des ersten. Es reichen also Feld und
+	 * Richtung des ersten Schrittes und die Richtung des zweiten. Innerhalb
+	 * einer Stellung ist die Kurzform damit eindeutig.
+	 *
+	 * <pre>
+	 *          0: kein Zug
+	 *   1 -  256: 1 + (Feld * 4 + Richtung)
+	 * 257 - 1280: 257 + (Feld * 4 + Richtung) * 4 + Richtung des 2. Schrittes
+	 * </pre>
+	 */
+	public static int compress(int move) {
+		if (move == NONE) {
+			return 0;
+		}
+
+		int first = (move & 0x3F) << 2 | ((move >>> 6) & 0x3);
+
+		if (isSpecial(move)) {
+			return 257 + (first << 2 | getDirection(getSecond(move)));
+		}
+		return 1 + first;
+	}
+
+	/****************************************************************/
+	/********************* ___Umwandlung___ *************************/
+	/****************************************************************/
+
+	/**
+	 * Erzeugt aus einem kodierten Schritt einen MoveNormal.
+	 */
+	public static MoveNormal toMoveNormal(int step) {
+		int from = getFrom(step);
+		int dirCol = 0, dirRow = 0;
+
+		switch (getDirection(step)) {
+		case Constants.Direction.NORTH:
+			dirRow = 1;
+			break;
+		case Constants.Direction.SOUTH:
+			dirRow = -1;
+			break;
+		case Constants.Direction.EAST:
+			dirCol = 1;
+			break;
+		case Constants.Direction.WEST:
+			dirCol = -1;
+			break;
+		}
+
+		return new MoveNormal(new Position(from % 8, from / 8), dirCol, dirRow);
+	}
+
+	/**
+	 * Erzeugt aus einem kodierten Zug die entsprechende Move-Instanz
+	 * (MoveNormal oder MoveSpecial) für die Schnittstelle zum Server.
+	 */
+	public static Move toMove(int move) {
+		if (isSpecial(move)) {
+			return new MoveSpecial(toMoveNormal(getFirst(move)),
+					toMoveNormal(getSecond(move)));
+		}
+		return toMoveNormal(getFirst(move));
+	}
+
+	/**
+	 * Stringdarstellung eines Schrittes in der Notation des Servers, z.B.
+	 * 'Ed2n'.
+	 */
+	public static String toString(int step) {
+		int from = getFrom(step);
+		char prefix = (getColor(step) == Constants.Color.GOLD) ? PREFIX_GOLD[getType(step)]
+				: PREFIX_SILVER[getType(step)];
+
+		return String.valueOf(prefix) + Constants.ColumnName.COLUMN[from % 8]
+				+ (from / 8 + 1) + DIRECTION_NAME[getDirection(step)];
+	}
+
+	/**
+	 * Stringdarstellung eines ganzen Zuges (ein oder zwei Schritte).
+	 */
+	public static String moveToString(int move) {
+		if (isSpecial(move)) {
+			return toString(getFirst(move)) + " " + toString(getSecond(move));
+		}
+		return toString(getFirst(move));
+	}
+
+}
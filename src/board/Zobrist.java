@@ -0,0 +1,110 @@
+package board;
+
+import java.util.Random;
+
+/**
+ * Zobrist-Schlüssel für alle Stellungen. Die Zufallswerte werden mit einem
+ * festen Seed erzeugt, sind also bei jedem Start und in jeder Instanz
+ * dieselben. Transposition-Table, Repetition-Counter und Move-Ordering
+ * benutzen alle diese eine Tabelle.
+ *
+ * Das Bitboard hält den Hash seiner Figuren bei jeder Änderung inkrementell
+ * aktuell (siehe Bitboard.getZobristHash). Wer am Zug ist und wie viele
+ * Schritte noch übrig sind, kennt nur die Suche. Das wird mit
+ * {@link #key(long, int, int)} dazugenommen. Felder sind wie im Bitboard als
+ * row * 8 + col indiziert.
+ *
+ * @author maurice
+ *
+ */
+public final class Zobrist {
+
+	private static final long SEED = 0x41524D494D41L;
+
+	/**
+	 * Ein Wert pro Farbe, Typ und Feld: PIECES[color][type][square].
+	 */
+	public static final long[][][] PIECES = new long[2][6][64];
+
+	/**
+	 * Ein Wert pro Farbe am Zug und übrigen Schritten (1-4): TURN[color][n].
+	 */
+	public static final long[][] TURN = new long[2][5];
+
+	static {
+
+		Random rand = new Random(SEED);
+
+		for (int color = 0; color < 2; color++) {
+			for (int type = 0; type < 6; type++) {
+				for (int square = 0; square < 64; square++) {
+					PIECES[color][type][square] = rand.nextLong();
+				}
+			}
+		}
+
+		for (int color = 0; color < 2; color++) {
+			for (int steps = 0; steps < 5; steps++) {
+				TURN[color][steps] = rand.nextLong();
+			}
+		}
+	}
+
+	/**
+	 * Hash-Anteil aller Felder einer Maske für eine Figur (Typ/Farbe). Mit
+	 * zwei gesetzten Bits (von/nach) ist das die Änderung durch einen Schritt.
+	 */
+	public static long pieces(int type, int color, long mask) {
+		long hash = 0L;
+
+		for (long map = mask; map != 0; map = Bits.removeFirst(map)) {
+			hash ^= PIECES[color][type][Bits.first(map)];
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Berechnet den Hash aller Figuren eines Bitboards komplett neu.
+	 */
+	public static long hash(long[][] bitboard) {
+		long hash = 0L;
+
+		for (int type = 0; type < 6; type++) {
+			for (int color = 0; color < 2; color++) {
+				hash ^= pieces(type, color, bitboard[type][color]);
+			}
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Schlüssel eines Knotens der Suche: Figuren, Farbe am Zug und übrige
+	 * Schritte dieses Zuges.
+	 *
+	 * @param hash
+	 *            Hash der Figuren (Bitboard.getZobristHash)
+	 * @param color
+	 *            Farbe am Zug
+	 * @param stepsLeft
+	 *            übrige Schritte (1-4)
+	 */
+	public static long key(long hash, int color, int stepsLeft) {
+		return hash ^ TURN[color][stepsLeft];
+	}
+
+	/**
+	 * Schlüssel des Knotens nach einem Zug mit steps Schritten (1 oder 2).
+	 * Sind danach keine Schritte mehr übrig, ist der Gegner mit 4 Schritten
+	 * am Zug.
+	 */
+	public static long keyAfter(long hash, int color, int stepsLeft, int steps) {
+		return (stepsLeft - steps <= 0) ? key(hash, 1 - color, 4) : key(hash,
+				color, stepsLeft - steps);
+	}
+
+	private Zobrist() {
+	}
+
+}
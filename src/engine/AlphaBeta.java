@@ -1,16 +1,17 @@
 package engine;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
 
 import memory.RepetitionCounter;
 import memory.Transposition;
-import memory.ZobristHash;
 import network.MessageOutputWriter;
 import board.Bitboard;
+import board.BitboardTables;
 import board.Constants;
-import board.Move;
-import board.MoveScore;
+import board.MoveGenerator;
+import board.MoveList;
+import board.Step;
+import board.Zobrist;
 import evaluation.Evaluation;
 import evaluation.SimpleEvaluation;
 
@@ -25,14 +26,34 @@ public class AlphaBeta extends Engine {
 
 	private int oldScore = 0;
 
-	private int nodesVisited = 0;
-
 	private Evaluation evaluation;
 
-	private MoveOrdering moveOrder;
-
 	private RepetitionCounter repetitionCounter;
 
+	/*
+	 * Mindest-Rekursionstiefe, ab der ein Knoten auf mehrere Threads
+	 * aufgeteilt wird. Darunter lohnt sich der Overhead nicht.
+	 */
+	private static final int MIN_SPLIT_DEPTH = 3;
+
+	/* Größer als jeder Wert der Evaluierung */
+	private static final int INFINITY = 1000000000;
+
+	/*
+	 * Quiescence-Suche: höchstens so viele Schritte (Push/Pull zählt als
+	 * einer) unterhalb eines Blattes und so viele expandierte Knoten pro
+	 * Blatt. Danach zählt nur noch die Evaluierung.
+	 */
+	private static final int QUIESCENCE_DEPTH = 8;
+	private static final int QUIESCENCE_NODES = 32;
+
+	/*
+	 * Lazy SMP: welcher Wurzel-Zug zuerst berechnet wird (0 = normale
+	 * Reihenfolge). Helfer-Threads setzen das, damit sie nicht denselben Baum
+	 * wie der Haupt-Thread durchlaufen.
+	 */
+	private int rootRotation = 0;
+
 	/**
 	 * Konstruktor
 	 */
@@ -40,7 +61,6 @@ public class AlphaBeta extends Engine {
 			EngineGeneralAttributes generalAttributes) {
 		super(messageWriter, generalAttributes);
 		this.transposition = new Transposition(generalAttributes.getHash());
-		this.transposition.initTranspsition();
 	}
 
 	/**
@@ -57,57 +77,88 @@ public class AlphaBeta extends Engine {
 	 *            Die jeweilige Farbe
 	 * @param moveNr
 	 *            Überprüfung, dass 4 Züge pro Spieler möglich sind.
+	 * @param context
+	 *            Thread-eigene Daten der Suche (Zug-Listen und Hauptvariante
+	 *            je Tiefe)
+	 * @param isQuiescence
+	 *            ob an den Blättern eine Quiescence-Suche angehängt wird
+	 * @param isPVNode
+	 *            ob der Knoten auf der Hauptvariante liegt. Nur dort wird
+	 *            aufgeteilt, vererbt wird es nur an das erste Kind.
+	 * @return der Score des Knotens, die zugehörige Zugfolge steht danach in
+	 *         context.getPv(depth)
 	 */
-	public LinkedList<Move> alphaBeta(Bitboard board, int depth,
-			boolean maximizingPlayer, int color, int moveNr, int alpha,
-			int beta, boolean useMemory, boolean moveOrdering,
+	public int alphaBeta(Bitboard board, SearchContext context,
+			int depth, boolean maximizingPlayer, int color, int moveNr,
+			int alpha, int beta, boolean useMemory, boolean moveOrdering,
 			boolean normalSearch, int maxSearchDepth, boolean isQuiescence,
 			boolean isPVNode, boolean isExtendedSearch) {
 
-		/* Generiert Liste mit allen verfügbaren Moves! */
-		LinkedList<Move> oneMoveList = moveGen.generateAllColorMoves(board,
-				color);
+		context.clearPv(depth);
+
+		/* Der Zug, der zu diesem Knoten geführt hat (für den Countermove) */
+		int previousMove = context.getPreviousMove();
+
+		/*
+		 * Gestoppt (Zeit, "stop") oder Teilbaum nicht mehr gebraucht? Der Wert
+		 * wird vom Aufrufer verworfen.
+		 */
+		if (context.pollStop(super.cancellation)) {
+			return 0;
+		}
+
 		int newAlpha = alpha;
 		int newBeta = beta;
 		int newMoveNumber;
 		int newDepth = depth;
 
-		/* Rekursionsabbruch */
-		if (depth <= 0 || oneMoveList.size() == 0 || !super.isAllowedToRun) {
-			Move move;
+		/* Bester Zug aus dem Table (Kurzform) */
+		int hashMove = 0;
+
+		/*
+		 * Rekursionsabbruch. Ob überhaupt ein Zug möglich ist, wird nur über
+		 * die Bitmaps geprüft, Blätter generieren keine Zug-Liste.
+		 */
+		if (depth <= 0 || !moveGen.hasAnyMove(board, color)) {
 
 			/* Kein Move-Ordering */
 			if (normalSearch) {
 
-				long hash = this.repetitionCounter.getBoardHash(board);
+				long hash = board.getZobristHash();
 
-				if (this.repetitionCounter.getBoardCount(board, hash) >= 2
+				if (this.repetitionCounter.getBoardCount(hash) >= 2
 						|| oldBoardHash == hash) {
 
-					move = new MoveScore(-100000000);
-				} else {
+					return -100000000;
+				}
 
-					move = new MoveScore(evaluation.evaluateBoardState(board,
-							isQuiescence));
-					nodesVisited++;
+				context.getStatistics().countNode();
 
+				/* Schläge und Hasen vor dem Ziel noch zu Ende rechnen */
+				if (isQuiescence && depth <= 0) {
+					context.startQuiescence(QUIESCENCE_NODES);
+
+					return quiescence(board, context, 0, maximizingPlayer,
+							color, moveNr, newAlpha, newBeta);
 				}
 
-			} else {
-				move = new MoveScore(
-						evaluation.evaluateBoardState(board, false));
+				return evaluation.evaluateBoardState(board, false);
 			}
 
-			LinkedList<Move> res = new LinkedList<Move>();
-			res.add(move);
-			return res;
+			return evaluation.evaluateBoardState(board, false);
 		}
 
 		/* Memory-Nutzung! */
 		if (useMemory) {
 
-			ZobristHash zobrist = transposition.lookupHash(board
-					.getZobristHash());
+			long zobrist = transposition.lookupHash(Zobrist.key(
+					board.getZobristHash(), color, moveNr));
+
+			context.getStatistics().countProbe(
+					zobrist != Transposition.NO_ENTRY);
+
+			/* Der Zug gilt für jede Tiefe, nur der Wert nicht */
+			hashMove = Transposition.getBestMove(zobrist);
 
 			/*
 			 * einen Eintrag im Cache gefunden, der entweder auf der gleichen
@@ -115,16 +166,24 @@ public class AlphaBeta extends Engine {
 			 * das, dass mit hoher Wahrscheinlichkeit im gleichen
 			 * Auswertungsbaum schon mal die gleiche Boardkonstellation
 			 * augetaucht ist - mit weniger Moves.
+			 *
+			 * An der Wurzel wird nicht abgebrochen, sonst fehlt der Zug
+			 * (z.B. bei den wiederholten Null-Fenster-Suchen von MTD(f)).
 			 */
-			if (zobrist != null
+			if (zobrist != Transposition.NO_ENTRY
+					&& depth != maxSearchDepth
 					// && (depth % 4) == 0
 					// && zobrist.depth >= depth
 
-					&& zobrist.depth >= depth && zobrist.moveNumber == moveNr
-					&& zobrist.maximizingPlayer == maximizingPlayer
+					&& Transposition.getDepth(zobrist) >= depth
+					&& Transposition.getMoveNumber(zobrist) == moveNr
+					&& Transposition.isMaximizingPlayer(zobrist)
+							== maximizingPlayer
 
 			) {
-				switch (zobrist.nodeType) {
+				int zobristScore = Transposition.getScore(zobrist);
+
+				switch (Transposition.getNodeType(zobrist)) {
 				case Constants.NodeType.EXACT:
 
 					/*
@@ -132,9 +191,7 @@ public class AlphaBeta extends Engine {
 					 * Scheiß auf die Kinder^^
 					 */
 					if ((depth % 4) == 0) {
-						LinkedList<Move> bestValue = new LinkedList<Move>();
-						bestValue.add(new MoveScore(zobrist.score));
-						return bestValue;
+						return zobristScore;
 					}
 
 					break;
@@ -142,16 +199,16 @@ public class AlphaBeta extends Engine {
 				case Constants.NodeType.ALPHA:
 
 					/* neuer lower-bound -> Eingrenzen */
-					if (zobrist.score > newAlpha) {
-						newAlpha = zobrist.score;
+					if (zobristScore > newAlpha) {
+						newAlpha = zobristScore;
 					}
 
 					break;
 				case Constants.NodeType.BETA:
 
 					/* neuer upper-bound -> Eingrenzen */
-					if (zobrist.score < newBeta) {
-						newBeta = zobrist.score;
+					if (zobristScore < newBeta) {
+						newBeta = zobristScore;
 					}
 
 					break;
@@ -162,194 +219,124 @@ public class AlphaBeta extends Engine {
 				 * Score geschaffen? Können wir prunen?
 				 */
 				if (newAlpha >= newBeta) {
-					LinkedList<Move> bestValue = new LinkedList<Move>();
-					bestValue.add(new MoveScore(zobrist.score));
-
-					return bestValue;
+					return zobristScore;
 				}
 			}
 
 		}
 
-		/* Move-Ordering! */
-		if (moveOrdering) {
-			// oneMoveList = moveOrder.moveOrdering(board, oneMoveList, depth,
-			// moveNr, maximizingPlayer, color, newAlpha, newBeta);
-			oneMoveList = moveOrder.moveOrderingFromMemory(board, oneMoveList,
-					transposition, depth);
-
-			/* Altes Move-Ordering */
-			// oneMoveList = moveOrder.moveOrdering(board, oneMoveList,
-			// newDepth, moveNr, maximizingPlayer, color, newAlpha, newBeta);
-		}
-
-		/* Normales Alpha-Beta! */
-		LinkedList<Move> bestValue = new LinkedList<Move>();
-		ZobristHash zobristValue = null;
-
-		if (useMemory) {
-			zobristValue = new ZobristHash();
-		}
-
 		/*
-		 * Performance-Optimierung - Nur noch eine eigene Instanz des Bitboards
-		 * pro Rekursionsebene! (statt ca. 11.)
+		 * Die Züge kommen erst hier und nach und nach aus dem MovePicker:
+		 * Table-Zug, Schläge, Killer, Rest. Cut-offs aus dem Table oder durch
+		 * die ersten Züge brauchen so keine vollständige Liste.
 		 */
-		Bitboard newBoard = board.cloneBitboard();
-		boolean isFirst = true;
-		// LinkedList<Move> value = new LinkedList<Move>();
-
-		/* Liste mit Threads! */
-		LinkedList<ParallelAlphaBetaWrapper> threadList = new LinkedList<ParallelAlphaBetaWrapper>();
-
-		/* Schleife über alle Kinder */
-		for (int i = 0; i < oneMoveList.size(); i++) {
-			Move move = oneMoveList.get(i);
-
-			Move moveApplied = move;
-
-			LinkedList<Move> value = new LinkedList<Move>();
-
-			if (isPVNode) {
+		MovePicker picker = context.getMovePicker(depth);
 
-				if (isFirst) {
+		if (rootRotation != 0 && depth == maxSearchDepth) {
 
-					Iterator<Move> moveIt = oneMoveList.iterator();
+			/* Lazy SMP: Wurzel als fertige Liste, damit rotiert werden kann */
+			picker.initList(board, color, moveOrdering ? hashMove : 0);
+			MoveList rootList = picker.getMoveList();
+			rootList.swap(0, rootRotation % rootList.size());
 
-					newBoard = board.softCloneBitboard(newBoard);
+		} else if (moveOrdering) {
+			picker.init(board, color, hashMove, depth, previousMove);
+		} else {
 
-					newMoveNumber = moveNr - 1;
-					newDepth = depth - 1;
-
-					/* Zug anwenden */
-					newBoard.applyMoveAndRemovePieces(move);
+			/* Ohne Move-Ordering in der Reihenfolge des Generators */
+			picker.initList(board, color, 0);
+		}
 
-					if (move.getMoveType() == Constants.MoveType.SPECIAL) {
+		/* Normales Alpha-Beta! */
+		int nodeType = Constants.NodeType.NOTHING;
 
-						if (newMoveNumber < 1)
-							continue;
+		/* Zug, der den Wert des Knotens bestimmt hat (für das Table) */
+		int bestMove = Step.NONE;
 
-						newMoveNumber--;
-						newDepth--;
-					}
-
-					boolean extended = isExtendedSearch;
+		/*
+		 * Performance-Optimierung - Die Züge werden mit makeMove/unmakeMove auf
+		 * dem Board selbst ausgeführt. Kopiert wird nur noch für parallele
+		 * Teilbäume.
+		 */
+		Bitboard newBoard;
 
-					if (false && depth <= 1
-							&& maxSearchDepth == generalAttributes.getDepth()
-							&& !isExtendedSearch) {
-						newDepth += 4;
-						extended = true;
-						messageWriter
-								.sendMessage("log First Node Search extended.");
-					}
+		/*
+		 * Young Brothers Wait: Der erste Zug wird seriell berechnet, erst
+		 * danach werden die restlichen Brüder als Tasks im Pool verteilt.
+		 * Aufgeteilt wird nur auf der Hauptvariante, dort müssen alle Brüder
+		 * sowieso gerechnet werden. An Cut-Knoten (und mit Null-Fenster)
+		 * wären die meisten Tasks umsonst.
+		 */
+		boolean split = isPVNode && beta - alpha > 1
+				&& depth >= MIN_SPLIT_DEPTH
+				&& generalAttributes.getThreads() > 1;
+		ParallelAlphaBetaTask[] tasks = null;
+		SplitPoint splitPoint = null;
 
-					/* Alles normal! */
-					value = alphaBeta(newBoard, newDepth,
-							(newMoveNumber == 0) ? !maximizingPlayer
-									: maximizingPlayer,
-							(newMoveNumber == 0) ? otherColor(color) : color,
-							(newMoveNumber == 0) ? 4 : newMoveNumber, newAlpha,
-							newBeta, useMemory, moveOrdering, normalSearch,
-							maxSearchDepth, isQuiescence, isPVNode, extended);
+		/* Anzahl der bisher berechneten Kinder */
+		int searched = 0;
 
-					if (moveIt.hasNext()) {
-						moveIt.next();
-					}
+		/*
+		 * Fail-soft: der beste Wert der Kinder, auch wenn er außerhalb des
+		 * Fensters liegt. Ein Aufrufer mit engem Fenster (Aspiration) weiß dann,
+		 * wie weit er es verschieben muss.
+		 */
+		int bestValue = maximizingPlayer ? -INFINITY : INFINITY;
 
-					int count = 0;
+		/* Fenster, mit dem die Kinder gestartet sind */
+		int windowAlpha = newAlpha;
+		int windowBeta = newBeta;
 
-					/* Liste mit Threads erzeugen und starten -> Multithreading */
-					while (moveIt.hasNext()) {
-						Move tmpMove = moveIt.next();
+		/* Schleife über alle Kinder */
+		for (int i = 0;; i++) {
+			int move;
 
-						ParallelAlphaBetaWrapper parallelAlphaBeta = new ParallelAlphaBetaWrapper();
+			int value;
 
-						newBoard = board.cloneBitboard();
+			/*
+			 * Zugfolge eines parallelen Kindes, null wenn das Kind in diesem
+			 * Kontext gerechnet wurde
+			 */
+			int[] childPv = null;
 
-						newMoveNumber = moveNr - 1;
-						newDepth = depth - 1;
+			if (tasks != null) {
 
-						/* Zug anwenden */
-						newBoard.applyMoveAndRemovePieces(tmpMove);
+				if (i >= tasks.length) {
+					break;
+				}
 
-						if (tmpMove.getMoveType() == Constants.MoveType.SPECIAL) {
-							if (newMoveNumber < 1) {
-								continue;
-							}
+				/* Ergebnis des jüngeren Bruders abholen */
+				if (tasks[i] == null) {
+					continue;
+				}
 
-							newMoveNumber--;
-							newDepth--;
-						}
+				move = tasks[i].getMove();
 
-						boolean isaPVNode = false;
-						extended = isExtendedSearch;
-
-						/*
-						 * Wenn wir fast unten sind, und die ersten 3 Knoten
-						 * betrachten und die Suche noch nicht extended wurde!
-						 */
-						if (false
-								&& depth <= 1
-								&& count <= 3
-								&& maxSearchDepth == generalAttributes
-										.getDepth() && !isExtendedSearch) {
-							isaPVNode = false;
-							newDepth += 4;
-							extended = true;
-							messageWriter.sendMessage("log Search extended.");
-						}
+				Integer result = tasks[i].join();
 
-						parallelAlphaBeta.setAlphaBetaRunParams(this, tmpMove,
-								newBoard, newDepth,
-								(newMoveNumber == 0) ? !maximizingPlayer
-										: maximizingPlayer,
-								(newMoveNumber == 0) ? otherColor(color)
-										: color, (newMoveNumber == 0) ? 4
-										: newMoveNumber, newAlpha, newBeta,
-								useMemory, moveOrdering, normalSearch,
-								maxSearchDepth, isQuiescence, isaPVNode,
-								extended);
-
-						parallelAlphaBeta.newThread();
-						threadList.add(parallelAlphaBeta);
-						parallelAlphaBeta.getThread().start();
-						count++;
+				if (result == null) {
+					/* Gestoppt oder Abbruch weiter oben */
+					if (context.checkStop(super.cancellation)) {
+						break;
 					}
+					continue;
+				}
 
-				} else { /* isFirst */
+				value = result;
+				childPv = tasks[i].getPv();
 
-					if (i < threadList.size()) {
-						/* Darf eigentlich niemals einen Überlauf geben hier... */
-						ParallelAlphaBetaWrapper pAB = threadList.get(i - 1);
-						try {
-							pAB.getThread().join();
-						} catch (InterruptedException e) {
-						}
+			} else {
 
-						value = pAB.getResultList();
-						moveApplied = pAB.getMove();
+				move = picker.next();
 
-						if (value == null) {
-							value = new LinkedList<Move>();
-						}
-					} else {
-						/* break könnte auch gehen... */
-						continue;
-					}
+				if (move == Step.NONE) {
+					break;
 				}
 
-			} else { /* isPV */
-
-				newBoard = board.softCloneBitboard(newBoard);
-
 				newMoveNumber = moveNr - 1;
 				newDepth = depth - 1;
 
-				/* Zug anwenden */
-				newBoard.applyMoveAndRemovePieces(move);
-
-				if (move.getMoveType() == Constants.MoveType.SPECIAL) {
+				if (Step.isSpecial(move)) {
 					if (newMoveNumber < 1)
 						continue;
 
@@ -357,110 +344,322 @@ public class AlphaBeta extends Engine {
 					newDepth--;
 				}
 
+				/* Zug anwenden */
+				board.makeMove(move);
+				context.setPreviousMove(move);
+
 				/* Alles normal! */
-				value = alphaBeta(newBoard, newDepth,
+				value = alphaBeta(board, context, newDepth,
 						(newMoveNumber == 0) ? !maximizingPlayer
 								: maximizingPlayer,
 						(newMoveNumber == 0) ? otherColor(color) : color,
 						(newMoveNumber == 0) ? 4 : newMoveNumber, newAlpha,
 						newBeta, useMemory, moveOrdering, normalSearch,
-						maxSearchDepth, isQuiescence, false, isExtendedSearch);
+						maxSearchDepth, isQuiescence,
+						isPVNode && searched == 0, isExtendedSearch);
+
+				/* Zug zurücknehmen */
+				board.unmakeMove(move);
+
+				/* Unvollständiger Wert, nicht verwenden */
+				if (context.isStopped()) {
+					break;
+				}
 
 			}
 
+			searched++;
+
 			if (maximizingPlayer) {
 
+				bestValue = max(bestValue, value);
+
 				/*
-				 * Den wichtigen, besten Move merken und als bestValue
-				 * verzeichnen.
+				 * Den wichtigen, besten Move merken und in der
+				 * Hauptvariante verzeichnen.
 				 */
-				if (((MoveScore) value.getLast()).getScore() > newAlpha) {
+				if (value > newAlpha) {
 
-					bestValue = value;
-					bestValue.addFirst(moveApplied);
-					newAlpha = ((MoveScore) value.getLast()).getScore();
+					if (childPv != null) {
+						context.updatePv(depth, move, childPv);
+					} else {
+						context.updatePv(depth, move, context, newDepth);
+					}
+					newAlpha = value;
+					bestMove = move;
 
 				}
 
 				/* Pruning! -> Beta cut-off */
 				if (newBeta <= newAlpha) {
-					if (useMemory) {
-						zobristValue.nodeType = Constants.NodeType.ALPHA;
-					}
-
-					/* Mögliche aktive Threads platt machen!!! */
-					Iterator<ParallelAlphaBetaWrapper> it = threadList
-							.iterator();
-					while (it.hasNext()) {
-						it.next().getThread().interrupt();
-					}
-
+					nodeType = Constants.NodeType.ALPHA;
+					context.getStatistics().countCutoff(searched);
+					addCutoff(context, board, depth, color, move,
+							previousMove);
 					break;
 				}
 
 			} else {
 
+				bestValue = min(bestValue, value);
+
 				/*
-				 * Den wichtigen, besten Move merken und als bestValue
-				 * verzeichnen.
+				 * Den wichtigen, besten Move merken und in der
+				 * Hauptvariante verzeichnen.
 				 */
-				if (((MoveScore) value.getLast()).getScore() < newBeta) {
+				if (value < newBeta) {
 
-					bestValue = value;
-					bestValue.addFirst(moveApplied);
-					newBeta = ((MoveScore) value.getLast()).getScore();
+					if (childPv != null) {
+						context.updatePv(depth, move, childPv);
+					} else {
+						context.updatePv(depth, move, context, newDepth);
+					}
+					newBeta = value;
+					bestMove = move;
 
 				}
 
 				/* Pruning -> Alpha cut-off */
 				if (newBeta <= newAlpha) {
-					if (useMemory) {
-						zobristValue.nodeType = Constants.NodeType.BETA;
-					}
+					nodeType = Constants.NodeType.BETA;
+					context.getStatistics().countCutoff(searched);
+					addCutoff(context, board, depth, color, move,
+							previousMove);
+					break;
+				}
+
+			}
+
+			if (splitPoint != null) {
+				/* Später startende Brüder mit engerem Fenster */
+				splitPoint.setWindow(newAlpha, newBeta);
+			}
+
+			/* Ältester Bruder fertig -> den Rest parallel */
+			if (split && tasks == null) {
+				context.getStatistics().countSplit();
+				splitPoint = new SplitPoint(context.getSplitPoint(),
+						newAlpha, newBeta);
+
+				/* Die restlichen Züge auf einmal aus dem Picker holen */
+				MoveList brothers = new MoveList();
 
-					/* Mögliche aktive Threads platt machen!!! */
-					Iterator<ParallelAlphaBetaWrapper> it = threadList
-							.iterator();
-					while (it.hasNext()) {
-						it.next().getThread().interrupt();
+				for (int tmpMove = picker.next(); tmpMove != Step.NONE; tmpMove = picker
+						.next()) {
+					brothers.add(tmpMove);
+				}
+
+				tasks = new ParallelAlphaBetaTask[i + 1 + brothers.size()];
+
+				ForkJoinPool pool = ParallelAlphaBetaTask
+						.getPool(generalAttributes.getThreads());
+
+				for (int j = i + 1; j < tasks.length; j++) {
+					int tmpMove = brothers.get(j - i - 1);
+
+					newMoveNumber = moveNr - 1;
+					newDepth = depth - 1;
+
+					if (Step.isSpecial(tmpMove)) {
+						if (newMoveNumber < 1) {
+							continue;
+						}
+
+						newMoveNumber--;
+						newDepth--;
 					}
 
-					break;
+					/* Eigenes Board für den Teilbaum, Zug anwenden */
+					newBoard = board.cloneBitboard();
+					newBoard.makeMove(tmpMove);
+
+					tasks[j] = new ParallelAlphaBetaTask(this, splitPoint,
+							tmpMove, newBoard, newDepth,
+							(newMoveNumber == 0) ? !maximizingPlayer
+									: maximizingPlayer,
+							(newMoveNumber == 0) ? otherColor(color) : color,
+							(newMoveNumber == 0) ? 4 : newMoveNumber,
+							useMemory, moveOrdering, normalSearch,
+							maxSearchDepth, isQuiescence, isExtendedSearch);
+					tasks[j].start(pool);
 				}
+			}
+		}
+
+		/*
+		 * Nach einem Cut-off werden die restlichen Brüder abgebrochen. Gewartet
+		 * wird trotzdem, damit kein Thread mehr an diesem Knoten rechnet.
+		 */
+		if (tasks != null) {
+			splitPoint.abort();
+
+			for (ParallelAlphaBetaTask task : tasks) {
+				if (task != null) {
+					task.join();
+					context.getStatistics().add(task.getStatistics());
+				}
+			}
+		}
 
+		/*
+		 * Fail-soft der beste Wert der Kinder. Konnte kein Kind berechnet
+		 * werden (nur Push/Pull bei einem übrigen Schritt), bleibt es bei der
+		 * Grenze des Fensters.
+		 */
+		int score = (searched > 0) ? bestValue : maximizingPlayer ? newAlpha
+				: newBeta;
+
+		/* Ein abgebrochener Teilbaum hat keinen gültigen Wert */
+		if (useMemory && !context.isStopped()) {
+
+			/*
+			 * Ohne Cut-off: Kam kein Kind ins Fenster, ist der Wert nur eine
+			 * Schranke (Maximierer: obere, Minimierer: untere).
+			 */
+			if (nodeType == Constants.NodeType.NOTHING) {
+				if (maximizingPlayer && score <= windowAlpha) {
+					nodeType = Constants.NodeType.BETA;
+				} else if (!maximizingPlayer && score >= windowBeta) {
+					nodeType = Constants.NodeType.ALPHA;
+				} else {
+					nodeType = Constants.NodeType.EXACT;
+				}
 			}
 
-			isFirst = false;
+			/* Füge die aktuelle Position in das Table ein! Ohne Lock. */
+			boolean replaced = transposition.addTableEntry(
+					Zobrist.key(board.getZobristHash(), color, moveNr), depth,
+					score, nodeType, moveNr, maximizingPlayer,
+					(bestMove != Step.NONE) ? bestMove : picker.getHashMove());
+
+			context.getStatistics().countStore(replaced);
 		}
 
-		if (bestValue.size() == 0) {
+		return score;
+	}
+
+	/**
+	 * Quiescence-Suche unterhalb eines Blattes: Es werden nur noch Push/Pull
+	 * mit Schlag in einer Trap und Hasen-Schritte zum Ziel (siehe
+	 * MoveGenerator.generateGoalSteps) gerechnet, für beide Seiten, solange
+	 * sie nach den Arimaa-Regeln am Zug sind. Die Seite am Zug kann immer
+	 * aufhören (Stand-pat), der Wert ist dann die Evaluierung. Dadurch hängt
+	 * der Wert eines Blattes nicht mehr davon ab, ob direkt dahinter eine
+	 * Figur geschlagen wird oder ein Hase durchläuft.
+	 * 
+	 * @param board
+	 *            Das Board
+	 * @param context
+	 *            Kontext des Such-Threads
+	 * @param ply
+	 *            Ebene unterhalb des Blattes
+	 * @param maximizingPlayer
+	 *            Ob der Spieler am Zug maximiert
+	 * @param color
+	 *            Die Farbe am Zug
+	 * @param moveNr
+	 *            übrige Schritte der Farbe am Zug
+	 * @param alpha
+	 *            untere Grenze
+	 * @param beta
+	 *            obere Grenze
+	 * @return der Wert (fail-soft)
+	 */
+	private int quiescence(Bitboard board, SearchContext context, int ply,
+			boolean maximizingPlayer, int color, int moveNr, int alpha,
+			int beta) {
+
+		/*
+		 * Wiederholungen wie im normalen Alpha-Beta, sonst kann ein Zug in der
+		 * Quiescence eine verbotene Stellung per Stand-pat gut bewerten.
+		 */
+		long hash = board.getZobristHash();
+
+		if (this.repetitionCounter.getBoardCount(hash) >= 2
+				|| oldBoardHash == hash) {
+
+			return -100000000;
+		}
+
+		int bestValue = evaluation.evaluateBoardState(board, false);
+
+		if (ply >= QUIESCENCE_DEPTH || isGameOver(board)
+				|| !context.takeQuiescenceNode()) {
+			return bestValue;
+		}
+
+		/* Stand-pat */
+		if (maximizingPlayer) {
+			if (bestValue >= beta) {
+				return bestValue;
+			}
+			alpha = max(alpha, bestValue);
+		} else {
+			if (bestValue <= alpha) {
+				return bestValue;
+			}
+			beta = min(beta, bestValue);
+		}
+
+		MoveList moveList = context.getQuiescenceList(ply);
+		moveList.clear();
+
+		if (moveNr >= 2) {
+			moveGen.generateCaptureMoves(board, color, moveList);
+		}
+		moveGen.generateGoalSteps(board, color, moveNr, moveList);
+
+		for (int i = 0; i < moveList.size(); i++) {
+			int move = moveList.get(i);
+
+			if (Step.isSpecial(move)
+					&& !MoveGenerator.isCapture(board, color, move)) {
+				continue;
+			}
+
+			int newMoveNumber = moveNr - Step.getStepCount(move);
+
+			board.makeMove(move);
+			context.getStatistics().countNode();
+
+			int value = quiescence(board, context, ply + 1,
+					(newMoveNumber == 0) ? !maximizingPlayer
+							: maximizingPlayer,
+					(newMoveNumber == 0) ? otherColor(color) : color,
+					(newMoveNumber == 0) ? 4 : newMoveNumber, alpha, beta);
+
+			board.unmakeMove(move);
+
 			if (maximizingPlayer) {
-				bestValue.add(new MoveScore(newAlpha));
+				bestValue = max(bestValue, value);
+				alpha = max(alpha, value);
 			} else {
-				bestValue.add(new MoveScore(newBeta));
+				bestValue = min(bestValue, value);
+				beta = min(beta, value);
 			}
-		}
 
-		if (useMemory) {
-			zobristValue.nodeType = (zobristValue.nodeType == Constants.NodeType.BETA) ? Constants.NodeType.BETA
-					: (zobristValue.nodeType == Constants.NodeType.ALPHA ? Constants.NodeType.ALPHA
-							: Constants.NodeType.EXACT);
-
-			/* Füge die aktuelle Position in das Table ein! */
-			zobristValue.depth = depth;
-			zobristValue.hash = board.getZobristHash();
-			zobristValue.score = ((MoveScore) bestValue.getLast()).getScore();
-			zobristValue.maximizingPlayer = maximizingPlayer;
-			zobristValue.moveNumber = moveNr;
-
-			synchronized (transposition.getClass()) {
-				transposition.addTableEntry(zobristValue);
+			if (alpha >= beta) {
+				break;
 			}
 		}
 
 		return bestValue;
 	}
 
+	/**
+	 * Ob ein Hase im Ziel steht oder eine Seite keine Hasen mehr hat.
+	 */
+	static boolean isGameOver(Bitboard board) {
+		long goldRabbits = board.getTypeBitmap(Constants.Color.GOLD,
+				Constants.Type.RABBIT);
+		long silverRabbits = board.getTypeBitmap(Constants.Color.SILVER,
+				Constants.Type.RABBIT);
+
+		return (goldRabbits & BitboardTables.ROW[7]) != 0
+				|| (silverRabbits & BitboardTables.ROW[0]) != 0
+				|| goldRabbits == 0 || silverRabbits == 0;
+	}
+
 	public void run() {
 
 		/* Minus infinity */
@@ -474,21 +673,12 @@ public class AlphaBeta extends Engine {
 		long startTime = System.currentTimeMillis();
 
 		/*
-		 * Dem Board eine Instanz des Transposition-Tables mitgeben, damit damit
-		 * ein Makemove funktioniert
-		 */
-		board.setTransposition(transposition);
-
-		/*
-		 * Den Zobrist-Hash bei jedem neuen Zug neu initialisieren!
+		 * Das Table (nur beim ersten Mal oder bei neuer Größe) reservieren.
+		 * Einträge vorheriger Züge bleiben erhalten und altern nur, gelöscht
+		 * wird erst bei "newgame".
 		 */
-		// board.setZobristHash(transposition.generateZobristHashForTable(board));
-
-		/*
-		 * das Transposition-Table neu aufsetzen, dass alte Memory-Einträge
-		 * gelöscht werden!
-		 */
-		transposition.clearTable();
+		transposition.initTranspsition(generalAttributes.getHash());
+		transposition.newSearch();
 
 		oldBoardHash = this.repetitionCounter.getBoardHash(board);
 
@@ -499,39 +689,52 @@ public class AlphaBeta extends Engine {
 
 		if (generalAttributes.getMoveOrdering()
 				&& super.generalAttributes.getDepth() >= 6) {
-			moveOrder = new MoveOrdering(generalAttributes, messageWriter);
 			moveOrderingSet = true;
 		}
 
 		// System.out.println("Hash des Boards == '" + board.hashCode() + "'.");
 
-		super.bestMove = alphaBeta(board, super.generalAttributes.getDepth(),
-				true, super.generalAttributes.getColor(), 4, alpha, beta,
+		/*
+		 * Die Suche arbeitet mit makeMove/unmakeMove auf einer eigenen Kopie,
+		 * das Board des Controllers bleibt unangetastet.
+		 */
+		Bitboard searchBoard = board.cloneBitboard();
+		SearchContext context = new SearchContext();
+
+		super.bestScore = alphaBeta(searchBoard, context,
+				super.generalAttributes.getDepth(), true,
+				super.generalAttributes.getColor(), 4, alpha, beta,
 				super.generalAttributes.getUseMemory(), moveOrderingSet, true,
-				super.generalAttributes.getDepth(), false,
+				super.generalAttributes.getDepth(),
+				super.generalAttributes.getUseQuiescence(),
 				super.generalAttributes.getUseParallelization(), false);
+		super.bestLine = context.getPv(super.generalAttributes.getDepth());
 
-		System.out.println(bestMove);
+		SearchStatistics statistics = context.getStatistics();
 
 		/*
 		 * Panic-Search --> Es wurde ein leerer Move ermittelt... Jetzt einen
 		 * Zug ermitteln mit maximal 3 Rekursionen. Das sollte in 0-1 sek zu
 		 * schaffen sein!
 		 */
-		if (super.bestMove.size() == 0) {
-			super.isAllowedToRun = true;
+		if (super.bestLine.length == 0) {
+			super.cancellation.reset();
 			messageWriter.sendMessage("log PANIC SEARCH ACTIVATED!!!!!");
-			super.bestMove = alphaBeta(board, 3, true,
+			context = new SearchContext();
+			super.bestScore = alphaBeta(searchBoard, context, 3, true,
 					super.generalAttributes.getColor(), 4, alpha, beta,
 					super.generalAttributes.getUseMemory(),
-					super.generalAttributes.getMoveOrdering(), true, 3, false,
+					super.generalAttributes.getMoveOrdering(), true, 3,
+					super.generalAttributes.getUseQuiescence(),
 					super.generalAttributes.getUseParallelization(), false);
+			super.bestLine = context.getPv(3);
+			statistics.add(context.getStatistics());
 		}
 
 		long estimatedTime = System.currentTimeMillis() - startTime;
 
 		messageWriter.sendMessage("log finished calculating best move"
-				+ ((super.isAllowedToRun == true) ? " all by himself :-)"
+				+ ((!super.cancellation.isCancelled()) ? " all by himself :-)"
 						: ", being interrupted by the timer..."));
 
 		messageWriter.sendMessage("log time used: " + estimatedTime / 1000);
@@ -540,19 +743,25 @@ public class AlphaBeta extends Engine {
 				+ new SimpleEvaluation(generalAttributes).evaluateBoardState(
 						board, false));
 
-		messageWriter.sendMessage("log score: "
-				+ ((MoveScore) super.bestMove.getLast()).getScore());
+		messageWriter.sendMessage("log score: " + super.bestScore);
+
+		messageWriter.sendMessage("log node count: "
+				+ statistics.getNodesVisited() + " ("
+				+ statistics.getNodesVisited() * 1000
+				/ Math.max(estimatedTime, 1) + " nodes/s)");
+
+		messageWriter.sendMessage("log " + statistics.getCutoffStatistics());
 
-		messageWriter.sendMessage("log node count: " + nodesVisited);
+		messageWriter.sendMessage("log " + statistics.getTableStatistics());
 
 		messageWriter.sendMessage("log used memory: "
 				+ (Runtime.getRuntime().totalMemory() - Runtime.getRuntime()
 						.freeMemory()) / (1024 * 1024) + "mb");
 
+		messageWriter.sendMessage("log " + transposition.getStatistics());
+
 		/* Ausgabe des besten Moves! */
-		if (super.printBestMove) {
-			messageWriter.sendMessage(getBestMove());
-		}
+		finishSearch();
 	}
 
 	public void setOldBoardHash(long oldBoardHash) {
@@ -563,16 +772,31 @@ public class AlphaBeta extends Engine {
 		this.repetitionCounter = repetitionCounter;
 	}
 
-	public int getNodesVisited() {
-		return this.nodesVisited;
-	}
-
 	public void setEvaluation(Evaluation evaluation) {
 		this.evaluation = evaluation;
 	}
 
-	public void setMoveOrdering(MoveOrdering moveOrder) {
-		this.moveOrder = moveOrder;
+	/**
+	 * Setzt das Transposition-Table, das die Suche verwenden soll (z.B. das
+	 * der Iterative-Deepening-Instanz).
+	 */
+	public void setTransposition(Transposition transposition) {
+		this.transposition = transposition;
+	}
+
+	/**
+	 * Teilt das Abbruch-Signal mit einer anderen Engine (z.B. der
+	 * Iterative-Deepening-Instanz), damit deren "stop" sofort hier ankommt.
+	 */
+	public void setCancellation(CancellationToken cancellation) {
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Lazy SMP: Der Wurzel-Zug mit diesem Index wird zuerst berechnet.
+	 */
+	public void setRootRotation(int rootRotation) {
+		this.rootRotation = rootRotation;
 	}
 
 	/**
@@ -582,8 +806,18 @@ public class AlphaBeta extends Engine {
 	 */
 	public void newThread() {
 		super.ownThread = new Thread(this);
-		super.bestMove = new LinkedList<Move>();
-		super.isAllowedToRun = true;
+		super.bestLine = new int[0];
+		super.cancellation.reset();
+	}
+
+	@Override
+	public int[] getExpectedReply(Bitboard board) {
+		return followHashMoves(transposition, board);
+	}
+
+	@Override
+	public void newGame() {
+		transposition.clearTable();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package engine;
+
+/**
+ * Signal, mit dem eine laufende Suche beendet wird ("stop", Zeitkontrolle).
+ * Alle Threads einer Suche teilen sich dieselbe Instanz und fragen sie über
+ * ihren SearchContext alle paar Knoten ab. Da das Feld volatile ist, sieht
+ * jeder Thread den Abbruch spätestens bei seiner nächsten Abfrage.
+ *
+ * @author maurice
+ *
+ */
+public class CancellationToken {
+
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Beendet alle Suchen, die dieses Signal abfragen.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Vor einer neuen Suche zurücksetzen.
+	 */
+	public void reset() {
+		cancelled = false;
+	}
+
+}
@@ -1,18 +1,20 @@
 package engine;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Random;
 
 import memory.RepetitionCounter;
+import memory.Transposition;
 import network.MessageOutputWriter;
 import board.Bitboard;
 import board.Constants;
-import board.Move;
 import board.MoveGenerator;
 import board.MoveNormal;
-import board.MoveSpecial;
 import board.Piece;
 import board.Position;
+import board.Step;
+import board.Zobrist;
 
 /**
  * Die eigentliche Engine, die als Thread gestartet wird und die Berechnung des
@@ -33,9 +35,15 @@ public abstract class Engine implements Runnable {
 	protected Thread ownThread;
 
 	/**
-	 * Der String mit dem aktuellen besten Move für den Server.
+	 * Die aktuell beste Zugfolge (kodierte Züge, siehe board.Step), aus der
+	 * der bestmove für den Server erzeugt wird.
 	 */
-	protected LinkedList<Move> bestMove;
+	protected int[] bestLine;
+
+	/**
+	 * Der Score der besten Zugfolge.
+	 */
+	protected int bestScore;
 
 	/**
 	 * Ob der beste Move beim Beenden des Threads überhaupt ausgegeben werden
@@ -43,15 +51,26 @@ public abstract class Engine implements Runnable {
 	 */
 	protected boolean printBestMove;
 
+	/**
+	 * Ob die Engine gerade auf der Zeit des Gegners rechnet ("go ponder").
+	 * Dann läuft sie ohne Zeitkontrolle, bis sie gestoppt wird oder der
+	 * Gegner den erwarteten Zug spielt.
+	 */
+	protected volatile boolean pondering = false;
+
+	/* Ob die Suche schon fertig ist (und den bestmove ausgegeben hätte) */
+	private boolean finished = false;
+
 	/**
 	 * Wieviele Endknoten analysiert und besucht wurden bei der Rekursion.l
 	 */
 	protected int leafNodesVisited = 0;
 
 	/**
-	 * Boolean über den der Thread/Engine kontrolliert beendet werden kann.
+	 * Signal, über das der Thread/Engine kontrolliert beendet werden kann.
+	 * Wird von allen Such-Threads der Engine geteilt.
 	 */
-	protected boolean isAllowedToRun;
+	protected CancellationToken cancellation = new CancellationToken();
 
 	/**
 	 * Verweis auf die Writer-Instanz zur Kommunikation mit dem Server (Senden
@@ -79,6 +98,11 @@ public abstract class Engine implements Runnable {
 	 */
 	protected RepetitionCounter repetitionCounter;
 
+	/**
+	 * Zeitverwaltung des Zuges, null ohne Zeitkontrolle (z.B. in Benchmarks).
+	 */
+	protected TimeManager timeManager;
+
 	/****************************************************************/
 	/********************* Konstruktor **************************/
 	/****************************************************************/
@@ -86,8 +110,7 @@ public abstract class Engine implements Runnable {
 	public Engine(MessageOutputWriter messageWriter,
 			EngineGeneralAttributes generalAttributes) {
 		this.ownThread = new Thread(this);
-		this.bestMove = new LinkedList<Move>();
-		this.isAllowedToRun = true;
+		this.bestLine = new int[0];
 		this.printBestMove = false;
 		this.messageWriter = messageWriter;
 		this.generalAttributes = generalAttributes;
@@ -178,14 +201,11 @@ public abstract class Engine implements Runnable {
 
 		int moveCnt = 0;
 
-		for (Move move : bestMove) {
-			switch (move.getMoveType()) {
-			case Constants.MoveType.NORMAL:
-				moveList.add((MoveNormal) move);
-				break;
-			case Constants.MoveType.SPECIAL:
-				moveList.addAll(((MoveSpecial) move).getAllMoves());
-				break;
+		for (int move : bestLine) {
+			moveList.add(Step.toMoveNormal(Step.getFirst(move)));
+
+			if (Step.isSpecial(move)) {
+				moveList.add(Step.toMoveNormal(Step.getSecond(move)));
 			}
 		}
 
@@ -230,13 +250,123 @@ public abstract class Engine implements Runnable {
 	}
 
 	public void stopThread() {
-		this.isAllowedToRun = false;
+		this.cancellation.cancel();
+	}
+
+	/**
+	 * Ob die Engine (noch) rechnen darf, also nicht gestoppt wurde.
+	 */
+	public boolean isAllowedToRun() {
+		return !cancellation.isCancelled();
 	}
 
 	public void setPrintBestMove(boolean flag) {
 		this.printBestMove = flag;
 	}
 
+	/**
+	 * Ende jeder Suche: gibt den besten Zug aus, wenn das gewünscht ist. Mit
+	 * ponderHit() synchronisiert, damit der Zug genau einmal ausgegeben wird.
+	 */
+	protected synchronized void finishSearch() {
+		finished = true;
+
+		if (timeManager != null) {
+			timeManager.finishMove();
+		}
+
+		if (printBestMove) {
+			messageWriter.sendMessage(getBestMove());
+		}
+	}
+
+	/**
+	 * Der Gegner hat den Zug gespielt, auf den die Engine gerade rechnet: Aus
+	 * dem Pondern wird die normale Suche. Ist sie schon fertig, wird der
+	 * beste Zug sofort ausgegeben.
+	 * 
+	 * @return true, wenn die Suche noch läuft und eine Zeitkontrolle braucht
+	 */
+	public synchronized boolean ponderHit() {
+		pondering = false;
+		printBestMove = true;
+
+		if (finished) {
+			if (timeManager != null) {
+				timeManager.finishMove();
+			}
+
+			messageWriter.sendMessage(getBestMove());
+			return false;
+		}
+
+		return true;
+	}
+
+	public void setPondering(boolean pondering) {
+		this.pondering = pondering;
+
+		if (pondering) {
+			finished = false;
+		}
+	}
+
+	public boolean isPondering() {
+		return pondering;
+	}
+
+	/**
+	 * Die beste Zugfolge der letzten Suche, kann über den eigenen Zug hinaus
+	 * die erwartete Antwort des Gegners enthalten.
+	 */
+	public int[] getBestLine() {
+		return bestLine;
+	}
+
+	/**
+	 * Die erwartete Antwort des Gegners auf der Stellung nach dem eigenen Zug,
+	 * falls die Hauptvariante nicht so weit reicht. Engines ohne
+	 * Transposition-Table kennen keine und liefern eine leere Zugfolge.
+	 * 
+	 * @param board
+	 *            die Stellung nach dem eigenen Zug, der Gegner ist am Zug
+	 */
+	public int[] getExpectedReply(Bitboard board) {
+		return new int[0];
+	}
+
+	/**
+	 * Folgt den besten Zügen im Table für einen ganzen Zug des Gegners (4
+	 * Schritte), bis ein Eintrag fehlt. Es wird nur gelesen, die Engine
+	 * rechnet dabei nicht.
+	 */
+	protected int[] followHashMoves(Transposition transposition, Bitboard board) {
+
+		int color = otherColor(generalAttributes.getColor());
+		Bitboard replyBoard = board.cloneBitboard();
+		MoveGenerator moveGen = new MoveGenerator();
+		int[] line = new int[4];
+		int length = 0;
+		int moveNr = 4;
+
+		while (moveNr > 0) {
+			long entry = transposition.lookupHash(Zobrist.key(
+					replyBoard.getZobristHash(), color, moveNr));
+			int move = moveGen.expandMove(replyBoard, color,
+					Transposition.getBestMove(entry));
+
+			if (move == Step.NONE || Step.getStepCount(move) > moveNr) {
+				break;
+			}
+
+			replyBoard.makeMove(move);
+			line[length++] = move;
+			moveNr -= Step.getStepCount(move);
+		}
+
+		return Arrays.copyOf(line, length);
+	}
+
 	/**
 	 * Da ein Thread niemals mehrfach gestartet werden kann, muss eine neue
 	 * Instanz erzeugt werden. Alle Variablen, die zum Lauf relevant sind werden
@@ -244,6 +374,13 @@ public abstract class Engine implements Runnable {
 	 */
 	public abstract void newThread();
 
+	/**
+	 * Wird bei "newgame" aufgerufen. Engines, die Daten über mehrere Züge
+	 * behalten (z.B. das Transposition-Table), setzen diese hier zurück.
+	 */
+	public void newGame() {
+	}
+
 	/**
 	 * Setzt die private Instanz des Boards vor jeder neuen Berechnung auf die
 	 * aktuelle Position!
@@ -264,6 +401,17 @@ public abstract class Engine implements Runnable {
 		this.repetitionCounter = repetitionCounter;
 	}
 
+	/**
+	 * Setzt die Zeitverwaltung, der Engines mit Iterationen jede fertige
+	 * Iteration melden.
+	 * 
+	 * @param timeManager
+	 *            die Zeitverwaltung
+	 */
+	public void setTimeManager(TimeManager timeManager) {
+		this.timeManager = timeManager;
+	}
+
 	/**
 	 * Errechnet den maximalen Wert und gibt diesen zurück.
 	 * 
@@ -290,6 +438,31 @@ public abstract class Engine implements Runnable {
 		return (x <= y) ? x : y;
 	}
 
+	/**
+	 * Merkt sich einen Zug, der einen Cut-off erzeugt hat, für die
+	 * Zug-Sortierung (Killer, History, Countermove). Schläge kommen im
+	 * MovePicker sowieso früh dran.
+	 * 
+	 * @param context
+	 *            Kontext des Such-Threads
+	 * @param board
+	 *            Das Board vor dem Zug
+	 * @param depth
+	 *            Rekursionstiefe des Knotens
+	 * @param color
+	 *            Die Farbe, die den Zug gemacht hat
+	 * @param move
+	 *            kodierter Zug
+	 * @param previousMove
+	 *            der Zug, der zu dem Knoten geführt hat
+	 */
+	protected void addCutoff(SearchContext context, Bitboard board,
+			int depth, int color, int move, int previousMove) {
+		if (!MoveGenerator.isCapture(board, color, move)) {
+			context.addCutoff(depth, move, previousMove);
+		}
+	}
+
 	/**
 	 * Gibt die jeweils andere Farbe zurück.
 	 * 
@@ -9,6 +9,7 @@ import board.MoveGenerator;
 import board.MoveSpecial;
 import board.Piece;
 import board.Position;
+import board.Step;
 
 public class EngineController {
 
@@ -24,6 +25,9 @@ public class EngineController {
 	/* Thread mit Zeitverwaltung der Engine */
 	private Thread timeControllerThread;
 
+	/* Berechnet die Zeit für jeden Zug aus den Optionen des Servers */
+	private TimeManager timeManager;
+
 	/* Attribute der Engine */
 	private EngineGeneralAttributes engineGeneralAttributes;
 
@@ -36,6 +40,15 @@ public class EngineController {
 	/* Instanz für das Zählen und behalten von Spielfeldsituationen für die Repetition-Rule */
 	private RepetitionCounter repetitionCounter;
 
+	/* Die Stellung, auf der die Engine zuletzt mit "go" gerechnet hat */
+	private Bitboard searchRoot = null;
+
+	/* Die erwartete Stellung, auf der gerade gepondert wird */
+	private Bitboard ponderBoard = null;
+
+	/* Der Gegner hat den erwarteten Zug gespielt, die Suche läuft weiter */
+	private boolean ponderHit = false;
+
 	public EngineController(EngineGeneralAttributes engineGeneralAttributes,
 			MessageOutputWriter messageWriter) {
 
@@ -62,16 +75,31 @@ public class EngineController {
 					+ engineGeneralAttributes.getUseMemory() + ". Parallelization: "
 					+ engineGeneralAttributes.getUseParallelization() + ".");
 			break;
-		case Constants.EngineType.NEGASCOUT:
 		case Constants.EngineType.MTDF:
+			engine = new MTDf(messageWriter, engineGeneralAttributes);
+			messageWriter.sendMessage("log engine type: MTDF. Depth: "
+					+ engineGeneralAttributes.getDepth() + ". MoveOrdering: "
+					+ engineGeneralAttributes.getMoveOrdering() + ". Parallelization: "
+					+ engineGeneralAttributes.getUseParallelization() + ".");
+			break;
 		case Constants.EngineType.MCTS:
+			engine = new MonteCarloTreeSearch(messageWriter,
+					engineGeneralAttributes);
+			messageWriter.sendMessage("log engine type: MCTS. Memory: "
+					+ engineGeneralAttributes.getMctsMemory() + "mb. Parallelization: "
+					+ engineGeneralAttributes.getUseParallelization() + ".");
+			break;
+		case Constants.EngineType.NEGASCOUT:
 			engine = new NegaScout(messageWriter, engineGeneralAttributes);
 			messageWriter.sendMessage("log engine type: NEGASCOUT. Depth: "
 					+ engineGeneralAttributes.getDepth());
 		}
 
-		engineTimeController = new EngineTimeController(engine,
-				engineGeneralAttributes, messageWriter);
+		timeManager = new TimeManager(engineGeneralAttributes, messageWriter);
+		engine.setTimeManager(timeManager);
+
+		engineTimeController = new EngineTimeController(engine, timeManager,
+				messageWriter);
 		this.engineGeneralAttributes = engineGeneralAttributes;
 		this.messageWriter = messageWriter;
 		this.board = new Bitboard(engineGeneralAttributes);
@@ -213,9 +241,18 @@ public class EngineController {
 	 */
 	public void newGame() {
 
+		kill();
+		ponderBoard = null;
+		ponderHit = false;
+		searchRoot = null;
+
 		board.generateEmptyBitboard();
 		board.generateMasks();
 
+		repetitionCounter.clear();
+		engine.newGame();
+		timeManager.newGame();
+
 	}
 
 	/**
@@ -240,6 +277,24 @@ public class EngineController {
 	 */
 	public void go() {
 
+		/* Ponder-Hit: die laufende Suche bekommt nur noch ihre Zeitkontrolle */
+		if (ponderHit) {
+			ponderHit = false;
+			ponderBoard = null;
+			searchRoot = board.cloneBitboard();
+
+			/* Die Uhr läuft erst ab jetzt, auch wenn schon gerechnet wird */
+			timeManager.startMove();
+
+			if (engine.ponderHit()) {
+				startTimeController();
+			}
+
+			return;
+		}
+
+		ponderBoard = null;
+
 		/********************** STOP ************************/
 
 		engine.setPrintBestMove(false);
@@ -261,29 +316,173 @@ public class EngineController {
 
 		/* Startet die Engine selber */
 		engine.setPrintBestMove(true);
+		engine.setPondering(false);
 		engine.setBoard(board);
 		
 		
 		engine.setRepetitionCounter(repetitionCounter);
 		
 		
+		timeManager.startMove();
+
 		engine.newThread();
 		engineThread = engine.getOwnThread();
 		engineThread.start();
 
-		/* Startet die Zeitkontrolle/Messung für die Engine */
+		searchRoot = board.cloneBitboard();
+
+		startTimeController();
+	}
+
+	/**
+	 * Startet die Zeitkontrolle/Messung für den laufenden Engine-Thread.
+	 */
+	private void startTimeController() {
 		engineTimeController.newThread();
 		engineTimeController.setEngineThread(engineThread);
 		timeControllerThread = engineTimeController.getOwnThread();
 		timeControllerThread.start();
 	}
 
+	/**
+	 * "go ponder": Rechnet auf der Zeit des Gegners. Die beste Zugfolge der
+	 * letzten Suche enthält meist schon die erwartete Antwort des Gegners,
+	 * auf der Stellung danach wird ohne Zeitkontrolle gesucht. Spielt der
+	 * Gegner diesen Zug, läuft die Suche beim nächsten "go" einfach weiter
+	 * (siehe ponderMove()). Sonst wird sie still beendet, das Table bleibt
+	 * trotzdem gefüllt.
+	 */
+	public void ponder() {
+
+		kill();
+		ponderBoard = null;
+		ponderHit = false;
+
+		Bitboard expected = getExpectedBoard();
+
+		if (expected == null) {
+			messageWriter
+					.sendMessage("log ponder: no expected reply, not pondering");
+			return;
+		}
+
+		/*
+		 * Eigene Kopien, die Stellung ist noch nicht gespielt und der Zähler
+		 * wird beim echten Zug des Gegners verändert.
+		 */
+		RepetitionCounter ponderCounter = repetitionCounter
+				.cloneRepetitionCounter();
+		ponderCounter.saveBoard(expected);
+
+		ponderBoard = expected;
+
+		engine.setPrintBestMove(false);
+		engine.setPondering(true);
+		engine.setBoard(expected.cloneBitboard());
+		engine.setRepetitionCounter(ponderCounter);
+
+		engine.newThread();
+		engineThread = engine.getOwnThread();
+		engineThread.start();
+
+		messageWriter.sendMessage("log ponder: searching the expected reply");
+	}
+
+	/**
+	 * Spielt die beste Zugfolge der letzten Suche von deren Wurzel aus nach:
+	 * erst der eigene Zug (wie in getBestMove() höchstens 4 Schritte), der
+	 * dem aktuellen Board entsprechen muss, dann die 4 Schritte des Gegners.
+	 * 
+	 * @return die Stellung nach der erwarteten Antwort, null wenn es keine
+	 *         gibt
+	 */
+	private Bitboard getExpectedBoard() {
+
+		if (searchRoot == null) {
+			return null;
+		}
+
+		int[] line = engine.getBestLine();
+		Bitboard expected = searchRoot.cloneBitboard();
+		int steps = 0;
+		int i = 0;
+
+		while (steps < 4 && i < line.length) {
+			expected.makeMove(line[i]);
+			steps += Step.getStepCount(line[i++]);
+		}
+
+		/* Der Zug kann kürzer als 4 Schritte sein, das Board muss passen */
+		if (expected.getZobristHash() != board.getZobristHash()) {
+			return null;
+		}
+
+		/*
+		 * Zu kurze Hauptvariante: die Antwort aus dem Table der Engine lesen.
+		 * Gesucht wird dafür nicht, der AEI-Thread darf nicht blockieren.
+		 */
+		if (!hasFullTurn(line, i)) {
+			line = engine.getExpectedReply(expected);
+			i = 0;
+		}
+
+		steps = 0;
+
+		while (steps < 4 && i < line.length) {
+			expected.makeMove(line[i]);
+			steps += Step.getStepCount(line[i++]);
+		}
+
+		return (steps > 0) ? expected : null;
+	}
+
+	/**
+	 * Ob die Züge ab start mindestens 4 Schritte ergeben.
+	 */
+	private boolean hasFullTurn(int[] line, int start) {
+		int steps = 0;
+
+		for (int i = start; i < line.length; i++) {
+			steps += Step.getStepCount(line[i]);
+		}
+
+		return steps >= 4;
+	}
+
+	/**
+	 * Nach dem Zug des Gegners (makemove): War es der erwartete, rechnet die
+	 * Engine weiter, sonst wird das Pondern still beendet.
+	 */
+	public void ponderMove() {
+
+		if (ponderBoard == null || !engine.isPondering()) {
+			return;
+		}
+
+		if (ponderBoard.getZobristHash() == board.getZobristHash()) {
+			ponderHit = true;
+			messageWriter.sendMessage("log ponder hit");
+		} else {
+			kill();
+			ponderBoard = null;
+			messageWriter.sendMessage("log ponder miss");
+		}
+	}
+
 	/**
 	 * Stoppt die Engine und setzt das Flag, dass das best-erreichteste Ergebnis
 	 * ausgegeben wird.
 	 */
 	public void stop() {
 
+		/* Pondern wird ohne bestmove beendet */
+		if (engine.isPondering()) {
+			kill();
+			ponderBoard = null;
+			ponderHit = false;
+			return;
+		}
+
 		engine.setPrintBestMove(true);
 
 		engine.stopThread();
@@ -28,8 +28,8 @@ public class EngineGeneralAttributes {
 	private int tctotal = Integer.MAX_VALUE;
 	// Maximum number of moves the game can last.
 	private int tcturns = Integer.MAX_VALUE;
-	// Maximum time a single move can last.
-	private int tcturntime = 5;
+	// Maximum time a single move can last. 0 means no limit.
+	private int tcturntime = 0;
 	// Amount of reserve time for gold.
 	private int greserve = 6000;
 	// Amount of reserve time for silver.
@@ -77,6 +77,16 @@ public class EngineGeneralAttributes {
 	private boolean useMemory = true;
 	// Parallele Berechnung?
 	private boolean useParallelization = false;
+	// Lazy SMP statt aufgeteilter Suche?
+	private boolean useLazySmp = false;
+	// Quiescence-Suche an den Blättern?
+	private boolean useQuiescence = true;
+	// Halbe Breite des Aspiration-Fensters im Iterative Deepening (0 = aus).
+	private int aspirationWindow = 0;
+	// Anzahl Threads für die parallele Suche.
+	private int threads = Runtime.getRuntime().availableProcessors();
+	// Speicher für den Baum der Monte-Carlo-Suche in MB.
+	private int mctsMemory = 256;
 	// Eine Instanz des MessageWriters zum Loggen von Nachrichten.
 	private MessageOutputWriter messageWriter;
 
@@ -161,6 +171,41 @@ public class EngineGeneralAttributes {
 						this.useParallelization = true;
 					}
 				}
+
+				/* Lazy SMP festlegen */
+				if (line.matches("lazysmp = (true|false)")) {
+					this.useLazySmp = line.split(" ")[2].equals("true");
+					messageWriter.writeLog("log set lazySmp to "
+							+ this.useLazySmp);
+				}
+
+				/* Quiescence-Suche festlegen */
+				if (line.matches("quiescence = (true|false)")) {
+					this.useQuiescence = line.split(" ")[2].equals("true");
+					messageWriter.writeLog("log set quiescence to "
+							+ this.useQuiescence);
+				}
+
+				/* Aspiration-Fenster festlegen */
+				if (line.matches("aspiration = [0-9]+")) {
+					this.aspirationWindow = Integer.parseInt(line.split(" ")[2]);
+					messageWriter.writeLog("log set aspiration window to "
+							+ this.aspirationWindow);
+				}
+
+				/* Anzahl Such-Threads festlegen */
+				if (line.matches("threads = [0-9]+")) {
+					this.threads = Math.max(1,
+							Integer.parseInt(line.split(" ")[2]));
+					messageWriter.writeLog("log set threads to " + this.threads);
+				}
+
+				/* Speicher der Monte-Carlo-Suche festlegen */
+				if (line.matches("mctsmemory = [0-9]+")) {
+					this.mctsMemory = Integer.parseInt(line.split(" ")[2]);
+					messageWriter.writeLog("log set mcts memory to "
+							+ this.mctsMemory);
+				}
 				
 				
 			}
@@ -223,6 +268,8 @@ public class EngineGeneralAttributes {
 			this.event = value;
 		} else if (name.equals("hash")) {
 			this.hash = Integer.parseInt(value);
+		} else if (name.equals("threads")) {
+			this.threads = Math.max(1, Integer.parseInt(value));
 		} else if (name.equals("depth")) {
 			/*
 			 * Die Einstellung des eigenen Config-Files ist immer im Recht, vor
@@ -350,6 +397,47 @@ public class EngineGeneralAttributes {
 	public boolean getUseParallelization() {
 		return useParallelization;
 	}
+
+	/**
+	 * Lazy SMP: Helfer-Threads rechnen dasselbe Iterative Deepening und
+	 * teilen sich nur das Transposition-Table. Gilt nur zusammen mit
+	 * useParallelization.
+	 */
+	public boolean getUseLazySmp() {
+		return useLazySmp;
+	}
+
+	/**
+	 * Ob an den Blättern des Alpha-Beta eine Quiescence-Suche über Schläge
+	 * und Hasen vor dem Ziel angehängt wird.
+	 */
+	public boolean getUseQuiescence() {
+		return useQuiescence;
+	}
+
+	/**
+	 * Halbe Breite des Aspiration-Fensters um den Wert der vorherigen
+	 * Iteration, 0 wenn immer mit vollem Fenster gesucht wird.
+	 */
+	public int getAspirationWindow() {
+		return aspirationWindow;
+	}
+
+	/**
+	 * Anzahl Threads der parallelen Suche. 1 heißt seriell, auch wenn
+	 * useParallelization gesetzt ist.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Speicher für den Baum der Monte-Carlo-Suche in MB. Ist er voll, endet
+	 * die Suche.
+	 */
+	public int getMctsMemory() {
+		return mctsMemory;
+	}
 	
 	public MessageOutputWriter getWriter() {
 		return this.messageWriter;
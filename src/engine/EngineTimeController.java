@@ -1,6 +1,5 @@
 package engine;
 
-import board.Constants;
 import network.MessageOutputWriter;
 
 public class EngineTimeController implements Runnable {
@@ -9,12 +8,15 @@ public class EngineTimeController implements Runnable {
 	/********************* Variablen ************************/
 	/************************************************************/
 
+	/* Wie oft der Zeitpunkt neu gelesen wird (ms) */
+	private static final long POLL_INTERVAL = 50;
+
 	/* Instanzen auf die Engine, die kontrolliert werden soll */
 	private Engine engine;
 	private Thread engineThread;
 
-	/* Attribute der Engine */
-	private EngineGeneralAttributes engineGeneralAttributes;
+	/* Zeitverwaltung, die das Ende des Zuges festlegt */
+	private TimeManager timeManager;
 
 	/* Instanz des Message-Writers */
 	private MessageOutputWriter messageWriter;
@@ -28,40 +30,28 @@ public class EngineTimeController implements Runnable {
 	/********************* Konstruktor **************************/
 	/****************************************************************/
 
-	public EngineTimeController(Engine engine,
-			EngineGeneralAttributes engineGeneralAttributes,
+	public EngineTimeController(Engine engine, TimeManager timeManager,
 			MessageOutputWriter messageWriter) {
 		this.engine = engine;
-		this.engineGeneralAttributes = engineGeneralAttributes;
+		this.timeManager = timeManager;
 		this.messageWriter = messageWriter;
 		this.ownThread = new Thread(this);
 		this.isAllowedToRun = true;
 	}
 
-	@SuppressWarnings("static-access")
 	public void run() {
 
 		try {
 
-			/* Zeit übrig? */
-			int reserveTime = (engineGeneralAttributes.getColor() == Constants.Color.GOLD) ? engineGeneralAttributes
-					.getGreserve() : engineGeneralAttributes.getSreserve();
-
 			/*
-			 * Wenn genug Reserve-Time da ist, dann bis ganz zum Ende rechnen
-			 * lassen und einen Teil der Reserve-Zeit nutzen zum Beenden der
-			 * Engine
+			 * Bis zum Zeitpunkt der Zeitverwaltung warten. Der kann sich
+			 * während der Suche noch verschieben, deshalb in kurzen Abständen.
 			 */
-			if (reserveTime > 10) {
-				ownThread.sleep((engineGeneralAttributes.getTcmove() + (reserveTime / 4)) * 1000);
-			} else {
-				if (engineGeneralAttributes.getTcturntime() <= 2) {
-					ownThread
-							.sleep((engineGeneralAttributes.getTcmove()) * 1000);
-				} else {
-					ownThread
-							.sleep((engineGeneralAttributes.getTcmove() - 2) * 1000);
-				}
+			long remaining;
+
+			while ((remaining = timeManager.getDeadline()
+					- System.currentTimeMillis()) > 0) {
+				Thread.sleep(Math.min(remaining, POLL_INTERVAL));
 			}
 
 			engine.setPrintBestMove(true);
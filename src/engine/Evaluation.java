@@ -1,8 +1,8 @@
 package engine;
 
-import java.util.LinkedList;
-
 import board.Bitboard;
+import board.BitboardTables;
+import board.Bits;
 import board.Constants;
 import board.Piece;
 import board.Position;
@@ -73,27 +73,10 @@ public class Evaluation {
 		int score = 0;
 		long typeMask = board.getTypeBitmap(color, type);
 
-		LinkedList<Long> trapList = new LinkedList<Long>();
-
-		trapList.add(board.getBitmapAroundPosition(2, 2)
-				& ~board.getMaskAt(2, 2));
-		trapList.add(board.getBitmapAroundPosition(5, 2)
-				& ~board.getMaskAt(5, 2));
-		trapList.add(board.getBitmapAroundPosition(2, 5)
-				& ~board.getMaskAt(2, 5));
-		trapList.add(board.getBitmapAroundPosition(5, 5)
-				& ~board.getMaskAt(5, 5));
-
 		/* Schleife über die 4 Traps */
-		for (long trapControl : trapList) {			
-			/* Schleife über den Long */
-			for (int i = 0; i < 64; i++) {
-				long mask = (1L << i) & typeMask;
-				/* Ist dort eine Figur? */
-				if ((trapControl & mask) != 0) {
-					score++;
-				}
-			}
+		for (long trapControl : BitboardTables.TRAP_NEIGHBORS) {
+			/* Figuren des Typs neben dem Trap */
+			score += Bits.count(trapControl & typeMask);
 		}
 		return score;
 	}
@@ -7,14 +7,28 @@ import evaluation.SimpleEvaluation;
 
 import board.Bitboard;
 import board.Constants;
-import board.Move;
-import board.MoveScore;
 import memory.RepetitionCounter;
 import memory.Transposition;
 import network.MessageOutputWriter;
 
 public class IterativeDeepening extends Engine {
 
+	/* Größer als jeder Wert der Evaluierung */
+	private static final int INFINITY = 1000000000;
+
+	/*
+	 * Tiefe 0 bewertet nur die Wurzel und liefert keinen Zug, die erste
+	 * Iteration ist deshalb Tiefe 1.
+	 */
+	private static final int START_DEPTH = 1;
+
+	/*
+	 * Erst ab dieser Tiefe ist der Wert der vorherigen Iteration stabil genug
+	 * für ein Aspiration-Fenster. Davor zieht nur die eigene Seite und der
+	 * Wert steigt mit jedem Schritt.
+	 */
+	private static final int ASPIRATION_DEPTH = 5;
+
 	/**
 	 * Private Instanz der Memory-Haltung (Transposition-Table)
 	 */
@@ -25,7 +39,6 @@ public class IterativeDeepening extends Engine {
 		super(messageWriter, generalAttributes);
 
 		this.transposition = new Transposition(generalAttributes.getHash());
-		this.transposition.initTranspsition();
 	}
 
 	/**
@@ -42,69 +55,181 @@ public class IterativeDeepening extends Engine {
 	 *            Die jeweilige Farbe
 	 * @param moveNr
 	 *            Überprüfung, dass 4 Züge pro Spieler möglich sind.
+	 * @return die Hauptvariante der tiefsten vollständigen Iteration, der
+	 *         zugehörige Score steht danach in bestScore
 	 */
-	public LinkedList<Move> iterativeDeepening(Bitboard board) {
+	public int[] iterativeDeepening(Bitboard board) {
 
-		LinkedList<Move> resultList = null;
-		LinkedList<Move> tmpResultList = null;
+		int[] resultLine = new int[0];
+		int tmpScore;
 		// AlphaBetaParallel alphaBeta = new AlphaBetaParallel(messageWriter,
 		// generalAttributes);
 		AlphaBeta alphaBeta = new AlphaBeta(messageWriter, generalAttributes);
 
+		/* Ein gemeinsames Table für alle Iterationen */
+		alphaBeta.setTransposition(transposition);
+
 		/*
-		 * Der Alphabeta-Instanz muss ein ein eigener Time-Controller
-		 * mitgegegeben werden, sodass Zeitkontrolle auch dort stattfindet!
+		 * Dasselbe Abbruch-Signal, damit "stop" die laufende Iteration sofort
+		 * beendet.
 		 */
-		EngineTimeController timeController = new EngineTimeController(
-				alphaBeta, generalAttributes, messageWriter);
-		timeController.setEngineThread(null);
-		timeController.newThread();
-		Thread timeControllerThread = timeController.getOwnThread();
-		timeControllerThread.start();
+		alphaBeta.setCancellation(super.cancellation);
 
 		// Bitboard oldBoard = board.cloneBitboard();
 		long oldBoardHash = super.repetitionCounter.getBoardHash(board);
 
 		alphaBeta.setOldBoardHash(oldBoardHash);
 		alphaBeta.setRepetitionCounter(super.repetitionCounter);
-		alphaBeta.setMoveOrdering(new MoveOrdering(generalAttributes,
-				messageWriter));
 
 		SimpleEvaluation eval = new SimpleEvaluation(generalAttributes);
 		// int oldScore = eval.evaluateBoardState(oldBoard);
 		// alphaBeta.setOldScore(oldScore);
 		alphaBeta.setEvaluation(eval);
 
-		int initDepth = 0;
+		int initDepth = Math.min(START_DEPTH, generalAttributes.getDepth());
 		int finalDepth = generalAttributes.getDepth();
 
+		/* Zug-Listen werden über alle Iterationen wiederverwendet */
+		SearchContext context = new SearchContext();
+
+		/* Eigene Kopie für makeMove/unmakeMove */
+		Bitboard searchBoard = board.cloneBitboard();
+
+		/*
+		 * Lazy SMP: Helfer auf eigenen Kopien, die nur über das Table
+		 * mitarbeiten. Die Suche selbst wird dann nicht aufgeteilt.
+		 */
+		boolean lazySmp = generalAttributes.getUseParallelization()
+				&& generalAttributes.getUseLazySmp()
+				&& generalAttributes.getThreads() > 1;
+		LinkedList<LazySmpHelper> helpers = new LinkedList<LazySmpHelper>();
+
+		if (lazySmp) {
+			for (int i = 1; i < generalAttributes.getThreads(); i++) {
+				AlphaBeta helperAlphaBeta = new AlphaBeta(messageWriter,
+						generalAttributes);
+
+				helperAlphaBeta.setTransposition(transposition);
+				helperAlphaBeta.setOldBoardHash(oldBoardHash);
+				helperAlphaBeta.setRepetitionCounter(super.repetitionCounter);
+				helperAlphaBeta.setEvaluation(new SimpleEvaluation(
+						generalAttributes));
+
+				LazySmpHelper helper = new LazySmpHelper(helperAlphaBeta,
+						board.cloneBitboard(), generalAttributes, i);
+				helpers.add(helper);
+				helper.start();
+			}
+		}
+
+		long startTime = System.currentTimeMillis();
+		long lastDepthTime = 0;
+
 		for (int depth = initDepth; depth <= finalDepth; depth++) {
 
 			messageWriter.sendMessage("log Iterative deepening at depth = "
 					+ depth);
 
-			tmpResultList = null;
+			/*
+			 * Aspiration (Option "aspiration"): erst ein enges Fenster um den
+			 * letzten Wert. Fällt der Wert heraus (fail-soft, also mit dem
+			 * Wert als Richtung), wird nur die betroffene Seite vervierfacht
+			 * und neu gesucht.
+			 */
+			int alpha = -INFINITY;
+			int beta = INFINITY;
+			int lowerDelta = generalAttributes.getAspirationWindow();
+			int upperDelta = lowerDelta;
+			int researches = 0;
+
+			if (lowerDelta > 0 && depth >= ASPIRATION_DEPTH
+					&& resultLine.length > 0) {
+				alpha = max(super.bestScore - lowerDelta, -INFINITY);
+				beta = min(super.bestScore + upperDelta, INFINITY);
+			}
+
+			while (true) {
+				tmpScore = alphaBeta.alphaBeta(searchBoard, context, depth,
+						true, generalAttributes.getColor(), 4, alpha, beta,
+						generalAttributes.getUseMemory(),
+						generalAttributes.getMoveOrdering(), true, depth,
+						generalAttributes.getUseQuiescence(),
+						generalAttributes.getUseParallelization() && !lazySmp,
+						false);
+
+				if (context.isStopped()) {
+					break;
+				}
+
+				if (tmpScore <= alpha && alpha > -INFINITY) {
+					lowerDelta *= 4;
+					alpha = max(tmpScore - lowerDelta, -INFINITY);
+				} else if (tmpScore >= beta && beta < INFINITY) {
+					upperDelta *= 4;
+					beta = min(tmpScore + upperDelta, INFINITY);
+				} else {
+					break;
+				}
+
+				researches++;
+			}
+
+			/* Abgebrochene Iteration verwerfen */
+			if (context.isStopped()) {
+				break;
+			}
+
+			resultLine = context.getPv(depth);
+			super.bestScore = tmpScore;
+
+			/* Time-to-depth, um den Nutzen des Tables über Züge zu messen */
+			long depthTime = System.currentTimeMillis() - startTime;
 
-			tmpResultList = alphaBeta.alphaBeta(board, depth, true,
-					generalAttributes.getColor(), 4, -1000000000, 1000000000,
-					generalAttributes.getUseMemory(),
-					generalAttributes.getMoveOrdering(), true, depth, false,
-					generalAttributes.getUseParallelization(), false);
+			messageWriter.sendMessage("log depth " + depth + " finished after "
+					+ depthTime + " ms, score " + tmpScore + " ("
+					+ researches + " re-searches), "
+					+ context.getStatistics().getNodesVisited() + " nodes, "
+					+ context.getStatistics().getNodesVisited() * 1000
+					/ Math.max(depthTime, 1) + " nodes/s, "
+					+ context.getStatistics().getCutoffStatistics());
 
-			if (!super.isAllowedToRun) {
+			if (super.cancellation.isCancelled()) {
 				break;
 			}
 
-			resultList = tmpResultList;
+			/* Zeitverwaltung: lohnt sich noch eine Iteration? */
+			if (super.timeManager != null
+					&& !super.timeManager.iterationFinished(resultLine, tmpScore,
+							depthTime - lastDepthTime)) {
+				break;
+			}
+
+			lastDepthTime = depthTime;
 		}
 
-		// System.out.println(resultList);
+		// System.out.println(resultLine);
+
+		super.leafNodesVisited = (int) context.getStatistics()
+				.getNodesVisited();
 
-		timeControllerThread.interrupt();
+		messageWriter.sendMessage("log "
+				+ context.getStatistics().getTableStatistics());
+
+		if (lazySmp) {
+			long estimatedTime = System.currentTimeMillis() - startTime;
+			long nodes = context.getStatistics().getNodesVisited();
+
+			for (LazySmpHelper helper : helpers) {
+				helper.stop();
+				nodes += helper.getNodesVisited();
+			}
 
-		super.leafNodesVisited = alphaBeta.getNodesVisited();
+			messageWriter.sendMessage("log lazy smp: " + (helpers.size() + 1)
+					+ " threads, " + nodes + " nodes, " + nodes * 1000
+					/ Math.max(estimatedTime, 1) + " nodes/s");
+		}
 
-		return resultList;
+		return resultLine;
 	}
 
 	@Override
@@ -115,41 +240,33 @@ public class IterativeDeepening extends Engine {
 		long startTime = System.currentTimeMillis();
 
 		/*
-		 * Dem Board eine Instanz des Transposition-Tables mitgeben, damit damit
-		 * ein Makemove funktioniert
-		 */
-		board.setTransposition(transposition);
-
-		/*
-		 * Den Zobrist-Hash bei jedem neuen Zug neu initialisieren!
+		 * Das Table (nur beim ersten Mal oder bei neuer Größe) reservieren.
+		 * Einträge vorheriger Züge bleiben erhalten und altern nur, gelöscht
+		 * wird erst bei "newgame".
 		 */
-		// board.setZobristHash(transposition.generateZobristHashForTable(board));
-
-		/*
-		 * das Transposition-Table neu aufsetzen, dass alte Memory-Einträge
-		 * gelöscht werden!
-		 */
-		transposition.clearTable();
+		transposition.initTranspsition(generalAttributes.getHash());
+		transposition.newSearch();
 
 		// System.out.println("Hash des Boards == '" + board.hashCode() + "'.");
 
-		super.bestMove = iterativeDeepening(board);
+		super.bestLine = iterativeDeepening(board);
 
 		/*
 		 * Panic-Search --> Es wurde ein leerer Move ermittelt... Jetzt einen
 		 * Zug ermitteln mit maximal 3 Rekursionen. Das sollte in 0-1 sek zu
-		 * schaffen sein!
+		 * schaffen sein! Die Zeit ist dann schon um, die Zeitverwaltung
+		 * beendet die Suche nach der ersten Iteration.
 		 */
-		if (super.bestMove.size() == 0) {
-			super.isAllowedToRun = true;
+		if (super.bestLine.length == 0 && !super.pondering) {
+			super.cancellation.reset();
 			messageWriter.sendMessage("log PANIC SEARCH ACTIVATED!!!!!");
-			super.bestMove = iterativeDeepening(board);
+			super.bestLine = iterativeDeepening(board);
 		}
 
 		long estimatedTime = System.currentTimeMillis() - startTime;
 
 		messageWriter.sendMessage("log finished calculating best move"
-				+ ((super.isAllowedToRun == true) ? " all by himself :-)"
+				+ ((!super.cancellation.isCancelled()) ? " all by himself :-)"
 						: ", being interrupted by the timer..."));
 
 		messageWriter.sendMessage("log time used: " + estimatedTime / 1000);
@@ -158,28 +275,39 @@ public class IterativeDeepening extends Engine {
 				+ new SimpleEvaluation(generalAttributes).evaluateBoardState(
 						board, false));
 
-		messageWriter.sendMessage("log score: "
-				+ ((MoveScore) super.bestMove.getLast()).getScore());
+		messageWriter.sendMessage("log score: " + super.bestScore);
 
-		messageWriter.sendMessage("log node count: " + super.leafNodesVisited);
+		messageWriter.sendMessage("log node count: " + super.leafNodesVisited + " ("
+				+ (long) super.leafNodesVisited * 1000 / Math.max(estimatedTime, 1)
+				+ " nodes/s)");
 
 		messageWriter.sendMessage("log used memory: "
 				+ (Runtime.getRuntime().totalMemory() - Runtime.getRuntime()
 						.freeMemory()) / (1024 * 1024) + "mb");
 
+		messageWriter.sendMessage("log " + transposition.getStatistics());
+
 		/* Ausgabe des besten Moves! */
-		if (super.printBestMove) {
-			messageWriter.sendMessage(getBestMove());
-		}
+		finishSearch();
 
 	}
 
 	@Override
 	public void newThread() {
 		super.ownThread = new Thread(this);
-		super.bestMove = new LinkedList<Move>();
-		super.isAllowedToRun = true;
+		super.bestLine = new int[0];
+		super.cancellation.reset();
+
+	}
 
+	@Override
+	public int[] getExpectedReply(Bitboard board) {
+		return followHashMoves(transposition, board);
+	}
+
+	@Override
+	public void newGame() {
+		transposition.clearTable();
 	}
 
 }
@@ -0,0 +1,96 @@
+package engine;
+
+import java.util.Random;
+
+import board.Bitboard;
+
+/**
+ * Helfer-Thread für Lazy SMP: rechnet auf einer eigenen Kopie des Boards
+ * dasselbe Iterative Deepening wie der Haupt-Thread, nur ohne Ergebnis. Der
+ * Nutzen entsteht allein über das gemeinsame Transposition-Table, in das alle
+ * Threads schreiben. Damit die Threads nicht exakt denselben Baum in
+ * derselben Reihenfolge durchlaufen, starten die Helfer versetzt, nehmen auf
+ * jeder Tiefe zuerst einen anderen Wurzel-Zug und starten mit einer
+ * verrauschten History (Seed = Nummer des Helfers). Damit weichen auch die
+ * Reihenfolgen unterhalb der Wurzel voneinander ab, bis echte Cut-offs das
+ * Rauschen überwiegen.
+ *
+ * @author maurice
+ *
+ */
+public class LazySmpHelper implements Runnable {
+
+	/* Eigene Alpha-Beta-Instanz mit gemeinsamem Transposition-Table */
+	private AlphaBeta alphaBeta;
+
+	/* Eigene Kopie des Boards */
+	private Bitboard board;
+
+	private EngineGeneralAttributes generalAttributes;
+
+	/* Nummer des Helfers (ab 1), bestimmt die Variation */
+	private int index;
+
+	private Thread ownThread;
+
+	/*
+	 * Obergrenze des History-Rauschens. Ein Cut-off auf Tiefe d zählt
+	 * d * d + 1, das Rauschen entspricht also einigen flachen Cut-offs.
+	 */
+	private static final int HISTORY_NOISE = 64;
+
+	/* Zug-Listen und Zähler des Helfers über alle Iterationen */
+	private SearchContext context = new SearchContext();
+
+	public LazySmpHelper(AlphaBeta alphaBeta, Bitboard board,
+			EngineGeneralAttributes generalAttributes, int index) {
+		this.alphaBeta = alphaBeta;
+		this.board = board;
+		this.generalAttributes = generalAttributes;
+		this.index = index;
+
+		context.seedHistory(new Random(index), HISTORY_NOISE);
+	}
+
+	public void start() {
+		alphaBeta.newThread();
+		ownThread = new Thread(this);
+		ownThread.setDaemon(true);
+		ownThread.start();
+	}
+
+	/**
+	 * Hält den Helfer an und wartet, bis er die Suche verlassen hat.
+	 */
+	public void stop() {
+		alphaBeta.stopThread();
+		try {
+			ownThread.join();
+		} catch (InterruptedException e) {
+		}
+	}
+
+	/**
+	 * Besuchte Knoten des Helfers, erst nach stop() vollständig.
+	 */
+	public long getNodesVisited() {
+		return context.getStatistics().getNodesVisited();
+	}
+
+	public void run() {
+
+		/* Jeder zweite Helfer ist eine Tiefe voraus */
+		for (int depth = 1 + (index & 1); depth <= generalAttributes
+				.getDepth() && alphaBeta.isAllowedToRun(); depth++) {
+
+			alphaBeta.setRootRotation(index);
+
+			alphaBeta.alphaBeta(board, context, depth, true,
+					generalAttributes.getColor(), 4, -1000000000, 1000000000,
+					generalAttributes.getUseMemory(),
+					generalAttributes.getMoveOrdering(), true, depth,
+					generalAttributes.getUseQuiescence(), false, false);
+		}
+	}
+
+}
@@ -0,0 +1,274 @@
+package engine;
+
+import memory.Transposition;
+import network.MessageOutputWriter;
+import board.Bitboard;
+import evaluation.SimpleEvaluation;
+
+/**
+ * MTD(f) nach Plaat: Statt einer Suche mit vollem Fenster wird der Wert jeder
+ * Tiefe mit mehreren Null-Fenster-Suchen (alpha = gamma - 1, beta = gamma)
+ * eingegrenzt, bis obere und untere Schranke zusammenfallen. Jede Suche
+ * liefert (fail-soft) eine neue Schranke, die nächste setzt dort an.
+ *
+ * Die Werte der Evaluierung sind sehr fein, mit Schritten von 1 braucht eine
+ * Tiefe oft mehrere hundert Suchen. Geht die Schranke mehrmals in dieselbe
+ * Richtung, wird der Schritt deshalb verdoppelt (und auf das Intervall
+ * zwischen den Schranken begrenzt).
+ *
+ * Das funktioniert nur mit dem Transposition-Table, das die Schranken und
+ * besten Züge der vorherigen Durchläufe hält. Die Suche selbst ist das
+ * normale Alpha-Beta, der Startwert jeder Tiefe der Wert der vorherigen.
+ *
+ * @author maurice
+ */
+public class MTDf extends Engine {
+
+	/* Größer als jeder Wert der Evaluierung */
+	private static final int INFINITY = 1000000000;
+
+	/* Wie IterativeDeepening: Tiefe 0 liefert keinen Zug */
+	private static final int START_DEPTH = 1;
+
+	/**
+	 * Private Instanz der Memory-Haltung (Transposition-Table)
+	 */
+	private Transposition transposition;
+
+	/* Anzahl der Null-Fenster-Suchen des letzten mtdf() */
+	private int passes;
+
+	/* Zugfolge des letzten mtdf(), leer wenn keine gefunden */
+	private int[] line = new int[0];
+
+	public MTDf(MessageOutputWriter messageWriter,
+			EngineGeneralAttributes generalAttributes) {
+		super(messageWriter, generalAttributes);
+
+		this.transposition = new Transposition(generalAttributes.getHash());
+	}
+
+	/**
+	 * Berechnet den Wert einer Tiefe mit Null-Fenster-Suchen. Die Zugfolge
+	 * steht danach in getLine(), die Anzahl der Suchen in getPasses().
+	 *
+	 * @param alphaBeta
+	 *            Alpha-Beta-Instanz mit Transposition-Table
+	 * @param context
+	 *            Kontext der Suche
+	 * @param board
+	 *            Das Board (wird mit makeMove/unmakeMove verändert)
+	 * @param depth
+	 *            Rekursionstiefe
+	 * @param guess
+	 *            erste Schätzung, meist der Wert der vorherigen Tiefe
+	 * @return der Wert der Wurzel, ungültig wenn context.isStopped()
+	 */
+	public int mtdf(AlphaBeta alphaBeta, SearchContext context, Bitboard board,
+			int depth, int guess) {
+
+		int value = guess;
+		int lowerBound = -INFINITY;
+		int upperBound = INFINITY;
+
+		passes = 0;
+		line = new int[0];
+
+		/* Schrittweite und Richtung der letzten Suche */
+		int step = 1;
+		boolean lastHigh = false;
+
+		while (lowerBound < upperBound) {
+			int gamma = (value == lowerBound) ? value + step : value - step + 1;
+			gamma = max(lowerBound + 1, min(upperBound, gamma));
+
+			/* Mit Null-Fenster gibt es keine PV-Knoten, also kein Aufteilen */
+			value = alphaBeta.alphaBeta(board, context, depth, true,
+					generalAttributes.getColor(), 4, gamma - 1, gamma, true,
+					generalAttributes.getMoveOrdering(), true, depth,
+					generalAttributes.getUseQuiescence(), false, false);
+
+			if (context.isStopped()) {
+				break;
+			}
+
+			passes++;
+
+			boolean high = value >= gamma;
+			step = (passes > 1 && high == lastHigh) ? step * 2 : 1;
+			lastHigh = high;
+
+			if (value < gamma) {
+				upperBound = value;
+			} else {
+
+				/*
+				 * Nur ein Fail-high liefert einen Zug an der Wurzel, der vom
+				 * letzten ist der mit dem endgültigen Wert.
+				 */
+				lowerBound = value;
+				line = context.getPv(depth);
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * Iterative Deepening über mtdf(), jede Tiefe startet mit dem Wert der
+	 * vorherigen.
+	 *
+	 * @param board
+	 *            Der Root-Knoten
+	 * @return die Zugfolge der tiefsten vollständigen Iteration, der
+	 *         zugehörige Score steht danach in bestScore
+	 */
+	private int[] iterativeDeepening(Bitboard board) {
+
+		int[] resultLine = new int[0];
+
+		AlphaBeta alphaBeta = new AlphaBeta(messageWriter, generalAttributes);
+
+		alphaBeta.setTransposition(transposition);
+		alphaBeta.setCancellation(super.cancellation);
+		alphaBeta.setOldBoardHash(super.repetitionCounter.getBoardHash(board));
+		alphaBeta.setRepetitionCounter(super.repetitionCounter);
+
+		SimpleEvaluation eval = new SimpleEvaluation(generalAttributes);
+		alphaBeta.setEvaluation(eval);
+
+		SearchContext context = new SearchContext();
+		Bitboard searchBoard = board.cloneBitboard();
+
+		/* Die erste Schätzung ist die Evaluierung der Wurzel */
+		int guess = eval.evaluateBoardState(board, false);
+
+		int initDepth = Math.min(START_DEPTH, generalAttributes.getDepth());
+		int finalDepth = generalAttributes.getDepth();
+
+		long startTime = System.currentTimeMillis();
+		long lastDepthTime = 0;
+
+		for (int depth = initDepth; depth <= finalDepth; depth++) {
+
+			messageWriter.sendMessage("log MTD(f) at depth = " + depth);
+
+			int value = mtdf(alphaBeta, context, searchBoard, depth, guess);
+
+			/* Abgebrochene Iteration verwerfen */
+			if (context.isStopped()) {
+				break;
+			}
+
+			guess = value;
+			super.bestScore = value;
+
+			if (line.length > 0) {
+				resultLine = line;
+			}
+
+			long depthTime = System.currentTimeMillis() - startTime;
+
+			messageWriter.sendMessage("log depth " + depth + " finished after "
+					+ depthTime + " ms, score " + value + " (" + passes
+					+ " passes), " + context.getStatistics().getNodesVisited()
+					+ " nodes, " + context.getStatistics().getNodesVisited()
+					* 1000 / Math.max(depthTime, 1) + " nodes/s, "
+					+ context.getStatistics().getCutoffStatistics());
+
+			if (super.cancellation.isCancelled()) {
+				break;
+			}
+
+			/* Zeitverwaltung: lohnt sich noch eine Iteration? */
+			if (super.timeManager != null
+					&& !super.timeManager.iterationFinished(resultLine, value,
+							depthTime - lastDepthTime)) {
+				break;
+			}
+
+			lastDepthTime = depthTime;
+		}
+
+		super.leafNodesVisited = (int) context.getStatistics()
+				.getNodesVisited();
+
+		messageWriter.sendMessage("log "
+				+ context.getStatistics().getTableStatistics());
+
+		return resultLine;
+	}
+
+	@Override
+	public void run() {
+
+		super.leafNodesVisited = 0;
+
+		long startTime = System.currentTimeMillis();
+
+		/* Das Table bleibt wie bei IterativeDeepening über Züge erhalten */
+		transposition.initTranspsition(generalAttributes.getHash());
+		transposition.newSearch();
+
+		super.bestLine = iterativeDeepening(board);
+
+		/* Panic-Search, siehe IterativeDeepening */
+		if (super.bestLine.length == 0 && !super.pondering) {
+			super.cancellation.reset();
+			messageWriter.sendMessage("log PANIC SEARCH ACTIVATED!!!!!");
+			super.bestLine = iterativeDeepening(board);
+		}
+
+		long estimatedTime = System.currentTimeMillis() - startTime;
+
+		messageWriter.sendMessage("log finished calculating best move"
+				+ ((!super.cancellation.isCancelled()) ? " all by himself :-)"
+						: ", being interrupted by the timer..."));
+
+		messageWriter.sendMessage("log time used: " + estimatedTime / 1000);
+
+		messageWriter.sendMessage("log score: " + super.bestScore);
+
+		messageWriter.sendMessage("log node count: " + super.leafNodesVisited
+				+ " (" + (long) super.leafNodesVisited * 1000
+				/ Math.max(estimatedTime, 1) + " nodes/s)");
+
+		messageWriter.sendMessage("log " + transposition.getStatistics());
+
+		/* Ausgabe des besten Moves! */
+		finishSearch();
+
+	}
+
+	@Override
+	public void newThread() {
+		super.ownThread = new Thread(this);
+		super.bestLine = new int[0];
+		super.cancellation.reset();
+	}
+
+	@Override
+	public int[] getExpectedReply(Bitboard board) {
+		return followHashMoves(transposition, board);
+	}
+
+	@Override
+	public void newGame() {
+		transposition.clearTable();
+	}
+
+	/**
+	 * Anzahl der Null-Fenster-Suchen des letzten mtdf().
+	 */
+	public int getPasses() {
+		return passes;
+	}
+
+	/**
+	 * Zugfolge des letzten mtdf().
+	 */
+	public int[] getLine() {
+		return line;
+	}
+
+}
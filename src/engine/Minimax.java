@@ -1,12 +1,9 @@
 package engine;
 
-import java.util.LinkedList;
-
 import network.MessageOutputWriter;
 import board.Bitboard;
-import board.Constants;
-import board.Move;
-import board.MoveScore;
+import board.MoveList;
+import board.Step;
 import evaluation.Evaluation;
 import evaluation.SimpleEvaluation;
 import evaluation.TestEvaluation;
@@ -35,69 +32,64 @@ public class Minimax extends Engine {
 	 *            Die jeweilige Farbe
 	 * @param moveNr
 	 *            Überprüfung, dass 4 Züge pro Spieler möglich sind.
+	 * @param context
+	 *            Thread-eigene Daten der Suche (Zug-Listen und Hauptvariante
+	 *            je Tiefe)
+	 * @return der Score des Knotens, die zugehörige Zugfolge steht danach in
+	 *         context.getPv(depth)
 	 */
-	public LinkedList<Move> minimax(Bitboard board, int depth,
+	public int minimax(Bitboard board, SearchContext context, int depth,
 			boolean maximizingPlayer, int color, int moveNr) {
 
-		/* Generiert Liste mit allen verfügbaren Moves! */
-		LinkedList<Move> oneMoveList = moveGen.generateAllColorMoves(board,
-				color);
+		context.clearPv(depth);
 
-		/* Rekursionsabbruch */
-		if (depth == 0 || oneMoveList.size() == 0 || !super.isAllowedToRun) {
+		/* Rekursionsabbruch, ohne dafür eine Zug-Liste zu generieren */
+		if (depth == 0 || super.cancellation.isCancelled()
+				|| !moveGen.hasAnyMove(board, color)) {
 
-			 Evaluation eval = new SimpleEvaluation(generalAttributes);
-			
-			 Move move = new MoveScore(eval.evaluateBoardState(board, false));
-			
-			 LinkedList<Move> res = new LinkedList<Move>();
-			 res.add(move);
+			Evaluation eval = new SimpleEvaluation(generalAttributes);
 
-//			LinkedList<Move> res = new LinkedList<Move>();
-//			res.add(new MoveScore(5));
 			super.leafNodesVisited++;
-			return res;
+			return eval.evaluateBoardState(board, false);
 		}
 
+		/* Generiert Liste mit allen verfügbaren Moves! */
+		MoveList oneMoveList = context.getMoveList(depth);
+		moveGen.generateAllColorMoves(board, color, oneMoveList);
+
 		if (maximizingPlayer) {
-			LinkedList<Move> bestValue = new LinkedList<Move>();
-			bestValue.add(new MoveScore(-1000000000));
+			int bestValue = -1000000000;
 
 			/* Schleife über alle Kinder */
-			for (Move move : oneMoveList) {
-				Bitboard newBoard = board.cloneBitboard();
+			for (int i = 0; i < oneMoveList.size(); i++) {
+				int move = oneMoveList.get(i);
 				int newMoveNumber = moveNr - 1;
 
-				/* Zug anwenden */
-				newBoard.applyMoveAndRemovePieces(move);
-
-				if (move.getMoveType() == Constants.MoveType.SPECIAL) {
+				if (Step.isSpecial(move)) {
 					if (newMoveNumber < 1)
 						continue;
 
 					newMoveNumber--;
 				}
 
+				/* Zug anwenden */
+				board.makeMove(move);
+
 				/* Rekursion! */
-				LinkedList<Move> value = minimax(newBoard, depth - 1,
+				int value = minimax(board, context, depth - 1,
 						(newMoveNumber == 0) ? false : true,
 						(newMoveNumber == 0) ? otherColor(color) : color,
 						(newMoveNumber == 0) ? 4 : newMoveNumber);
 
-				/* Ist besser, als vorher? */
-				if (value.getLast().getMoveType() == Constants.MoveType.SCORE) {
-
-					if (((MoveScore) value.getLast()).getScore() > ((MoveScore) bestValue
-							.getLast()).getScore()) {
+				/* Zug zurücknehmen */
+				board.unmakeMove(move);
 
-						bestValue = value;
-						bestValue.addFirst(move);
+				/* Ist besser, als vorher? */
+				if (value > bestValue) {
 
-					}
+					bestValue = value;
+					context.updatePv(depth, move, context, depth - 1);
 
-				} else {
-					messageWriter
-							.sendMessage("log ERROR - last node not a MoveScore type!");
 				}
 
 			}
@@ -105,44 +97,38 @@ public class Minimax extends Engine {
 			return bestValue;
 
 		} else {
-			LinkedList<Move> bestValue = new LinkedList<Move>();
-			bestValue.add(new MoveScore(1000000000));
+			int bestValue = 1000000000;
 
 			/* Schleife über alle Kinder */
-			for (Move move : oneMoveList) {
-				Bitboard newBoard = board.cloneBitboard();
+			for (int i = 0; i < oneMoveList.size(); i++) {
+				int move = oneMoveList.get(i);
 				int newMoveNumber = moveNr - 1;
 
-				/* Zug anwenden */
-				newBoard.applyMoveAndRemovePieces(move);
-
-				if (move.getMoveType() == Constants.MoveType.SPECIAL) {
+				if (Step.isSpecial(move)) {
 					if (newMoveNumber < 1)
 						continue;
 
 					newMoveNumber--;
 				}
 
+				/* Zug anwenden */
+				board.makeMove(move);
+
 				/* Rekursion! */
-				LinkedList<Move> value = minimax(newBoard, depth - 1,
+				int value = minimax(board, context, depth - 1,
 						(newMoveNumber == 0) ? true : false,
 						(newMoveNumber == 0) ? otherColor(color) : color,
 						(newMoveNumber == 0) ? 4 : newMoveNumber);
 
-				/* Ist besser, als der vorher? */
-				if (value.getLast().getMoveType() == Constants.MoveType.SCORE) {
-
-					if (((MoveScore) value.getLast()).getScore() < ((MoveScore) bestValue
-							.getLast()).getScore()) {
+				/* Zug zurücknehmen */
+				board.unmakeMove(move);
 
-						bestValue = value;
-						bestValue.addFirst(move);
+				/* Ist besser, als der vorher? */
+				if (value < bestValue) {
 
-					}
+					bestValue = value;
+					context.updatePv(depth, move, context, depth - 1);
 
-				} else {
-					messageWriter
-							.sendMessage("log ERROR - last node not a MoveScore type!");
 				}
 
 			}
@@ -159,8 +145,14 @@ public class Minimax extends Engine {
 
 		long startTime = System.currentTimeMillis();
 		
-		super.bestMove = minimax(board, super.generalAttributes.getDepth(),
+		/* Eigene Kopie für makeMove/unmakeMove */
+		Bitboard searchBoard = board.cloneBitboard();
+		SearchContext context = new SearchContext();
+
+		super.bestScore = minimax(searchBoard, context,
+				super.generalAttributes.getDepth(),
 				true, super.generalAttributes.getColor(), 4);
+		super.bestLine = context.getPv(super.generalAttributes.getDepth());
 
 		long estimatedTime = System.currentTimeMillis() - startTime;
 		
@@ -171,15 +163,16 @@ public class Minimax extends Engine {
 		 * Zug ermitteln mit maximal 2 Rekursionen. Das sollte in 0-1 sek zu
 		 * schaffen sein!
 		 */
-		if (super.bestMove.size() == 0) {
-			super.isAllowedToRun = true;
+		if (super.bestLine.length == 0) {
+			super.cancellation.reset();
 			messageWriter.sendMessage("log PANIC SEARCH ACTIVATED!!!!!");
-			super.bestMove = minimax(board, 3, true,
+			super.bestScore = minimax(searchBoard, context, 3, true,
 					super.generalAttributes.getColor(), 4);
+			super.bestLine = context.getPv(3);
 		}
 
 		messageWriter.sendMessage("log finished calculating best move"
-				+ ((super.isAllowedToRun == true) ? " all by himself :-)"
+				+ ((!super.cancellation.isCancelled()) ? " all by himself :-)"
 						: ", being interrupted by the timer..."));
 		
 		messageWriter.sendMessage("log time used: " + estimatedTime / 1000);
@@ -188,14 +181,13 @@ public class Minimax extends Engine {
 				+ new TestEvaluation(generalAttributes).evaluateBoardState(
 						board, false));
 
-		messageWriter.sendMessage("log score: "
-				+ ((MoveScore) super.bestMove.getLast()).getScore());
-		messageWriter.sendMessage("log node count: " + super.leafNodesVisited);
+		messageWriter.sendMessage("log score: " + super.bestScore);
+		messageWriter.sendMessage("log node count: " + super.leafNodesVisited + " ("
+				+ (long) super.leafNodesVisited * 1000 / Math.max(estimatedTime, 1)
+				+ " nodes/s)");
 
 		/* Ausgabe des besten Moves! */
-		if (super.printBestMove) {
-			messageWriter.sendMessage(getBestMove());
-		}
+		finishSearch();
 
 	}
 
@@ -206,7 +198,7 @@ public class Minimax extends Engine {
 	 */
 	public void newThread() {
 		super.ownThread = new Thread(this);
-		super.bestMove = new LinkedList<Move>();
-		super.isAllowedToRun = true;
+		super.bestLine = new int[0];
+		super.cancellation.reset();
 	}
 }
@@ -0,0 +1,343 @@
+package engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import board.MoveList;
+
+/**
+ * Knoten-Speicher der Monte-Carlo-Suche als Arrays statt als Objekte. Ein
+ * Knoten ist ein Index, seine Kinder liegen als zusammenhängender Block
+ * hintereinander (erstes Kind + Anzahl). Jeder Knoten steht für einen
+ * einzelnen Schritt bzw. Push/Pull.
+ *
+ * Alle Such-Threads arbeiten ohne Locks auf demselben Baum: Besuche und Werte
+ * werden atomar hochgezählt, Blöcke für Kinder über einen gemeinsamen Zähler
+ * vergeben. Expandiert wird ein Knoten nur von dem Thread, der ihn als
+ * erster für sich markiert, erst danach sehen die anderen seine Kinder.
+ *
+ * @author maurice
+ */
+public class MonteCarloTree {
+
+	/* Die Wurzel ist immer der erste Knoten */
+	public static final int ROOT = 0;
+
+	/* Zustände eines Knotens */
+	private static final int LEAF = 0;
+	private static final int EXPANDING = 1;
+	private static final int EXPANDED = 2;
+
+	/*
+	 * Speicher pro Knoten: Zug, erstes Kind, Anzahl Kinder, Besuche und
+	 * Zustand (je 4 Byte) sowie die Summe der Werte (8 Byte)
+	 */
+	private static final int NODE_BYTES = 28;
+
+	/* Werte (0 bis 1) werden als Festkomma-Zahlen aufsummiert */
+	private static final double VALUE_SCALE = 1 << 16;
+
+	private int capacity = 0;
+
+	private int[] moves;
+	private int[] firstChild;
+	private int[] childCount;
+	private AtomicIntegerArray visits;
+	private AtomicIntegerArray state;
+	private AtomicLongArray values;
+
+	/* Anzahl vergebener Knoten */
+	private AtomicInteger nodeCount = new AtomicInteger(0);
+
+	/* Obergrenze für die Zwischen-Arrays von reroot() */
+	private static final int REROOT_MAX_NODES = 1 << 20;
+
+	/* Zwischen-Arrays von reroot(), bleiben zwischen den Zügen erhalten */
+	private int[] rerootIndex = new int[0];
+	private int[] rerootMoves = new int[0];
+	private int[] rerootVisits = new int[0];
+	private long[] rerootValues = new long[0];
+
+	/**
+	 * Reserviert den Speicher (nur beim ersten Mal oder bei neuer Größe) und
+	 * leert den Baum bis auf die Wurzel.
+	 *
+	 * @param size
+	 *            Größe des Speichers in MB
+	 */
+	public void init(int size) {
+		int newCapacity = getNodeCount(size);
+
+		if (newCapacity != capacity) {
+			moves = null;
+			firstChild = null;
+			childCount = null;
+			visits = null;
+			state = null;
+			values = null;
+			rerootIndex = new int[0];
+			rerootMoves = new int[0];
+			rerootVisits = new int[0];
+			rerootValues = new long[0];
+
+			capacity = newCapacity;
+			moves = new int[capacity];
+			firstChild = new int[capacity];
+			childCount = new int[capacity];
+			visits = new AtomicIntegerArray(capacity);
+			state = new AtomicIntegerArray(capacity);
+			values = new AtomicLongArray(capacity);
+		}
+
+		nodeCount.set(1);
+		clearNode(ROOT, 0);
+	}
+
+	/**
+	 * Ob der Speicher schon mit dieser Größe reserviert ist (und der Baum
+	 * damit weiterverwendet werden kann).
+	 */
+	public boolean isAllocated(int size) {
+		return capacity == getNodeCount(size);
+	}
+
+	/**
+	 * Macht einen Knoten zur neuen Wurzel: sein Teilbaum wird an den Anfang
+	 * des Speichers kopiert (Breitensuche, Kinder bleiben zusammenhängend),
+	 * der Rest ist danach frei. Darf nur aufgerufen werden, wenn keine Suche
+	 * läuft.
+	 *
+	 * Kopiert wird über Zwischen-Arrays, die von Zug zu Zug wiederverwendet
+	 * werden. Sie wachsen höchstens auf maxRerootNodes(), ein größerer
+	 * Teilbaum wird nicht übernommen.
+	 *
+	 * @param node
+	 *            die neue Wurzel
+	 * @return Anzahl der übernommenen Knoten, -1 wenn der Teilbaum zu groß ist
+	 *         (der Baum ist dann unverändert, der Aufrufer nimmt init())
+	 */
+	public int reroot(int node) {
+
+		int max = maxRerootNodes();
+
+		/*
+		 * Alte Indizes in Breitensuche-Reihenfolge = neue Indizes. Die Liste
+		 * ist zugleich die Warteschlange, die Größe ergibt sich dabei.
+		 */
+		int[] oldIndex = growScratch(rerootIndex, 1);
+		oldIndex[0] = node;
+		int next = 1;
+
+		for (int i = 0; i < next; i++) {
+			int old = oldIndex[i];
+
+			if (state.get(old) == EXPANDED) {
+				if (next + childCount[old] > max) {
+					rerootIndex = oldIndex;
+					return -1;
+				}
+
+				oldIndex = growScratch(oldIndex, next + childCount[old]);
+
+				for (int child = 0; child < childCount[old]; child++) {
+					oldIndex[next++] = firstChild[old] + child;
+				}
+			}
+		}
+
+		int count = next;
+
+		rerootIndex = oldIndex;
+		rerootMoves = growScratch(rerootMoves, count);
+		rerootVisits = growScratch(rerootVisits, count);
+		rerootValues = (rerootValues.length >= count) ? rerootValues
+				: new long[Math.min(2 * count, max)];
+
+		for (int i = 0; i < count; i++) {
+			int old = oldIndex[i];
+
+			rerootMoves[i] = moves[old];
+			rerootVisits[i] = visits.get(old);
+			rerootValues[i] = values.get(old);
+
+			/*
+			 * Nur die Anzahl der Kinder wird gebraucht, die Blöcke liegen in
+			 * derselben Reihenfolge wie die Väter. childCount wird hier noch
+			 * nicht überschrieben, oldIndex[i] kann ein späterer Index sein.
+			 */
+			oldIndex[i] = (state.get(old) == EXPANDED) ? childCount[old] : -1;
+		}
+
+		next = 1;
+
+		for (int i = 0; i < count; i++) {
+			moves[i] = rerootMoves[i];
+			visits.set(i, rerootVisits[i]);
+			values.set(i, rerootValues[i]);
+
+			if (oldIndex[i] >= 0) {
+				state.set(i, EXPANDED);
+				firstChild[i] = next;
+				childCount[i] = oldIndex[i];
+				next += oldIndex[i];
+			} else {
+				state.set(i, LEAF);
+				firstChild[i] = 0;
+				childCount[i] = 0;
+			}
+		}
+
+		nodeCount.set(count);
+
+		return count;
+	}
+
+	/**
+	 * Höchstens so viele Knoten werden von reroot() übernommen. Damit bleiben
+	 * die Zwischen-Arrays (20 Byte pro Knoten) klein gegen den Baum (28 Byte
+	 * pro Knoten) und haben eine feste Obergrenze.
+	 */
+	private int maxRerootNodes() {
+		return Math.max(Math.min(REROOT_MAX_NODES, capacity / 8), 1);
+	}
+
+	/**
+	 * Gibt das Array zurück, wenn es groß genug ist, sonst ein doppelt so
+	 * großes (höchstens maxRerootNodes()) mit demselben Inhalt.
+	 */
+	private int[] growScratch(int[] array, int size) {
+		if (array.length >= size) {
+			return array;
+		}
+
+		int[] grown = new int[Math.max(Math.min(2 * size, maxRerootNodes()),
+				size)];
+		System.arraycopy(array, 0, grown, 0, array.length);
+
+		return grown;
+	}
+
+	/**
+	 * Anzahl Knoten, die in size MB passen. Wie beim Transposition-Table wird
+	 * höchstens die Hälfte des Heaps genommen.
+	 */
+	private static int getNodeCount(int size) {
+		long bytes = Math.min((long) Math.max(size, 1) << 20, Runtime
+				.getRuntime().maxMemory() / 2);
+
+		return (int) Math.min(Math.max(bytes / NODE_BYTES, 1),
+				Integer.MAX_VALUE - 1);
+	}
+
+	private void clearNode(int node, int move) {
+		moves[node] = move;
+		firstChild[node] = 0;
+		childCount[node] = 0;
+		visits.set(node, 0);
+		values.set(node, 0L);
+		state.set(node, LEAF);
+	}
+
+	/**
+	 * Markiert einen Blatt-Knoten für die Expansion durch den aufrufenden
+	 * Thread.
+	 *
+	 * @return false, wenn er schon expandiert ist oder gerade expandiert wird
+	 */
+	public boolean tryLock(int node) {
+		return state.compareAndSet(node, LEAF, EXPANDING);
+	}
+
+	/**
+	 * Hängt die Züge als Kinder an einen mit tryLock() markierten Knoten.
+	 *
+	 * @param node
+	 *            der Knoten
+	 * @param moveList
+	 *            die Züge der Kinder
+	 * @return false, wenn der Speicher voll ist. Der Knoten bleibt dann ein
+	 *         Blatt.
+	 */
+	public boolean expand(int node, MoveList moveList) {
+		int count = moveList.size();
+		int first = nodeCount.getAndAdd(count);
+
+		if (first + count > capacity || first + count < 0) {
+			state.set(node, LEAF);
+			return false;
+		}
+
+		for (int i = 0; i < count; i++) {
+			clearNode(first + i, moveList.get(i));
+		}
+
+		firstChild[node] = first;
+		childCount[node] = count;
+
+		/* Erst jetzt sehen andere Threads die Kinder */
+		state.set(node, EXPANDED);
+
+		return true;
+	}
+
+	public boolean isExpanded(int node) {
+		return state.get(node) == EXPANDED;
+	}
+
+	public int getFirstChild(int node) {
+		return firstChild[node];
+	}
+
+	public int getChildCount(int node) {
+		return childCount[node];
+	}
+
+	/**
+	 * Der Zug, der zu dem Knoten führt.
+	 */
+	public int getMove(int node) {
+		return moves[node];
+	}
+
+	public int getVisits(int node) {
+		return visits.get(node);
+	}
+
+	/**
+	 * Summe der Werte aus Sicht der Seite, die den Zug zu diesem Knoten
+	 * gemacht hat.
+	 */
+	public double getValue(int node) {
+		return values.get(node) / VALUE_SCALE;
+	}
+
+	/**
+	 * Zählt einen Besuch schon beim Abstieg (Virtual Loss): Bis der Wert
+	 * dazukommt, sieht der Knoten für andere Threads wie eine Niederlage aus
+	 * und sie weichen auf andere Pfade aus.
+	 */
+	public void addVisit(int node) {
+		visits.incrementAndGet(node);
+	}
+
+	/**
+	 * Trägt den Wert eines Durchlaufs nach, der Besuch wurde schon mit
+	 * addVisit() gezählt.
+	 */
+	public void addValue(int node, double value) {
+		values.addAndGet(node, (long) (value * VALUE_SCALE));
+	}
+
+	/**
+	 * Anzahl belegter Knoten.
+	 */
+	public int getNodeCount() {
+		return Math.min(nodeCount.get(), capacity);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+}
@@ -0,0 +1,502 @@
+package engine;
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import network.MessageOutputWriter;
+import board.Bitboard;
+import board.MoveGenerator;
+import board.MoveList;
+import board.Step;
+import evaluation.SimpleEvaluation;
+
+/**
+ * Monte-Carlo-Tree-Search (UCT) über einzelne Schritte. Jeder Durchlauf steigt
+ * von der Wurzel über die Kinder mit dem besten UCB-Wert ab, expandiert das
+ * erreichte Blatt beim zweiten Besuch und bewertet die Stellung. Statt einer
+ * zufälligen Partie bis zum Ende (die in Arimaa kaum etwas aussagt) wird
+ * direkt die SimpleEvaluation genommen und auf eine Gewinn-Wahrscheinlichkeit
+ * zwischen 0 und 1 abgebildet.
+ *
+ * Parallelisiert wird über den Baum: Alle Threads arbeiten auf demselben
+ * MonteCarloTree, jeder mit eigener Kopie des Boards. Damit sie nicht alle
+ * denselben Pfad nehmen, zählt ein Besuch schon beim Abstieg (Virtual Loss).
+ *
+ * Die Suche läuft, bis die Zeitkontrolle oder "stop" sie beendet oder der
+ * Speicher für den Baum (Option "mctsmemory") voll ist. Gespielt wird der
+ * Pfad mit den meisten Besuchen. Steht im Baum auch der Zug, den der Gegner
+ * danach gespielt hat, rechnet die nächste Suche mit diesem Teilbaum weiter.
+ *
+ * @author maurice
+ */
+public class MonteCarloTreeSearch extends Engine {
+
+	/* Gewichtung der Exploration im UCB-Wert */
+	private static final double UCT_CONSTANT = 0.5;
+
+	/*
+	 * Evaluierung, bei der die Gewinn-Wahrscheinlichkeit etwa 73% ist. Die
+	 * Werte der SimpleEvaluation liegen meist zwischen -30000 und 30000.
+	 */
+	private static final double EVAL_SCALE = 10000.0;
+
+	/*
+	 * Anteil der Exploration, den unbesuchte Kinder zusätzlich zum Wert des
+	 * Vaters bekommen. Ohne ihn bleibt die Suche am ersten Kind hängen, das
+	 * besser als der Vater ist.
+	 */
+	private static final double FPU_EXPLORATION = 0.5;
+
+	/* Maximale Länge eines Pfades im Baum */
+	private static final int MAX_PATH = 256;
+
+	/* Knoten-Speicher, bleibt zwischen den Zügen reserviert */
+	private MonteCarloTree tree = new MonteCarloTree();
+
+	/* Anzahl der Durchläufe aller Threads */
+	private AtomicLong playouts = new AtomicLong(0);
+
+	/* Der Baum ist voll, alle Threads hören auf */
+	private volatile boolean treeFull;
+
+	/* Hash der Wurzel, ein Zug muss die Stellung verändern */
+	private long rootHash;
+
+	/* Wurzel und gespielter Zug der letzten Suche (für die Wiederverwendung) */
+	private Bitboard previousRoot = null;
+	private int[] previousLine = new int[0];
+
+	public MonteCarloTreeSearch(MessageOutputWriter messageWriter,
+			EngineGeneralAttributes generalAttributes) {
+		super(messageWriter, generalAttributes);
+	}
+
+	/**
+	 * Die Durchläufe eines Threads auf seiner eigenen Kopie des Boards.
+	 *
+	 * @param board
+	 *            Kopie der Wurzel
+	 */
+	private void search(Bitboard board) {
+
+		MoveGenerator moveGen = new MoveGenerator();
+		MoveList moveList = new MoveList();
+		SimpleEvaluation evaluation = new SimpleEvaluation(generalAttributes);
+
+		int rootColor = generalAttributes.getColor();
+
+		/* Knoten und Züge des aktuellen Pfades */
+		int[] path = new int[MAX_PATH + 1];
+		int[] pathMoves = new int[MAX_PATH];
+
+		/* Ob der Zug zu path[i] von der Farbe der Wurzel kam */
+		boolean[] rootMoved = new boolean[MAX_PATH + 1];
+
+		while (!super.cancellation.isCancelled() && !treeFull) {
+
+			int node = MonteCarloTree.ROOT;
+			int color = rootColor;
+			int moveNr = 4;
+			int length = 0;
+
+			path[0] = node;
+			tree.addVisit(node);
+
+			/* Abstieg bis zu einem Blatt */
+			while (length < MAX_PATH) {
+
+				if (!tree.isExpanded(node)) {
+
+					/*
+					 * Beim ersten Besuch wird nur bewertet, erst danach
+					 * expandiert. Das spart Speicher für Blätter, die nie
+					 * wieder besucht werden.
+					 */
+					if (tree.getVisits(node) < 2 || AlphaBeta.isGameOver(board)
+							|| !tree.tryLock(node)) {
+						break;
+					}
+
+					generateMoves(moveGen, board, color, moveNr, moveList);
+
+					if (!tree.expand(node, moveList)) {
+						treeFull = true;
+						break;
+					}
+				}
+
+				if (tree.getChildCount(node) == 0) {
+					break;
+				}
+
+				/*
+				 * Unbesuchte Kinder bekommen den Wert ihres Vaters aus Sicht
+				 * der Seite am Zug (First Play Urgency), an der Wurzel wird
+				 * jeder Zug einmal probiert.
+				 */
+				double urgency = 2.0;
+
+				if (length > 0) {
+					double mean = tree.getValue(node)
+							/ Math.max(tree.getVisits(node), 1);
+
+					urgency = (rootMoved[length] == (color == rootColor)) ? mean
+							: 1.0 - mean;
+				}
+
+				int child = select(node, urgency);
+				int move = tree.getMove(child);
+
+				board.makeMove(move);
+				tree.addVisit(child);
+
+				rootMoved[length + 1] = color == rootColor;
+				pathMoves[length] = move;
+				path[++length] = child;
+				node = child;
+
+				moveNr -= Step.getStepCount(move);
+
+				if (moveNr == 0) {
+					color = (color == 0) ? 1 : 0;
+					moveNr = 4;
+				}
+			}
+
+			double value = evaluate(board, evaluation);
+
+			/* Wert aus Sicht der Seite, die den jeweiligen Zug gemacht hat */
+			for (int i = length; i > 0; i--) {
+				tree.addValue(path[i], rootMoved[i] ? value : 1.0 - value);
+				board.unmakeMove(pathMoves[i - 1]);
+			}
+
+			playouts.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Alle Züge der Farbe, ohne Push/Pull, wenn dafür nur noch ein Schritt
+	 * übrig ist.
+	 */
+	private void generateMoves(MoveGenerator moveGen, Bitboard board,
+			int color, int moveNr, MoveList moveList) {
+
+		moveGen.generateAllColorMoves(board, color, moveList);
+
+		if (moveNr < 2) {
+			moveList.clear();
+			moveGen.generateSteps(board, color, moveList);
+		}
+	}
+
+	/**
+	 * Das Kind mit dem höchsten UCB-Wert.
+	 *
+	 * @param node
+	 *            der Knoten
+	 * @param urgency
+	 *            Wert unbesuchter Kinder. Bei der riesigen Zahl an Zügen
+	 *            würde der Baum sonst kaum tiefer als ein paar Schritte,
+	 *            weil jedes Kind erst einmal besucht werden müsste.
+	 */
+	private int select(int node, double urgency) {
+
+		int first = tree.getFirstChild(node);
+		int last = first + tree.getChildCount(node);
+		double logVisits = Math.log(Math.max(tree.getVisits(node), 1));
+		double unvisitedScore = urgency + FPU_EXPLORATION * UCT_CONSTANT
+				* Math.sqrt(logVisits);
+
+		int best = first;
+		double bestScore = -1.0;
+
+		for (int child = first; child < last; child++) {
+			int visits = tree.getVisits(child);
+			double score = unvisitedScore;
+
+			if (visits > 0) {
+				score = tree.getValue(child) / visits + UCT_CONSTANT
+						* Math.sqrt(logVisits / visits);
+			}
+
+			if (score > bestScore) {
+				bestScore = score;
+				best = child;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Gewinn-Wahrscheinlichkeit der Farbe der Wurzel. Wiederholungen und die
+	 * unveränderte Wurzel gelten wie im Alpha-Beta als verloren.
+	 */
+	private double evaluate(Bitboard board, SimpleEvaluation evaluation) {
+
+		long hash = board.getZobristHash();
+
+		if (super.repetitionCounter.getBoardCount(hash) >= 2
+				|| hash == rootHash) {
+			return 0.0;
+		}
+
+		int score = evaluation.evaluateBoardState(board, false);
+
+		return 1.0 / (1.0 + Math.exp(-score / EVAL_SCALE));
+	}
+
+	/**
+	 * Der Pfad mit den meisten Besuchen: der eigene Zug (4 Schritte) und,
+	 * soweit besucht, die erwartete Antwort des Gegners (für das Pondern).
+	 */
+	private int[] getMostVisitedLine() {
+
+		LinkedList<Integer> line = new LinkedList<Integer>();
+		int node = MonteCarloTree.ROOT;
+		int steps = 0;
+
+		while (tree.isExpanded(node) && tree.getChildCount(node) > 0) {
+			int first = tree.getFirstChild(node);
+			int best = first;
+
+			for (int child = first + 1; child < first
+					+ tree.getChildCount(node); child++) {
+				if (tree.getVisits(child) > tree.getVisits(best)) {
+					best = child;
+				}
+			}
+
+			int move = tree.getMove(best);
+			steps += Step.getStepCount(move);
+
+			/* Ohne Besuche nur, wenn es noch gar keinen Zug gibt */
+			if (steps > 8 || (tree.getVisits(best) == 0 && !line.isEmpty())) {
+				break;
+			}
+
+			line.add(move);
+			node = best;
+
+			if (steps == 8) {
+				break;
+			}
+		}
+
+		int[] result = new int[line.size()];
+
+		for (int i = 0; i < result.length; i++) {
+			result[i] = line.get(i);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Sucht im Baum der letzten Suche den Knoten der aktuellen Stellung: erst
+	 * der eigene gespielte Zug, dann beliebige 4 Schritte des Gegners, bis
+	 * die Stellung gleich ist.
+	 *
+	 * @param board
+	 *            die aktuelle Stellung
+	 * @return der Knoten oder -1, wenn er nicht im Baum ist
+	 */
+	private int findRoot(Bitboard board) {
+
+		if (previousRoot == null
+				|| !tree.isAllocated(generalAttributes.getMctsMemory())) {
+			return -1;
+		}
+
+		Bitboard replay = previousRoot.cloneBitboard();
+		int node = MonteCarloTree.ROOT;
+		int steps = 0;
+
+		/* Der eigene Zug */
+		for (int i = 0; steps < 4 && i < previousLine.length; i++) {
+			int move = previousLine[i];
+			node = findChild(node, move);
+
+			if (node < 0) {
+				return -1;
+			}
+
+			replay.makeMove(move);
+			steps += Step.getStepCount(move);
+		}
+
+		if (steps != 4) {
+			return -1;
+		}
+
+		return findPosition(replay, node, 4, board.getZobristHash());
+	}
+
+	/**
+	 * Tiefensuche über die Schritte des Gegners.
+	 */
+	private int findPosition(Bitboard board, int node, int moveNr, long hash) {
+
+		if (moveNr == 0) {
+			return (board.getZobristHash() == hash) ? node : -1;
+		}
+
+		if (!tree.isExpanded(node)) {
+			return -1;
+		}
+
+		int first = tree.getFirstChild(node);
+
+		for (int child = first; child < first
+				+ tree.getChildCount(node); child++) {
+			int move = tree.getMove(child);
+
+			board.makeMove(move);
+			int found = findPosition(board, child,
+					moveNr - Step.getStepCount(move), hash);
+			board.unmakeMove(move);
+
+			if (found >= 0) {
+				return found;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Das Kind eines expandierten Knotens mit diesem Zug, -1 wenn es keins
+	 * gibt.
+	 */
+	private int findChild(int node, int move) {
+
+		if (!tree.isExpanded(node)) {
+			return -1;
+		}
+
+		int first = tree.getFirstChild(node);
+
+		for (int child = first; child < first
+				+ tree.getChildCount(node); child++) {
+			if (tree.getMove(child) == move) {
+				return child;
+			}
+		}
+
+		return -1;
+	}
+
+	@Override
+	public void run() {
+
+		long startTime = System.currentTimeMillis();
+
+		/*
+		 * Teilbaum der letzten Suche übernehmen oder neu anfangen, auch wenn
+		 * der Teilbaum zu groß zum Umkopieren ist
+		 */
+		int newRoot = findRoot(board);
+		int nodes = (newRoot >= 0) ? tree.reroot(newRoot) : -1;
+
+		if (nodes >= 0) {
+			messageWriter.sendMessage("log mcts: reused " + nodes
+					+ " nodes, " + tree.getVisits(MonteCarloTree.ROOT)
+					+ " visits");
+		} else {
+			tree.init(generalAttributes.getMctsMemory());
+		}
+
+		playouts.set(0);
+		treeFull = false;
+		rootHash = super.repetitionCounter.getBoardHash(board);
+
+		/* Die Wurzel sofort expandieren, damit es immer einen Zug gibt */
+		MoveList rootMoves = new MoveList();
+		moveGen.generateAllColorMoves(board, generalAttributes.getColor(),
+				rootMoves);
+
+		if (tree.tryLock(MonteCarloTree.ROOT)) {
+			tree.expand(MonteCarloTree.ROOT, rootMoves);
+		}
+
+		int threads = generalAttributes.getUseParallelization() ? generalAttributes
+				.getThreads() : 1;
+		LinkedList<Thread> helpers = new LinkedList<Thread>();
+
+		for (int i = 1; i < threads; i++) {
+			final Bitboard helperBoard = board.cloneBitboard();
+
+			Thread helper = new Thread(new Runnable() {
+				public void run() {
+					search(helperBoard);
+				}
+			});
+			helper.setDaemon(true);
+			helpers.add(helper);
+			helper.start();
+		}
+
+		search(board.cloneBitboard());
+
+		/* Der Baum ist voll oder die Zeit um: auf alle Helfer warten */
+		super.cancellation.cancel();
+
+		for (Thread helper : helpers) {
+			try {
+				helper.join();
+			} catch (InterruptedException e) {
+			}
+		}
+
+		super.bestLine = getMostVisitedLine();
+		super.leafNodesVisited = (int) playouts.get();
+
+		previousRoot = board.cloneBitboard();
+		previousLine = super.bestLine;
+
+		long estimatedTime = System.currentTimeMillis() - startTime;
+
+		messageWriter.sendMessage("log mcts: " + threads + " threads, "
+				+ playouts.get() + " playouts ("
+				+ playouts.get() * 1000 / Math.max(estimatedTime, 1)
+				+ " playouts/s), " + tree.getNodeCount() + " of "
+				+ tree.getCapacity() + " nodes"
+				+ (treeFull ? ", tree full" : ""));
+
+		int rootVisits = tree.getVisits(MonteCarloTree.ROOT);
+		int first = tree.getFirstChild(MonteCarloTree.ROOT);
+
+		if (super.bestLine.length > 0 && rootVisits > 0) {
+			int best = first;
+
+			while (tree.getMove(best) != super.bestLine[0]) {
+				best++;
+			}
+
+			messageWriter.sendMessage("log best first step "
+					+ Step.moveToString(super.bestLine[0]) + ": "
+					+ tree.getVisits(best) + " visits, value "
+					+ String.format("%.3f", tree.getValue(best)
+							/ Math.max(tree.getVisits(best), 1)));
+		}
+
+		messageWriter.sendMessage("log time used: " + estimatedTime / 1000);
+
+		/* Ausgabe des besten Moves! */
+		finishSearch();
+	}
+
+	@Override
+	public void newThread() {
+		super.ownThread = new Thread(this);
+		super.bestLine = new int[0];
+		super.cancellation.reset();
+	}
+
+	@Override
+	public void newGame() {
+		previousRoot = null;
+	}
+
+}
@@ -0,0 +1,314 @@
+package engine;
+
+import board.Bitboard;
+import board.MoveGenerator;
+import board.MoveList;
+import board.Step;
+
+/**
+ * Liefert die Züge eines Knotens nacheinander in Stufen, statt vorher alle zu
+ * generieren und zu sortieren:
+ *
+ * <pre>
+ * 1. der Zug aus dem Transposition-Table
+ * 2. Push/Pull-Züge, die eine gegnerische Figur in einer Trap schlagen
+ * 3. die Killer-Züge dieser Tiefe (wenn sie hier erlaubt sind)
+ * 4. der Countermove auf den vorherigen Zug (wenn er hier erlaubt ist)
+ * 5. alle übrigen Züge, absteigend nach History
+ * </pre>
+ *
+ * Die einfachen Schritte werden erst in Stufe 5 generiert. Führt schon der
+ * Table-Zug, ein Schlag oder ein Killer zu einem Cut-off, wird die Liste gar
+ * nicht erst vollständig erzeugt.
+ *
+ * Alternativ kann über eine fertige Liste iteriert werden (z.B. wenn die
+ * Wurzel anders sortiert werden soll). Eine Instanz gehört zu einer Tiefe
+ * eines SearchContext und wird für jeden Knoten neu initialisiert.
+ *
+ * @author maurice
+ */
+public class MovePicker {
+
+	private static final int HASH = 0;
+	private static final int CAPTURES_INIT = 1;
+	private static final int CAPTURES = 2;
+	private static final int KILLERS = 3;
+	private static final int COUNTER = 4;
+	private static final int QUIET_INIT = 5;
+	private static final int QUIET = 6;
+	private static final int LIST = 7;
+	private static final int DONE = 8;
+
+	/* Score-Markierung der Schläge in der Liste */
+	private static final int CAPTURE = 1;
+
+	/* Score-Markierung der Züge, die schon vor Stufe 5 kamen */
+	private static final int DONE_BEFORE = Integer.MIN_VALUE;
+
+	private final MoveGenerator moveGen = new MoveGenerator();
+
+	private final MoveList moveList;
+
+	/* Killer, History und Countermoves */
+	private final SearchContext context;
+
+	private Bitboard board;
+	private int color;
+
+	private int stage = DONE;
+	private int index;
+
+	/* Anzahl der Push/Pull-Züge am Anfang der Liste */
+	private int specialCount;
+
+	private int hashMove;
+	private int killer1;
+	private int killer2;
+	private int killerIndex;
+	private int counterMove;
+
+	/* Ob unter den restlichen Zügen noch einer eine History hat */
+	private boolean historyLeft;
+
+	/**
+	 * Konstruktor
+	 *
+	 * @param moveList
+	 *            Liste, in die generiert wird (die der zugehörigen Tiefe)
+	 * @param context
+	 *            Kontext, zu dem der MovePicker gehört
+	 */
+	public MovePicker(MoveList moveList, SearchContext context) {
+		this.moveList = moveList;
+		this.context = context;
+	}
+
+	/**
+	 * Startet die stufenweise Zug-Auswahl für einen Knoten.
+	 *
+	 * @param board
+	 *            Das Board
+	 * @param color
+	 *            Die Farbe, die am Zug ist
+	 * @param hashCode
+	 *            bester Zug aus dem Table in Kurzform (siehe
+	 *            Transposition.getBestMove), 0 wenn keiner
+	 * @param depth
+	 *            Rekursionstiefe des Knotens (für die Killer-Züge)
+	 * @param previousMove
+	 *            der Zug, der zu dem Knoten geführt hat (für den Countermove)
+	 */
+	public void init(Bitboard board, int color, int hashCode, int depth,
+			int previousMove) {
+		this.board = board;
+		this.color = color;
+		this.hashMove = moveGen.expandMove(board, color, hashCode);
+		this.killer1 = context.getKiller(depth, 0);
+		this.killer2 = context.getKiller(depth, 1);
+		this.counterMove = context.getCounterMove(previousMove);
+		this.killerIndex = 0;
+		this.specialCount = 0;
+		this.index = 0;
+		this.stage = HASH;
+
+		moveList.clear();
+	}
+
+	/**
+	 * Generiert sofort alle Züge in der Reihenfolge des Generators, der Zug
+	 * aus dem Table (falls vorhanden) kommt nach vorne. Die Liste kann danach
+	 * über getMoveList() noch umsortiert werden, bevor next() aufgerufen
+	 * wird.
+	 *
+	 * @param board
+	 *            Das Board
+	 * @param color
+	 *            Die Farbe, die am Zug ist
+	 * @param hashCode
+	 *            bester Zug aus dem Table in Kurzform, 0 wenn keiner
+	 */
+	public void initList(Bitboard board, int color, int hashCode) {
+		this.board = board;
+		this.color = color;
+		this.hashMove = Step.NONE;
+		this.index = 0;
+		this.stage = LIST;
+
+		moveGen.generateAllColorMoves(board, color, moveList);
+
+		if (hashCode != 0) {
+			for (int i = 0; i < moveList.size(); i++) {
+				if (Step.compress(moveList.get(i)) == hashCode) {
+					moveList.moveToFront(i);
+					hashMove = moveList.get(0);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gibt den nächsten Zug zurück. Ist eine Stufe leer, geht es direkt mit
+	 * der nächsten weiter (gewolltes Fall-through im switch).
+	 *
+	 * @return der kodierte Zug oder Step.NONE, wenn es keinen mehr gibt
+	 */
+	@SuppressWarnings("fallthrough")
+	public int next() {
+
+		switch (stage) {
+		case HASH:
+			stage = CAPTURES_INIT;
+
+			if (hashMove != Step.NONE) {
+				return hashMove;
+			}
+
+			/* fall through */
+		case CAPTURES_INIT:
+			moveGen.generateSpecialMoves(board, color, moveList);
+			specialCount = moveList.size();
+
+			for (int i = 0; i < specialCount; i++) {
+				moveList.setScore(i, MoveGenerator.isCapture(board, color,
+						moveList.get(i)) ? CAPTURE : 0);
+			}
+
+			stage = CAPTURES;
+
+			/* fall through */
+		case CAPTURES:
+			while (index < specialCount) {
+				int move = moveList.get(index);
+
+				if (moveList.getScore(index++) == CAPTURE
+						&& move != hashMove) {
+					return move;
+				}
+			}
+
+			stage = KILLERS;
+
+			/* fall through */
+		case KILLERS:
+			while (killerIndex < 2) {
+				int killer = (killerIndex++ == 0) ? killer1 : killer2;
+
+				if (killer != Step.NONE && killer != hashMove
+						&& isLegal(killer)
+						&& !MoveGenerator.isCapture(board, color, killer)) {
+					return killer;
+				}
+			}
+
+			stage = COUNTER;
+
+			/* fall through */
+		case COUNTER:
+			stage = QUIET_INIT;
+
+			if (counterMove != Step.NONE && counterMove != hashMove
+					&& counterMove != killer1 && counterMove != killer2
+					&& isLegal(counterMove)
+					&& !MoveGenerator.isCapture(board, color, counterMove)) {
+				return counterMove;
+			}
+
+			/* fall through */
+		case QUIET_INIT:
+			moveGen.generateSteps(board, color, moveList);
+
+			/*
+			 * Schläge, Table-Zug, Killer und Countermove kamen schon vorher und
+			 * werden übersprungen, der Rest bekommt seinen History-Wert.
+			 */
+			for (int i = 0; i < moveList.size(); i++) {
+				int move = moveList.get(i);
+
+				if ((i < specialCount && moveList.getScore(i) == CAPTURE)
+						|| move == hashMove || move == killer1
+						|| move == killer2 || move == counterMove) {
+					moveList.setScore(i, DONE_BEFORE);
+				} else {
+					moveList.setScore(i, context.getHistory(move));
+				}
+			}
+
+			index = 0;
+			historyLeft = true;
+			stage = QUIET;
+
+			/* fall through */
+		case QUIET:
+			while (index < moveList.size()) {
+
+				/*
+				 * Den Zug mit der höchsten History nach vorne holen. Meist hat
+				 * nur ein kleiner Teil überhaupt eine History, danach bleibt
+				 * die Reihenfolge des Generators und es muss nicht mehr
+				 * gesucht werden.
+				 */
+				if (historyLeft) {
+					int best = index;
+
+					for (int i = index + 1; i < moveList.size(); i++) {
+						if (moveList.getScore(i) > moveList.getScore(best)) {
+							best = i;
+						}
+					}
+
+					if (moveList.getScore(best) <= 0) {
+						historyLeft = false;
+					} else {
+						moveList.swap(index, best);
+					}
+				}
+
+				if (moveList.getScore(index) != DONE_BEFORE) {
+					return moveList.get(index++);
+				}
+
+				index++;
+			}
+
+			stage = DONE;
+			return Step.NONE;
+
+		case LIST:
+			if (index < moveList.size()) {
+				return moveList.get(index++);
+			}
+
+			stage = DONE;
+			return Step.NONE;
+
+		default:
+			return Step.NONE;
+		}
+	}
+
+	/**
+	 * Ob ein Killer-Zug (aus einem anderen Knoten derselben Tiefe) hier
+	 * überhaupt möglich ist.
+	 */
+	private boolean isLegal(int move) {
+		return moveGen.expandMove(board, color, Step.compress(move)) == move;
+	}
+
+	/**
+	 * Der Zug aus dem Table als kodierter Zug, Step.NONE wenn es keinen gab
+	 * oder er in dieser Stellung nicht möglich ist.
+	 */
+	public int getHashMove() {
+		return hashMove;
+	}
+
+	/**
+	 * Die Liste, in die generiert wird. Nach initList() enthält sie alle
+	 * Züge.
+	 */
+	public MoveList getMoveList() {
+		return moveList;
+	}
+
+}
@@ -1,15 +1,12 @@
 package engine;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import memory.Transposition;
-import memory.ZobristHash;
 import network.MessageOutputWriter;
 import board.Bitboard;
 import board.Constants;
-import board.Move;
-import board.MoveScore;
+import board.MoveList;
+import board.Step;
+import board.Zobrist;
 import evaluation.Evaluation;
 import evaluation.TestEvaluation;
 
@@ -27,7 +24,6 @@ public class NegaScout extends Engine {
 			EngineGeneralAttributes generalAttributes) {
 		super(messageWriter, generalAttributes);
 		this.transposition = new Transposition(generalAttributes.getHash());
-		this.transposition.initTranspsition();
 	}
 
 	/**
@@ -46,58 +42,49 @@ public class NegaScout extends Engine {
 	 *            minimizing Player ist
 	 * @return eine absteigend sortierte Liste mit Moves.
 	 */
-	private LinkedList<Move> moveOrdering(Bitboard board,
-			LinkedList<Move> moveList, int depth, int moveNr,
-			boolean maximizingPlayer, int color) {
+	private void moveOrdering(Bitboard board, MoveList moveList, int depth,
+			int moveNr, boolean maximizingPlayer, int color) {
 
-		/*
-		 * Nur die ersten beiden Ebenen sortieren, weil da die größten Teilbäume
-		 * gepruned werden können und der Overhead nicht so hoch ist
-		 */
-		if (depth <= 3 || generalAttributes.getDepth() > depth + 1) {
-			return moveList;
+		if (!isSortedDepth(depth)) {
+			return;
 		}
 
 		messageWriter.sendMessage("log moveOrdering at depth = " + depth);
 
 		/* maximale Rekursion */
 		int maxDepth = 2;
-		/* Map mit allen Moves und Werten. */
-		HashMap<Integer, Move> moveHashMap = new HashMap<Integer, Move>();
 
-		LinkedList<Move> resultList = new LinkedList<Move>();
+		SearchContext context = new SearchContext();
 
 		/* Errechnen der Werte für jedes einzelne Kind. */
-		for (Move move : moveList) {
+		for (int i = 0; i < moveList.size(); i++) {
 			/* Zug anwenden */
-			Bitboard newBoard = board.cloneBitboard();
-			newBoard.applyMoveAndRemovePieces(move);
+			board.makeMove(moveList.get(i));
 
 			AlphaBeta newAlphaBeta = new AlphaBeta(messageWriter,
 					generalAttributes);
 
 			/* führt einen kleinen alphaBeta-Search aus für Zwischenergebnisse! */
-			LinkedList<Move> tmpList = newAlphaBeta.alphaBeta(newBoard,
-					maxDepth, maximizingPlayer, color, moveNr, -1000000000,
-					1000000000, false, false, false, maxDepth, false, false, false);
+			int score = newAlphaBeta.alphaBeta(board, context, maxDepth,
+					maximizingPlayer, color, moveNr, -1000000000, 1000000000,
+					false, false, false, maxDepth, false, false, false);
 
-			/* Move mit seinem Ergebnis speichern */
-			moveHashMap.put(((MoveScore) tmpList.getLast()).getScore(), move);
+			board.unmakeMove(moveList.get(i));
 
-			tmpList = null;
+			/* Move mit seinem Ergebnis speichern */
+			moveList.setScore(i, score);
 		}
 
 		/* sortieren */
-		LinkedList<Integer> sortedList = new LinkedList<Integer>(
-				moveHashMap.keySet());
-		Iterator<Integer> it = sortedList.descendingIterator();
-
-		/* sortiert in Liste einfügen */
-		while (it.hasNext()) {
-			resultList.add(moveHashMap.get(it.next()));
-		}
+		moveList.sortByScore();
+	}
 
-		return resultList;
+	/**
+	 * Nur die ersten beiden Ebenen sortieren, weil da die größten Teilbäume
+	 * gepruned werden können und der Overhead nicht so hoch ist
+	 */
+	private boolean isSortedDepth(int depth) {
+		return depth > 3 && generalAttributes.getDepth() <= depth + 1;
 	}
 
 	/**
@@ -114,37 +101,47 @@ public class NegaScout extends Engine {
 	 *            Die jeweilige Farbe
 	 * @param moveNr
 	 *            Überprüfung, dass 4 Züge pro Spieler möglich sind.
+	 * @param context
+	 *            Thread-eigene Daten der Suche (Zug-Listen und Hauptvariante
+	 *            je Tiefe)
+	 * @return der Score des Knotens, die zugehörige Zugfolge steht danach in
+	 *         context.getPv(depth)
 	 */
-	public LinkedList<Move> negaScout(Bitboard board, int depth,
-			boolean maximizingPlayer, int color, int moveNr, int alpha,
-			int beta, boolean useMemory, boolean moveOrdering) {
+	public int negaScout(Bitboard board, SearchContext context,
+			int depth, boolean maximizingPlayer, int color, int moveNr,
+			int alpha, int beta, boolean useMemory, boolean moveOrdering) {
+
+		context.clearPv(depth);
+
+		/* Der Zug, der zu diesem Knoten geführt hat (für den Countermove) */
+		int previousMove = context.getPreviousMove();
 
-		/* Generiert Liste mit allen verfügbaren Moves! */
-		LinkedList<Move> oneMoveList = moveGen.generateAllColorMoves(board,
-				color);
 		int newAlpha = alpha;
 		int newBeta = beta;
 		boolean isPrincipalVariation = true;
 		int scoreValue = -100000000;
 
-		/* Rekursionsabbruch */
-		if (depth <= 0 || oneMoveList.size() == 0 || !super.isAllowedToRun) {
+		/* Bester Zug aus dem Table (Kurzform) */
+		int hashMove = 0;
 
-			Evaluation eval = new TestEvaluation(generalAttributes);
+		/* Rekursionsabbruch, ohne dafür eine Zug-Liste zu generieren */
+		if (depth <= 0 || super.cancellation.isCancelled()
+				|| !moveGen.hasAnyMove(board, color)) {
 
-			Move move = new MoveScore(eval.evaluateBoardState(board, false));
+			Evaluation eval = new TestEvaluation(generalAttributes);
 
-			LinkedList<Move> res = new LinkedList<Move>();
-			res.add(move);
 			super.leafNodesVisited++;
-			return res;
+			return eval.evaluateBoardState(board, false);
 		}
 
 		/* Memory-Nutzung! */
 		if (useMemory) {
 
-			ZobristHash zobrist = transposition.lookupHash(board
-					.getZobristHash());
+			long zobrist = transposition.lookupHash(Zobrist.key(
+					board.getZobristHash(), color, moveNr));
+
+			/* Der Zug gilt für jede Tiefe, nur der Wert nicht */
+			hashMove = Transposition.getBestMove(zobrist);
 
 			/*
 			 * einen Eintrag im Cache gefunden, der entweder auf der gleichen
@@ -153,32 +150,32 @@ public class NegaScout extends Engine {
 			 * Auswertungsbaum schon mal die gleiche Boardkonstellation
 			 * augetaucht ist - mit weniger Moves.
 			 */
-			if (zobrist != null && zobrist.depth >= depth) {
-				switch (zobrist.nodeType) {
+			if (zobrist != Transposition.NO_ENTRY
+					&& Transposition.getDepth(zobrist) >= depth) {
+				int zobristScore = Transposition.getScore(zobrist);
+
+				switch (Transposition.getNodeType(zobrist)) {
 				case Constants.NodeType.EXACT:
 
 					/*
 					 * Ist der perfekte Wert - kann direkt returned werden :-)
 					 * Scheiß auf die Kinder^^
 					 */
-					LinkedList<Move> bestValue = new LinkedList<Move>();
-					bestValue.add(new MoveScore(zobrist.score));
-
-					return bestValue;
+					return zobristScore;
 
 				case Constants.NodeType.ALPHA:
 
 					/* neuer lower-bound -> Eingrenzen */
-					if (zobrist.score > newAlpha) {
-						newAlpha = zobrist.score;
+					if (zobristScore > newAlpha) {
+						newAlpha = zobristScore;
 					}
 
 					break;
 				case Constants.NodeType.BETA:
 
 					/* neuer upper-bound -> Eingrenzen */
-					if (zobrist.score < newBeta) {
-						newBeta = zobrist.score;
+					if (zobristScore < newBeta) {
+						newBeta = zobristScore;
 					}
 
 					break;
@@ -189,52 +186,55 @@ public class NegaScout extends Engine {
 				 * Score geschaffen? Können wir prunen?
 				 */
 				if (newAlpha >= newBeta) {
-					LinkedList<Move> bestValue = new LinkedList<Move>();
-					bestValue.add(new MoveScore(zobrist.score));
-
-					return bestValue;
+					return zobristScore;
 				}
 			}
 
 		}
 
-		/* Move-Ordering! */
-		if (moveOrdering) {
-			oneMoveList = moveOrdering(board, oneMoveList, depth, moveNr,
+		/*
+		 * Die Züge kommen nach und nach aus dem MovePicker (Table-Zug, Schläge,
+		 * Killer, Rest). Nur nahe der Wurzel wird vorher die ganze Liste über
+		 * kleine Suchen sortiert.
+		 */
+		MovePicker picker = context.getMovePicker(depth);
+
+		if (moveOrdering && isSortedDepth(depth)) {
+			picker.initList(board, color, 0);
+			moveOrdering(board, picker.getMoveList(), depth, moveNr,
 					maximizingPlayer, color);
+		} else if (moveOrdering) {
+			picker.init(board, color, hashMove, depth, previousMove);
+		} else {
+			picker.initList(board, color, 0);
 		}
 
-		/* Normales Alpha-Beta! */
-		LinkedList<Move> bestValue = new LinkedList<Move>();
-		ZobristHash zobristValue = new ZobristHash();
+		/* Normales Alpha-Beta! Ohne Verbesserung bleibt es bei alpha. */
+		int bestValue = alpha;
+		int bestMove = Step.NONE;
+		int nodeType = Constants.NodeType.NOTHING;
 
 		/* Schleife über alle Kinder */
-		for (Move move : oneMoveList) {
-			Bitboard newBoard = board.cloneBitboard();
+		for (int move = picker.next(); move != Step.NONE; move = picker.next()) {
 			int newMoveNumber = moveNr - 1;
 
-			/* Zug anwenden */
-			newBoard.applyMoveAndRemovePieces(move);
-
-			if (move.getMoveType() == Constants.MoveType.SPECIAL) {
+			if (Step.isSpecial(move)) {
 				if (newMoveNumber < 1)
 					continue;
 
 				newMoveNumber--;
 			}
 
+			/* Zug anwenden */
+			board.makeMove(move);
+			context.setPreviousMove(move);
+
 			/* Rekursion! */
-			LinkedList<Move> t = negaScout(newBoard, depth - 1,
+			scoreValue = negaScout(board, context, depth - 1,
 					(newMoveNumber == 0) ? false : true,
 					(newMoveNumber == 0) ? otherColor(color) : color,
 					(newMoveNumber == 0) ? 4 : newMoveNumber, -newBeta,
 					-newAlpha, useMemory, moveOrdering);
-			scoreValue = (((MoveScore) t.getLast()).getScore());
-
-			/* Negieren des Wertes - typisch für NegaScout/Negamax! */
-			if (!maximizingPlayer) {
-				((MoveScore) t.getLast()).setScore(-scoreValue);
-			}
 
 			/*
 			 * Muss ein Research gemacht werden, weil das Move-Ordering schlecht
@@ -243,25 +243,26 @@ public class NegaScout extends Engine {
 			if ((scoreValue > newAlpha) && (scoreValue < beta)
 					&& !isPrincipalVariation) {
 				/* Neues, tiefes suchen! */
-				t = negaScout(newBoard, depth - 1, (newMoveNumber == 0) ? false
-						: true, (newMoveNumber == 0) ? otherColor(color)
-						: color, (newMoveNumber == 0) ? 4 : newMoveNumber,
-						-beta, -newAlpha, useMemory, moveOrdering);
-				scoreValue = (((MoveScore) t.getLast()).getScore());
-
-				/* Negieren des Wertes - typisch für NegaScout/Negamax! */
-				if (!maximizingPlayer) {
-					((MoveScore) t.getLast()).setScore(-scoreValue);
-				}
+				context.setPreviousMove(move);
+				scoreValue = negaScout(board, context, depth - 1,
+						(newMoveNumber == 0) ? false : true,
+						(newMoveNumber == 0) ? otherColor(color) : color,
+						(newMoveNumber == 0) ? 4 : newMoveNumber, -beta,
+						-newAlpha, useMemory, moveOrdering);
 			}
 
+			/* Zug zurücknehmen */
+			board.unmakeMove(move);
+
 			/*
 			 * Den wichtigen, besten Move merken und als bestValue verzeichnen.
 			 */
 			if (scoreValue > newAlpha) {
 
-				bestValue = t;
-				bestValue.addFirst(move);
+				/* Negieren des Wertes - typisch für NegaScout/Negamax! */
+				bestValue = maximizingPlayer ? scoreValue : -scoreValue;
+				bestMove = move;
+				context.updatePv(depth, move, context, depth - 1);
 
 			}
 
@@ -269,9 +270,8 @@ public class NegaScout extends Engine {
 
 			/* Pruning! -> Beta cut-off */
 			if (newBeta <= newAlpha) {
-				if (useMemory) {
-					zobristValue.nodeType = Constants.NodeType.EXACT;
-				}
+				nodeType = Constants.NodeType.EXACT;
+				addCutoff(context, board, depth, color, move, previousMove);
 				break;
 			}
 
@@ -282,21 +282,16 @@ public class NegaScout extends Engine {
 		}
 
 		/* TODO: Hier muss das Alpha/Beta angepasst werden!!! */
-		if (useMemory) {
-			zobristValue.nodeType = (zobristValue.nodeType == Constants.NodeType.EXACT) ? Constants.NodeType.EXACT
-					: Constants.NodeType.ALPHA;
+		if (nodeType != Constants.NodeType.EXACT) {
+			nodeType = Constants.NodeType.ALPHA;
 		}
 		/* Hier war vorher das return bestValue drin! */
 
 		if (useMemory) {
 			/* Füge die aktuelle Position in das Table ein! */
-			zobristValue.depth = depth;
-			zobristValue.hash = board.getZobristHash();
-			zobristValue.score = scoreValue;
-			zobristValue.maximizingPlayer = maximizingPlayer;
-			zobristValue.moveNumber = moveNr;
-
-			transposition.addTableEntry(zobristValue);
+			transposition.addTableEntry(
+					Zobrist.key(board.getZobristHash(), color, moveNr), depth,
+					scoreValue, nodeType, moveNr, maximizingPlayer, bestMove);
 		}
 
 		return bestValue;
@@ -314,45 +309,43 @@ public class NegaScout extends Engine {
 		long startTime = System.currentTimeMillis();
 
 		/*
-		 * Dem Board eine Instanz des Transposition-Tables mitgeben, damit damit
-		 * ein Makemove funktioniert
+		 * Das Table (nur beim ersten Mal oder bei neuer Größe) reservieren.
+		 * Einträge vorheriger Züge bleiben erhalten und altern nur, gelöscht
+		 * wird erst bei "newgame".
 		 */
-		board.setTransposition(transposition);
+		transposition.initTranspsition(generalAttributes.getHash());
+		transposition.newSearch();
 
-		/*
-		 * Den Zobrist-Hash bei jedem neuen Zug neu initialisieren!
-		 */
-		board.setZobristHash(transposition.generateZobristHashForTable(board));
+		/* Eigene Kopie für makeMove/unmakeMove */
+		Bitboard searchBoard = board.cloneBitboard();
+		SearchContext context = new SearchContext();
 
-		/*
-		 * das Transposition-Table neu aufsetzen, dass alte Memory-Einträge
-		 * gelöscht werden!
-		 */
-		transposition.clearTable();
-
-		super.bestMove = negaScout(board, super.generalAttributes.getDepth(),
+		super.bestScore = negaScout(searchBoard, context,
+				super.generalAttributes.getDepth(),
 				true, super.generalAttributes.getColor(), 4, alpha, beta,
 				super.generalAttributes.getUseMemory(),
 				super.generalAttributes.getMoveOrdering());
+		super.bestLine = context.getPv(super.generalAttributes.getDepth());
 
 		/*
 		 * Panic-Search --> Es wurde ein leerer Move ermittelt... Jetzt einen
 		 * Zug ermitteln mit maximal 3 Rekursionen. Das sollte in 0-1 sek zu
 		 * schaffen sein!
 		 */
-		if (super.bestMove.size() == 0) {
-			super.isAllowedToRun = true;
+		if (super.bestLine.length == 0) {
+			super.cancellation.reset();
 			messageWriter.sendMessage("log PANIC SEARCH ACTIVATED!!!!!");
-			super.bestMove = negaScout(board, 3, true,
+			super.bestScore = negaScout(searchBoard, context, 3, true,
 					super.generalAttributes.getColor(), 4, alpha, beta,
 					super.generalAttributes.getUseMemory(),
 					super.generalAttributes.getMoveOrdering());
+			super.bestLine = context.getPv(3);
 		}
 
 		long estimatedTime = System.currentTimeMillis() - startTime;
 
 		messageWriter.sendMessage("log finished calculating best move"
-				+ ((super.isAllowedToRun == true) ? " all by himself :-)"
+				+ ((!super.cancellation.isCancelled()) ? " all by himself :-)"
 						: ", being interrupted by the timer..."));
 
 		messageWriter.sendMessage("log time used: " + estimatedTime / 1000);
@@ -361,19 +354,20 @@ public class NegaScout extends Engine {
 				+ new TestEvaluation(generalAttributes).evaluateBoardState(
 						board, false));
 
-		messageWriter.sendMessage("log score: "
-				+ ((MoveScore) super.bestMove.getLast()).getScore());
+		messageWriter.sendMessage("log score: " + super.bestScore);
 
-		messageWriter.sendMessage("log node count: " + super.leafNodesVisited);
+		messageWriter.sendMessage("log node count: " + super.leafNodesVisited + " ("
+				+ (long) super.leafNodesVisited * 1000 / Math.max(estimatedTime, 1)
+				+ " nodes/s)");
 
 		messageWriter.sendMessage("log used memory: "
 				+ (Runtime.getRuntime().totalMemory() - Runtime.getRuntime()
 						.freeMemory()) / (1024 * 1024) + "mb");
 
+		messageWriter.sendMessage("log " + transposition.getStatistics());
+
 		/* Ausgabe des besten Moves! */
-		if (super.printBestMove) {
-			messageWriter.sendMessage(getBestMove());
-		}
+		finishSearch();
 
 	}
 
@@ -384,8 +378,18 @@ public class NegaScout extends Engine {
 	 */
 	public void newThread() {
 		super.ownThread = new Thread(this);
-		super.bestMove = new LinkedList<Move>();
-		super.isAllowedToRun = true;
+		super.bestLine = new int[0];
+		super.cancellation.reset();
+	}
+
+	@Override
+	public int[] getExpectedReply(Bitboard board) {
+		return followHashMoves(transposition, board);
+	}
+
+	@Override
+	public void newGame() {
+		transposition.clearTable();
 	}
 
 }
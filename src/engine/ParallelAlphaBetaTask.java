@@ -0,0 +1,188 @@
+package engine;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import board.Bitboard;
+
+/**
+ * Ein jüngerer Bruder an einem Split-Point: berechnet den Teilbaum eines
+ * Zuges auf einer eigenen Kopie des Boards im gemeinsamen ForkJoinPool. Statt
+ * eines Threads pro Kind gibt es nur so viele Threads wie die Option
+ * "threads" vorgibt, freie Threads stehlen sich Arbeit von den anderen.
+ *
+ * Jüngere Brüder liegen nicht auf der Hauptvariante und werden selbst nicht
+ * weiter aufgeteilt.
+ *
+ * Das Fenster wird erst beim Start aus dem Split-Point gelesen, damit schon
+ * fertige Brüder es einengen können. Wurde die Suche gestoppt oder der
+ * Split-Point abgebrochen, wird null zurückgegeben.
+ *
+ * Gerechnet wird in einem SearchContext des ausführenden Threads, der danach
+ * für den nächsten Task desselben Threads frei wird. Zugfolge und Zähler des
+ * Teilbaums werden vorher in den Task kopiert und vom Split-Point von dort
+ * übernommen.
+ *
+ * @author maurice
+ *
+ */
+public class ParallelAlphaBetaTask extends RecursiveTask<Integer> {
+
+	private static final long serialVersionUID = 1L;
+
+	/* Pool für alle parallelen Suchen */
+	private static ForkJoinPool pool = null;
+
+	/*
+	 * Freie Kontexte je Thread. Ein Stapel, weil ein Thread während join()
+	 * selbst einen weiteren Task ausführen kann, solange sein eigener noch
+	 * rechnet.
+	 */
+	private static final ThreadLocal<ArrayDeque<SearchContext>> FREE_CONTEXTS =
+			new ThreadLocal<ArrayDeque<SearchContext>>() {
+				@Override
+				protected ArrayDeque<SearchContext> initialValue() {
+					return new ArrayDeque<SearchContext>();
+				}
+			};
+
+	/* Instanz einer Alpha-Beta-Klasse */
+	private AlphaBeta alphaBeta;
+
+	/* Argumente für Alpha Beta */
+	private Bitboard board;
+	private int depth;
+	private boolean maximizingPlayer;
+	private int color;
+	private int moveNr;
+	private boolean useMemory;
+	private boolean moveOrdering;
+	private boolean normalSearch;
+	private int maxSearchDepth;
+	private boolean isQuiescence;
+	private boolean isExtended;
+
+	/* Kodierter Zug (siehe board.Step), der zu diesem Teilbaum führt */
+	private int playedMove;
+
+	/* Der Knoten, an dem aufgeteilt wurde */
+	private SplitPoint splitPoint;
+
+	/* Zugfolge des Teilbaums (leer, wenn abgebrochen) */
+	private int[] pv = new int[0];
+
+	/* Zähler des Teilbaums */
+	private SearchStatistics statistics = new SearchStatistics();
+
+	/**
+	 * Setzen aller Parameter, die der Alpha-Beta-Instanz später übergeben
+	 * werden sollen. Der Zug ist auf dem Board schon ausgeführt.
+	 */
+	public ParallelAlphaBetaTask(AlphaBeta alphaBeta, SplitPoint splitPoint,
+			int move, Bitboard board, int depth, boolean maximizingPlayer,
+			int color, int moveNr, boolean useMemory, boolean moveOrdering,
+			boolean normalSearch, int maxSearchDepth, boolean isQuiescence,
+			boolean isExtended) {
+		this.alphaBeta = alphaBeta;
+		this.splitPoint = splitPoint;
+		this.playedMove = move;
+		this.board = board;
+		this.depth = depth;
+		this.maximizingPlayer = maximizingPlayer;
+		this.color = color;
+		this.moveNr = moveNr;
+		this.useMemory = useMemory;
+		this.moveOrdering = moveOrdering;
+		this.normalSearch = normalSearch;
+		this.maxSearchDepth = maxSearchDepth;
+		this.isQuiescence = isQuiescence;
+		this.isExtended = isExtended;
+	}
+
+	public int getMove() {
+		return this.playedMove;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * Zugfolge des Teilbaums, gültig nach join().
+	 */
+	public int[] getPv() {
+		return this.pv;
+	}
+
+	/**
+	 * Zähler des Teilbaums, gültig nach join().
+	 */
+	public SearchStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	@Override
+	protected Integer compute() {
+
+		ArrayDeque<SearchContext> free = FREE_CONTEXTS.get();
+		SearchContext context = free.isEmpty() ? new SearchContext() : free
+				.pop();
+
+		try {
+			context.attach(splitPoint);
+			context.setPreviousMove(playedMove);
+
+			if (context.checkStop(alphaBeta.cancellation)) {
+				return null;
+			}
+
+			int score = alphaBeta.alphaBeta(board, context, depth,
+					maximizingPlayer, color, moveNr, splitPoint.getAlpha(),
+					splitPoint.getBeta(), useMemory, moveOrdering,
+					normalSearch, maxSearchDepth, isQuiescence, false,
+					isExtended);
+
+			statistics.add(context.getStatistics());
+
+			if (context.isStopped()) {
+				return null;
+			}
+
+			pv = context.getPv(depth);
+
+			return Integer.valueOf(score);
+
+		} finally {
+			free.push(context);
+		}
+	}
+
+	/**
+	 * Startet den Task: aus einem Thread des Pools einfach per fork (landet in
+	 * dessen eigener Queue), sonst wird er dem Pool übergeben.
+	 */
+	public void start(ForkJoinPool pool) {
+		if (ForkJoinTask.getPool() == pool) {
+			fork();
+		} else {
+			pool.execute(this);
+		}
+	}
+
+	/**
+	 * Gibt den Pool mit der gewünschten Anzahl Threads zurück. Ändert sich die
+	 * Anzahl, wird ein neuer Pool erzeugt.
+	 */
+	public static synchronized ForkJoinPool getPool(int threads) {
+		if (pool == null || pool.getParallelism() != threads) {
+			if (pool != null) {
+				pool.shutdown();
+			}
+			pool = new ForkJoinPool(threads);
+		}
+		return pool;
+	}
+
+}
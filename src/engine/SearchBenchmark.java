@@ -0,0 +1,388 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import memory.RepetitionCounter;
+import memory.Transposition;
+import network.MessageOutputWriter;
+import board.Bitboard;
+import board.Constants;
+import board.MoveGenerator;
+import board.MoveList;
+import board.Piece;
+import board.Position;
+import evaluation.SimpleEvaluation;
+
+/**
+ * Misst den Speedup der parallelen Alpha-Beta-Suche: dieselben Stellungen
+ * werden mit fester Tiefe und 1, 2, 4, ... Threads berechnet. Die Stellungen
+ * entstehen aus zufälligen Partien mit festem Seed. Vorher läuft ein
+ * ungezählter Durchgang zum Aufwärmen des JIT. Für mehr Threads als Kerne
+ * wird kein Speedup ausgegeben.
+ *
+ * Aufruf: java engine.SearchBenchmark [Tiefe] [max. Threads] [Stellungen]
+ *
+ * Mit "mtdf" als viertem Argument werden stattdessen (mit einem Thread)
+ * Iterative Deepening mit vollem Fenster und MTD(f) auf denselben Stellungen
+ * verglichen, mit "quiescence" die Suche mit Quiescence bei Tiefe x und die
+ * ohne bei Tiefe x + 1.
+ *
+ * @author maurice
+ *
+ */
+public class SearchBenchmark {
+
+	static final String SETUP_GOLD = "Ra1 Rb1 Rc1 Rd1 Re1 Rf1 Rg1 Rh1 Da2 Hb2 Cc2 Ed2 He2 Cf2 Mg2 Dh2";
+	static final String SETUP_SILVER = "ra8 rb8 rc8 rd8 re8 rf8 rg8 rh8 da7 mb7 cc7 hd7 ee7 cf7 hg7 dh7";
+
+	public static void main(String[] args) {
+
+		int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 6;
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1])
+				: Runtime.getRuntime().availableProcessors();
+		int count = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+
+		if (args.length > 3 && args[3].equals("mtdf")) {
+			compareMtdf(depth, count);
+			return;
+		}
+
+		if (args.length > 3 && args[3].equals("quiescence")) {
+			compareQuiescence(depth, count);
+			return;
+		}
+
+		/*
+		 * Ungezählter Durchgang, damit die erste gemessene Thread-Anzahl nicht
+		 * als einzige mit kaltem JIT rechnet.
+		 */
+		benchmark(depth, 1, count, new StringBuilder());
+		benchmark(depth, maxThreads, count, new StringBuilder());
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		long serialTime = 0;
+
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+
+			StringBuilder report = new StringBuilder();
+			long time = benchmark(depth, threads, count, report);
+
+			if (threads == 1) {
+				serialTime = time;
+			}
+
+			/*
+			 * Mehr Threads als Kerne rechnen nur abwechselnd, ein Speedup
+			 * sagt dann nichts aus.
+			 */
+			String speedup = (threads <= cores) ? String.format("%.2f",
+					(double) serialTime / time) : "n/a (" + cores + " cores)";
+
+			System.out.println("threads " + threads + ": " + time / 1000000
+					+ " ms, speedup " + speedup + ", " + report);
+		}
+	}
+
+	/**
+	 * Berechnet alle Stellungen mit einer Thread-Anzahl.
+	 *
+	 * @param report
+	 *            bekommt Knoten, Split-Points, Scores und Cut-offs
+	 * @return die Zeit in ns
+	 */
+	private static long benchmark(int depth, int threads, int count,
+			StringBuilder report) {
+
+		EngineGeneralAttributes generalAttributes = new EngineGeneralAttributes(
+				new MessageOutputWriter());
+		generalAttributes.setOption("threads", String.valueOf(threads));
+		generalAttributes.setOption("hash", "256");
+		generalAttributes.setColorToPlay(Constants.Color.GOLD);
+
+		long time = 0;
+		long nodes = 0;
+		int splits = 0;
+		String moves = "";
+		String cutoffs = "";
+
+		for (Bitboard board : generatePositions(generalAttributes, count)) {
+			SearchContext context = new SearchContext();
+			long startTime = System.nanoTime();
+
+			AlphaBeta alphaBeta = search(generalAttributes, board, context,
+					depth, generalAttributes.getUseQuiescence());
+
+			time += System.nanoTime() - startTime;
+			nodes += context.getStatistics().getNodesVisited();
+			splits += context.getStatistics().getSplits();
+			moves += " " + alphaBeta.bestScore;
+			cutoffs += "\n  " + context.getStatistics().getCutoffStatistics();
+		}
+
+		report.append(nodes + " nodes, " + nodes * 1000000000L
+				/ Math.max(time, 1) + " nodes/s, " + splits
+				+ " splits, scores" + moves + cutoffs);
+
+		return time;
+	}
+
+	/**
+	 * Iterative Deepening bis zur übergebenen Tiefe, einmal mit vollem Fenster
+	 * je Tiefe und einmal mit MTD(f), jeweils mit leerem Transposition-Table.
+	 * Verglichen werden vor allem die Knoten. Damit die Zeiten nicht von der
+	 * Reihenfolge abhängen, laufen vorher beide Verfahren ungezählt auf allen
+	 * Stellungen, danach wechselt die Reihenfolge von Stellung zu Stellung.
+	 */
+	private static void compareMtdf(int depth, int count) {
+
+		MessageOutputWriter messageWriter = new MessageOutputWriter();
+		EngineGeneralAttributes generalAttributes = new EngineGeneralAttributes(
+				messageWriter);
+		generalAttributes.setOption("threads", "1");
+		generalAttributes.setOption("hash", "256");
+		generalAttributes.setColorToPlay(Constants.Color.GOLD);
+
+		ArrayList<Bitboard> positions = generatePositions(generalAttributes,
+				count);
+
+		for (Bitboard board : positions) {
+			searchIterative(generalAttributes, board, depth,
+					new SearchContext());
+			searchMtdf(generalAttributes, board, depth, new SearchContext());
+		}
+
+		long[] time = new long[2];
+		long[] nodes = new long[2];
+		int position = 0;
+
+		for (Bitboard board : positions) {
+
+			int[] score = new int[2];
+			long[] positionNodes = new long[2];
+
+			for (int run = 0; run < 2; run++) {
+
+				/* Gerade Stellungen: erst Iterative Deepening */
+				int method = (position % 2 == 0) ? run : 1 - run;
+				SearchContext context = new SearchContext();
+				long startTime = System.nanoTime();
+
+				score[method] = (method == 0) ? searchIterative(
+						generalAttributes, board, depth, context)
+						: searchMtdf(generalAttributes, board, depth, context);
+
+				time[method] += System.nanoTime() - startTime;
+				positionNodes[method] = context.getStatistics()
+						.getNodesVisited();
+				nodes[method] += positionNodes[method];
+			}
+
+			System.out.println("position " + position
+					+ ": iterative deepening " + positionNodes[0]
+					+ " nodes, score " + score[0] + ", mtdf "
+					+ positionNodes[1] + " nodes, score " + score[1]);
+
+			position++;
+		}
+
+		System.out.println("iterative deepening: " + nodes[0] + " nodes, "
+				+ time[0] / 1000000 + " ms");
+		System.out.println("mtdf: " + nodes[1] + " nodes ("
+				+ String.format("%+.1f", 100.0 * (nodes[1] - nodes[0])
+						/ Math.max(nodes[0], 1)) + "%), " + time[1] / 1000000
+				+ " ms");
+	}
+
+	/**
+	 * Iterative Deepening mit vollem Fenster je Tiefe und leerem Table.
+	 */
+	private static int searchIterative(
+			EngineGeneralAttributes generalAttributes, Bitboard board,
+			int depth, SearchContext context) {
+
+		AlphaBeta alphaBeta = createAlphaBeta(generalAttributes, board);
+		int score = 0;
+
+		for (int d = 1; d <= depth; d++) {
+			score = alphaBeta.alphaBeta(board, context, d, true,
+					generalAttributes.getColor(), 4, -1000000000, 1000000000,
+					true, true, true, d, generalAttributes.getUseQuiescence(),
+					false, false);
+		}
+
+		return score;
+	}
+
+	/**
+	 * Iterative Deepening mit MTD(f) und leerem Table, Startwert ist die
+	 * Evaluierung der Wurzel.
+	 */
+	private static int searchMtdf(EngineGeneralAttributes generalAttributes,
+			Bitboard board, int depth, SearchContext context) {
+
+		AlphaBeta alphaBeta = createAlphaBeta(generalAttributes, board);
+		MTDf mtdf = new MTDf(new MessageOutputWriter(), generalAttributes);
+
+		int score = new SimpleEvaluation(generalAttributes)
+				.evaluateBoardState(board, false);
+
+		for (int d = 1; d <= depth; d++) {
+			score = mtdf.mtdf(alphaBeta, context, board, d, score);
+		}
+
+		return score;
+	}
+
+	/**
+	 * Mit einem Thread: Quiescence bei der übergebenen Tiefe gegen die Suche
+	 * ohne Quiescence, aber einen Schritt tiefer. Verglichen werden Knoten,
+	 * Zeit, Score und ob der erste Schritt der Zugfolge gleich ist.
+	 */
+	private static void compareQuiescence(int depth, int count) {
+
+		EngineGeneralAttributes generalAttributes = new EngineGeneralAttributes(
+				new MessageOutputWriter());
+		generalAttributes.setOption("threads", "1");
+		generalAttributes.setOption("hash", "256");
+		generalAttributes.setColorToPlay(Constants.Color.GOLD);
+
+		long[] time = new long[2];
+		long[] nodes = new long[2];
+		int sameMove = 0;
+		int position = 0;
+
+		for (Bitboard board : generatePositions(generalAttributes, count)) {
+
+			SearchContext quiescenceContext = new SearchContext();
+			long startTime = System.nanoTime();
+			AlphaBeta quiescence = search(generalAttributes, board,
+					quiescenceContext, depth, true);
+			time[0] += System.nanoTime() - startTime;
+			nodes[0] += quiescenceContext.getStatistics().getNodesVisited();
+
+			SearchContext deeperContext = new SearchContext();
+			startTime = System.nanoTime();
+			AlphaBeta deeper = search(generalAttributes, board, deeperContext,
+					depth + 1, false);
+			time[1] += System.nanoTime() - startTime;
+			nodes[1] += deeperContext.getStatistics().getNodesVisited();
+
+			boolean same = quiescence.getBestLine().length > 0
+					&& deeper.getBestLine().length > 0
+					&& quiescence.getBestLine()[0] == deeper.getBestLine()[0];
+
+			if (same) {
+				sameMove++;
+			}
+
+			System.out.println("position " + position + ": quiescence "
+					+ quiescenceContext.getStatistics().getNodesVisited()
+					+ " nodes, score " + quiescence.bestScore + ", depth "
+					+ (depth + 1) + " "
+					+ deeperContext.getStatistics().getNodesVisited()
+					+ " nodes, score "
+					+ deeper.bestScore + (same ? ", same" : ", different")
+					+ " first step");
+
+			position++;
+		}
+
+		System.out.println("quiescence at depth " + depth + ": " + time[0]
+				/ 1000000 + " ms, " + nodes[0] + " nodes");
+		System.out.println("no quiescence at depth " + (depth + 1) + ": "
+				+ time[1] / 1000000 + " ms, " + nodes[1] + " nodes");
+		System.out.println("same first step in " + sameMove + " of " + count
+				+ " positions");
+	}
+
+	/**
+	 * Eine Suche mit fester Tiefe und leerem Transposition-Table. Die
+	 * Zugfolge steht danach in getBestLine(), die Zähler im übergebenen
+	 * Kontext.
+	 */
+	private static AlphaBeta search(EngineGeneralAttributes generalAttributes,
+			Bitboard board, SearchContext context, int depth,
+			boolean isQuiescence) {
+
+		AlphaBeta alphaBeta = createAlphaBeta(generalAttributes, board);
+
+		alphaBeta.bestScore = alphaBeta.alphaBeta(board, context, depth, true,
+				generalAttributes.getColor(), 4, -1000000000, 1000000000,
+				true, true, true, depth, isQuiescence, true, false);
+		alphaBeta.bestLine = context.getPv(depth);
+
+		return alphaBeta;
+	}
+
+	/**
+	 * Eine Alpha-Beta-Instanz mit leerem Transposition-Table, bereit für
+	 * alphaBeta() auf dem übergebenen Board.
+	 */
+	static AlphaBeta createAlphaBeta(
+			EngineGeneralAttributes generalAttributes, Bitboard board) {
+
+		MessageOutputWriter messageWriter = new MessageOutputWriter();
+		AlphaBeta alphaBeta = new AlphaBeta(messageWriter, generalAttributes);
+		Transposition transposition = new Transposition(
+				generalAttributes.getHash());
+
+		transposition.initTranspsition();
+		transposition.newSearch();
+
+		alphaBeta.newThread();
+		alphaBeta.setTransposition(transposition);
+		alphaBeta.setRepetitionCounter(new RepetitionCounter());
+		alphaBeta.setOldBoardHash(board.getZobristHash());
+		alphaBeta.setEvaluation(new SimpleEvaluation(generalAttributes));
+
+		return alphaBeta;
+	}
+
+	/**
+	 * Spielt zufällige Partien und nimmt jeweils die Stellung nach 10 Zügen.
+	 */
+	static ArrayList<Bitboard> generatePositions(
+			EngineGeneralAttributes generalAttributes, int count) {
+
+		ArrayList<Bitboard> positions = new ArrayList<Bitboard>();
+		MoveGenerator moveGen = new MoveGenerator();
+		MoveList moveList = new MoveList();
+
+		for (int game = 0; game < count; game++) {
+			Bitboard board = new Bitboard(generalAttributes);
+
+			for (String piece : (SETUP_GOLD + " " + SETUP_SILVER).split(" ")) {
+				int color = Character.isUpperCase(piece.charAt(0)) ? 1 : 0;
+				int type = "emhdcr".indexOf(Character.toLowerCase(piece
+						.charAt(0)));
+				board.setPieceAtPosition(new Piece(new Position(
+						piece.charAt(1) - 'a', piece.charAt(2) - '1'), color,
+						type));
+			}
+
+			Random random = new Random(game);
+			int color = 1;
+
+			for (int step = 0; step < 40; step++) {
+				moveGen.generateAllColorMoves(board, color, moveList);
+
+				if (moveList.isEmpty()) {
+					break;
+				}
+
+				board.applyMoveAndRemovePieces(moveList.get(random
+						.nextInt(moveList.size())));
+
+				if (step % 4 == 3) {
+					color = 1 - color;
+				}
+			}
+
+			positions.add(board);
+		}
+
+		return positions;
+	}
+
+}
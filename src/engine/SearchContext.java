@@ -0,0 +1,452 @@
+package engine;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import board.MoveList;
+import board.Step;
+
+/**
+ * Daten, die ein einzelner Such-Thread für sich alleine braucht. Damit müssen
+ * in der Rekursion keine Listen oder sonstigen Objekte pro Knoten erzeugt
+ * werden. Jeder Thread, der eine (Teil-)Suche ausführt, braucht eine eigene
+ * Instanz!
+ *
+ * Neben den Zug-Listen liegt hier die Hauptvariante als Dreiecks-Tabelle: der
+ * Knoten auf Tiefe d schreibt seine beste Zugfolge nach pv[d], indem er den
+ * besten Zug vor die Zugfolge des Kindes (pv[d - 1] bzw. pv[d - 2] bei
+ * Push/Pull) setzt. Die Suche selbst gibt nur noch den Score zurück.
+ *
+ * Außerdem das Gedächtnis für die Zug-Sortierung im MovePicker, das bei
+ * Cut-offs ohne Schlag gefüllt wird: Killer-Züge je Tiefe, History (wie oft
+ * ein Schritt mit Figur, Feld und Richtung einen Cut-off erzeugt hat,
+ * gewichtet mit der Tiefe) und Countermoves (welcher Zug zuletzt auf einen
+ * bestimmten vorherigen Zug einen Cut-off erzeugt hat).
+ *
+ * @author maurice
+ *
+ */
+public class SearchContext {
+
+	/**
+	 * Eine Zug-Liste pro Rekursionstiefe. Da die Tiefe auf einem Pfad immer
+	 * abnimmt, kann jede Ebene ihre Liste wiederverwenden.
+	 */
+	private MoveList[] moveLists = new MoveList[0];
+
+	/**
+	 * Ein MovePicker pro Rekursionstiefe, er generiert in die Liste derselben
+	 * Tiefe.
+	 */
+	private MovePicker[] movePickers = new MovePicker[0];
+
+	/**
+	 * Killer-Züge: je Tiefe die letzten beiden Züge ohne Schlag, die einen
+	 * Cut-off erzeugt haben (killers[2 * d] ist der neuere).
+	 */
+	private int[] killers = new int[0];
+
+	/**
+	 * History je erstem Schritt eines Zuges. Die unteren 12 Bit eines
+	 * Schrittes sind Feld, Richtung, Figur und Farbe (siehe board.Step).
+	 */
+	private int[] history = new int[1 << 12];
+
+	/* Ab diesem Wert wird die ganze History halbiert */
+	private static final int HISTORY_MAX = 1 << 20;
+
+	/**
+	 * Countermove je vorherigem Zug in Kurzform (siehe board.Step.compress).
+	 */
+	private int[] counterMoves = new int[1281];
+
+	/*
+	 * Der zuletzt ausgeführte Zug. Die Suche setzt ihn vor jedem rekursiven
+	 * Aufruf, das Kind liest ihn als erstes.
+	 */
+	private int previousMove = Step.NONE;
+
+	/**
+	 * Zug-Listen der Quiescence-Suche, eine pro Ebene unterhalb der Blätter.
+	 */
+	private MoveList[] quiescenceLists = new MoveList[0];
+
+	/* Wie viele Knoten die laufende Quiescence-Suche noch expandieren darf */
+	private int quiescenceBudget = 0;
+
+	/**
+	 * Hauptvariante je Rekursionstiefe (kodierte Züge, siehe board.Step) und
+	 * deren Länge. Auf Tiefe d ist die Zugfolge höchstens d Züge lang.
+	 */
+	private int[][] pv = new int[0][];
+	private int[] pvLength = new int[0];
+
+	/**
+	 * Split-Point, unter dem dieser Thread rechnet (null für die Wurzel).
+	 */
+	private SplitPoint splitPoint = null;
+
+	/**
+	 * Alle wie viele Knoten auf Abbruch geprüft wird. Bei wenigen µs pro
+	 * Knoten ist ein Abbruch damit nach deutlich unter einer ms bemerkt.
+	 */
+	private static final int POLL_INTERVAL = 16;
+
+	private int pollCounter = 0;
+
+	/* Einmal abgebrochen, bleibt der Kontext abgebrochen */
+	private boolean stopped = false;
+
+	/* Zähler dieses Threads, inklusive der gejointen Teilbäume */
+	private SearchStatistics statistics = new SearchStatistics();
+
+	public SearchContext() {
+	}
+
+	/**
+	 * Bereitet einen Kontext für einen Teilbaum vor, der parallel unter einem
+	 * Split-Point berechnet wird. Ein Kontext wird im selben Thread für viele
+	 * Teilbäume benutzt: Abbruch, Hauptvariante und Zähler werden
+	 * zurückgesetzt, Zug-Listen, Killer, History und Countermoves bleiben
+	 * erhalten, damit die Zug-Sortierung weiter davon profitiert.
+	 *
+	 * @param splitPoint
+	 *            Split-Point, unter dem als nächstes gerechnet wird
+	 */
+	public void attach(SplitPoint splitPoint) {
+		this.splitPoint = splitPoint;
+		this.stopped = false;
+		this.pollCounter = 0;
+		this.previousMove = Step.NONE;
+		this.quiescenceBudget = 0;
+		Arrays.fill(pvLength, 0);
+		statistics.reset();
+	}
+
+	/**
+	 * Gibt die Zug-Liste für eine Rekursionstiefe zurück. Tiefen <= 0 (Blätter)
+	 * teilen sich eine Liste.
+	 *
+	 * @param depth
+	 *            Rekursionstiefe
+	 * @return wiederverwendbare Liste
+	 */
+	public MoveList getMoveList(int depth) {
+		int index = (depth < 0) ? 0 : depth;
+
+		if (index >= moveLists.length) {
+			grow(index);
+		}
+
+		return moveLists[index];
+	}
+
+	/**
+	 * Gibt die Zug-Liste für eine Ebene der Quiescence-Suche zurück.
+	 *
+	 * @param ply
+	 *            Ebene unterhalb des Blattes (0 = das Blatt selbst)
+	 * @return wiederverwendbare Liste
+	 */
+	public MoveList getQuiescenceList(int ply) {
+		if (ply >= quiescenceLists.length) {
+			MoveList[] newLists = new MoveList[ply + 8];
+			System.arraycopy(quiescenceLists, 0, newLists, 0,
+					quiescenceLists.length);
+
+			for (int i = quiescenceLists.length; i < newLists.length; i++) {
+				newLists[i] = new MoveList();
+			}
+
+			quiescenceLists = newLists;
+		}
+
+		return quiescenceLists[ply];
+	}
+
+	/**
+	 * Startet die Quiescence-Suche eines Blattes mit einer festen Anzahl
+	 * Knoten, die expandiert werden dürfen.
+	 */
+	public void startQuiescence(int nodes) {
+		quiescenceBudget = nodes;
+	}
+
+	/**
+	 * Verbraucht einen Knoten der Quiescence-Suche.
+	 *
+	 * @return false, wenn das Budget schon aufgebraucht ist
+	 */
+	public boolean takeQuiescenceNode() {
+		return quiescenceBudget-- > 0;
+	}
+
+	/**
+	 * Gibt den MovePicker für eine Rekursionstiefe zurück. Er benutzt dieselbe
+	 * Liste wie getMoveList(depth).
+	 *
+	 * @param depth
+	 *            Rekursionstiefe
+	 * @return wiederverwendbarer MovePicker
+	 */
+	public MovePicker getMovePicker(int depth) {
+		int index = (depth < 0) ? 0 : depth;
+
+		if (index >= movePickers.length) {
+			grow(index);
+		}
+
+		return movePickers[index];
+	}
+
+	/**
+	 * Gibt einen Killer-Zug einer Tiefe zurück.
+	 *
+	 * @param depth
+	 *            Rekursionstiefe
+	 * @param slot
+	 *            0 für den neueren, 1 für den älteren Killer
+	 * @return kodierter Zug oder Step.NONE
+	 */
+	public int getKiller(int depth, int slot) {
+		int index = (depth < 0) ? 0 : depth;
+
+		if (2 * index + slot >= killers.length) {
+			return Step.NONE;
+		}
+
+		return killers[2 * index + slot];
+	}
+
+	/**
+	 * History-Wert eines Zuges, höher heißt öfter (und tiefer) ein Cut-off.
+	 */
+	public int getHistory(int move) {
+		return history[move & 0xFFF];
+	}
+
+	/**
+	 * Der Zug, der zuletzt auf den übergebenen Zug einen Cut-off erzeugt hat,
+	 * oder Step.NONE.
+	 */
+	public int getCounterMove(int previousMove) {
+		return counterMoves[Step.compress(previousMove)];
+	}
+
+	/**
+	 * Merkt sich einen Zug, der einen Cut-off erzeugt hat, als Killer-Zug
+	 * der Tiefe (der ältere der beiden Killer fällt heraus), in der History
+	 * und als Countermove auf den vorherigen Zug.
+	 *
+	 * @param depth
+	 *            Rekursionstiefe
+	 * @param move
+	 *            kodierter Zug (kein Schlag)
+	 * @param previousMove
+	 *            der Zug, der zu diesem Knoten geführt hat
+	 */
+	public void addCutoff(int depth, int move, int previousMove) {
+		int index = (depth < 0) ? 0 : depth;
+
+		if (index >= movePickers.length) {
+			grow(index);
+		}
+
+		if (killers[2 * index] != move) {
+			killers[2 * index + 1] = killers[2 * index];
+			killers[2 * index] = move;
+		}
+
+		history[move & 0xFFF] += index * index + 1;
+
+		if (history[move & 0xFFF] > HISTORY_MAX) {
+			for (int i = 0; i < history.length; i++) {
+				history[i] >>= 1;
+			}
+		}
+
+		counterMoves[Step.compress(previousMove)] = move;
+	}
+
+	/**
+	 * Füllt die History mit kleinen Zufallswerten. Für die Helfer von Lazy
+	 * SMP, damit jeder die ruhigen Züge anfangs in einer anderen Reihenfolge
+	 * probiert. Echte Cut-offs überwiegen das Rauschen nach einigen
+	 * Iterationen.
+	 *
+	 * @param random
+	 *            Zufallsgenerator mit eigenem Seed je Helfer
+	 * @param bound
+	 *            obere Grenze (exklusiv) der Werte
+	 */
+	public void seedHistory(Random random, int bound) {
+		for (int i = 0; i < history.length; i++) {
+			history[i] = random.nextInt(bound);
+		}
+	}
+
+	public int getPreviousMove() {
+		return previousMove;
+	}
+
+	public void setPreviousMove(int move) {
+		this.previousMove = move;
+	}
+
+	/**
+	 * Vergrößert die Tabellen, sodass Tiefe index hineinpasst.
+	 */
+	private void grow(int index) {
+		int length = index + 8;
+
+		MoveList[] newLists = new MoveList[length];
+		System.arraycopy(moveLists, 0, newLists, 0, moveLists.length);
+
+		int[][] newPv = new int[length][];
+		System.arraycopy(pv, 0, newPv, 0, pv.length);
+
+		int[] newPvLength = new int[length];
+		System.arraycopy(pvLength, 0, newPvLength, 0, pvLength.length);
+
+		MovePicker[] newPickers = new MovePicker[length];
+		System.arraycopy(movePickers, 0, newPickers, 0, movePickers.length);
+
+		int[] newKillers = new int[2 * length];
+		System.arraycopy(killers, 0, newKillers, 0, killers.length);
+
+		for (int i = moveLists.length; i < length; i++) {
+			newLists[i] = new MoveList();
+			newPickers[i] = new MovePicker(newLists[i], this);
+			newPv[i] = new int[i + 1];
+		}
+
+		moveLists = newLists;
+		movePickers = newPickers;
+		killers = newKillers;
+		pv = newPv;
+		pvLength = newPvLength;
+	}
+
+	/**
+	 * Leert die Hauptvariante eines Knotens. Wird beim Betreten jedes Knotens
+	 * aufgerufen, Blätter und Cut-offs aus dem Table haben keine Zugfolge.
+	 *
+	 * @param depth
+	 *            Rekursionstiefe des Knotens
+	 */
+	public void clearPv(int depth) {
+		int index = (depth < 0) ? 0 : depth;
+
+		if (index >= pvLength.length) {
+			grow(index);
+		}
+
+		pvLength[index] = 0;
+	}
+
+	/**
+	 * Ein Kind hat den bisher besten Wert geliefert: Die Hauptvariante des
+	 * Knotens wird der Zug gefolgt von der Zugfolge des Kindes.
+	 *
+	 * @param depth
+	 *            Rekursionstiefe des Knotens
+	 * @param move
+	 *            kodierter Zug zum Kind
+	 * @param child
+	 *            Kontext, in dem das Kind gerechnet wurde
+	 * @param childDepth
+	 *            Rekursionstiefe des Kindes
+	 */
+	public void updatePv(int depth, int move, SearchContext child,
+			int childDepth) {
+		int index = (depth < 0) ? 0 : depth;
+		int childIndex = (childDepth < 0) ? 0 : childDepth;
+		int length = child.pvLength[childIndex];
+
+		pv[index][0] = move;
+		System.arraycopy(child.pv[childIndex], 0, pv[index], 1, length);
+		pvLength[index] = length + 1;
+	}
+
+	/**
+	 * Wie oben, für ein Kind, das in einem anderen Kontext gerechnet wurde
+	 * und dessen Zugfolge schon kopiert ist.
+	 *
+	 * @param depth
+	 *            Rekursionstiefe des Knotens
+	 * @param move
+	 *            kodierter Zug zum Kind
+	 * @param childPv
+	 *            Zugfolge des Kindes
+	 */
+	public void updatePv(int depth, int move, int[] childPv) {
+		int index = (depth < 0) ? 0 : depth;
+
+		pv[index][0] = move;
+		System.arraycopy(childPv, 0, pv[index], 1, childPv.length);
+		pvLength[index] = childPv.length + 1;
+	}
+
+	/**
+	 * Gibt eine Kopie der Hauptvariante eines Knotens zurück, z.B. die der
+	 * Wurzel nach einer vollständigen Suche.
+	 *
+	 * @param depth
+	 *            Rekursionstiefe des Knotens
+	 * @return kodierte Züge (siehe board.Step)
+	 */
+	public int[] getPv(int depth) {
+		int index = (depth < 0) ? 0 : depth;
+
+		if (index >= pvLength.length) {
+			return new int[0];
+		}
+
+		return Arrays.copyOf(pv[index], pvLength[index]);
+	}
+
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	public SplitPoint getSplitPoint() {
+		return splitPoint;
+	}
+
+	/**
+	 * Wird an jedem Knoten aufgerufen und prüft alle POLL_INTERVAL Knoten, ob
+	 * die Suche gestoppt wurde oder der Teilbaum nach einem Cut-off an einem
+	 * Split-Point darüber nicht mehr gebraucht wird.
+	 *
+	 * @param cancellation
+	 *            Abbruch-Signal der Engine
+	 * @return true, wenn die Suche dieses Threads aufhören soll
+	 */
+	public boolean pollStop(CancellationToken cancellation) {
+		if (!stopped && ++pollCounter >= POLL_INTERVAL) {
+			checkStop(cancellation);
+		}
+		return stopped;
+	}
+
+	/**
+	 * Wie pollStop, aber sofort.
+	 */
+	public boolean checkStop(CancellationToken cancellation) {
+		pollCounter = 0;
+		if (!stopped) {
+			stopped = cancellation.isCancelled()
+					|| (splitPoint != null && splitPoint.isAborted());
+		}
+		return stopped;
+	}
+
+	/**
+	 * Ob in diesem Kontext schon ein Abbruch bemerkt wurde. Dann sind die
+	 * Werte der laufenden Suche unvollständig.
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+}
@@ -0,0 +1,134 @@
+package engine;
+
+/**
+ * Zähler einer Suche: besuchte Blätter, Cut-offs (und wie viele davon schon
+ * beim ersten Zug kamen), Split-Points und Zugriffe auf das
+ * Transposition-Table. Jeder SearchContext zählt für sich, ohne
+ * Synchronisation. Die Zähler paralleler Teilbäume werden nach join() in den
+ * Kontext des Split-Points addiert, die Wurzel hat damit die Summe über alle
+ * Threads.
+ *
+ * @author maurice
+ *
+ */
+public class SearchStatistics {
+
+	private long nodesVisited = 0;
+
+	private long cutoffs = 0;
+	private long firstMoveCutoffs = 0;
+
+	private int splits = 0;
+
+	private long probes = 0;
+	private long hits = 0;
+	private long stores = 0;
+	private long replacements = 0;
+
+	public void countNode() {
+		nodesVisited++;
+	}
+
+	/**
+	 * Zählt einen Cut-off.
+	 *
+	 * @param searched
+	 *            das wievielte Kind den Cut-off erzeugt hat
+	 */
+	public void countCutoff(int searched) {
+		cutoffs++;
+
+		if (searched == 1) {
+			firstMoveCutoffs++;
+		}
+	}
+
+	public void countSplit() {
+		splits++;
+	}
+
+	/**
+	 * Zählt einen Lookup im Transposition-Table.
+	 *
+	 * @param hit
+	 *            ob ein Eintrag gefunden wurde
+	 */
+	public void countProbe(boolean hit) {
+		probes++;
+
+		if (hit) {
+			hits++;
+		}
+	}
+
+	/**
+	 * Zählt einen Eintrag ins Transposition-Table.
+	 *
+	 * @param replaced
+	 *            ob dafür eine andere Stellung überschrieben wurde
+	 */
+	public void countStore(boolean replaced) {
+		stores++;
+
+		if (replaced) {
+			replacements++;
+		}
+	}
+
+	/**
+	 * Addiert die Zähler eines anderen (fertigen) Teilbaums.
+	 */
+	public void add(SearchStatistics other) {
+		nodesVisited += other.nodesVisited;
+		cutoffs += other.cutoffs;
+		firstMoveCutoffs += other.firstMoveCutoffs;
+		splits += other.splits;
+		probes += other.probes;
+		hits += other.hits;
+		stores += other.stores;
+		replacements += other.replacements;
+	}
+
+	public void reset() {
+		nodesVisited = 0;
+		cutoffs = 0;
+		firstMoveCutoffs = 0;
+		splits = 0;
+		probes = 0;
+		hits = 0;
+		stores = 0;
+		replacements = 0;
+	}
+
+	public long getNodesVisited() {
+		return nodesVisited;
+	}
+
+	/**
+	 * Anzahl der Knoten, die auf mehrere Threads aufgeteilt wurden.
+	 */
+	public int getSplits() {
+		return splits;
+	}
+
+	/**
+	 * Gibt eine Zeile mit der Statistik der Zug-Sortierung für das Log
+	 * zurück: Anteil der Cut-offs, die schon beim ersten Zug kamen.
+	 */
+	public String getCutoffStatistics() {
+		return "cutoffs " + cutoffs + ", "
+				+ (cutoffs == 0 ? 0 : 100 * firstMoveCutoffs / cutoffs)
+				+ "% on first move";
+	}
+
+	/**
+	 * Gibt eine Zeile mit Trefferquote und Ersetzungen im
+	 * Transposition-Table für das Log zurück.
+	 */
+	public String getTableStatistics() {
+		return "tt probes " + probes + ", hits " + hits + " ("
+				+ (probes == 0 ? 0 : 100 * hits / probes) + "%), stores "
+				+ stores + ", replaced " + replacements;
+	}
+
+}
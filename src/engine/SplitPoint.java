@@ -0,0 +1,66 @@
+package engine;
+
+/**
+ * Ein Knoten, an dem die Suche auf mehrere Threads aufgeteilt wurde (Young
+ * Brothers Wait). Der erste Kind-Knoten wurde schon seriell berechnet, die
+ * restlichen laufen als ParallelAlphaBetaTask im Pool. Hier liegen das
+ * aktuelle Fenster, mit dem neu startende Teilbäume anfangen, und ob der
+ * Knoten nach einem Cut-off abgebrochen wurde.
+ *
+ * Ein Abbruch gilt auch für alle darunter liegenden Split-Points. Die Suche
+ * fragt daher {@link #isAborted()} ab, das die Kette bis zur Wurzel prüft.
+ *
+ * @author maurice
+ *
+ */
+public class SplitPoint {
+
+	/* Split-Point, unter dem dieser liegt (oder null) */
+	private final SplitPoint parent;
+
+	private volatile int alpha;
+	private volatile int beta;
+	private volatile boolean aborted = false;
+
+	public SplitPoint(SplitPoint parent, int alpha, int beta) {
+		this.parent = parent;
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+	/**
+	 * Übernimmt das Fenster des Knotens, nachdem ein Teilbaum fertig ist.
+	 */
+	public void setWindow(int alpha, int beta) {
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+	public int getAlpha() {
+		return alpha;
+	}
+
+	public int getBeta() {
+		return beta;
+	}
+
+	/**
+	 * Bricht alle noch laufenden Teilbäume dieses Knotens ab.
+	 */
+	public void abort() {
+		aborted = true;
+	}
+
+	/**
+	 * Ob dieser oder ein darüber liegender Split-Point abgebrochen wurde.
+	 */
+	public boolean isAborted() {
+		for (SplitPoint sp = this; sp != null; sp = sp.parent) {
+			if (sp.aborted) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,199 @@
+package engine;
+
+import java.util.Random;
+
+import network.MessageOutputWriter;
+import board.Constants;
+
+/**
+ * Misst, wie schnell nach "stop" der beste Zug kommt, über denselben Weg wie
+ * im Spiel: EngineController.go() startet Engine und Zeitkontrolle, nach
+ * einer zufälligen Zeit beendet EngineController.stop() die Suche, wartet auf
+ * den Engine-Thread (inklusive Abschluss der Suche, Log und Ausgabe des
+ * bestmove) und auf den Thread der Zeitkontrolle. Gemessen wird vom Aufruf
+ * von stop() bis zu dessen Rückkehr, der bestmove ist dann schon ausgegeben.
+ *
+ * Engine und Optionen kommen wie beim Bot aus arimaa_bot.conf im aktuellen
+ * Verzeichnis, nur "threads" wird gesetzt. Die Engine spielt gegen sich
+ * selbst, jeder gestoppte Zug wird ausgeführt. Log-Zeilen werden wie beim Bot
+ * in die Log-Datei geschrieben, aber nicht auf die Konsole. Ist eine Suche
+ * schon vor "stop" fertig (zu geringe Tiefe in der Config), zählt sie nicht.
+ *
+ * Vorher wärmen WARMUP_TIME ms lang ungezählte Züge die JVM auf. Solange der
+ * JIT noch übersetzt (bei wechselnden Stellungen gut 15 Sekunden), nimmt er
+ * der Suche auf wenigen Kernen die CPU weg und die Latenz hängt an der
+ * Zeitscheibe des Betriebssystems, nicht an der Suche. Die Grenze von
+ * MAX_LATENCY gilt also erst für eine aufgewärmte JVM, auf einem einzelnen
+ * Kern erst nach diesen 20 Sekunden. Auch dann liegt dort der Schnitt bei gut
+ * 1 ms, einzelne Durchläufe brauchen aber eine ganze Zeitscheibe länger
+ * (Engine-Thread oder Log-Datei verdrängt) und können die Grenze reißen.
+ *
+ * Liegt die maximale Latenz bei MAX_LATENCY oder darüber, endet das Programm
+ * mit Exit-Code 1.
+ *
+ * Aufruf: java engine.StopLatencyBenchmark [Durchläufe] [Threads]
+ *
+ * @author maurice
+ *
+ */
+public class StopLatencyBenchmark {
+
+	/* Dauer des Aufwärmens in ms */
+	private static final long WARMUP_TIME = 20000;
+
+	/* Obergrenze für die maximale Latenz in ms */
+	private static final double MAX_LATENCY = 5.0;
+
+	/* Nach so vielen Zügen beginnt ein neues Spiel */
+	private static final int MAX_MOVES = 30;
+
+	private EngineGeneralAttributes generalAttributes;
+
+	private EngineController controller;
+
+	/* Zuletzt ausgegebener bestmove (ohne "bestmove ") */
+	private volatile String bestMove;
+
+	/* Farbe am Zug und Anzahl Züge im laufenden Spiel */
+	private int color;
+	private int moves;
+
+	public StopLatencyBenchmark(int threads) {
+
+		MessageOutputWriter messageWriter = new MessageOutputWriter() {
+			@Override
+			public synchronized void sendMessage(String message) {
+				if (message.startsWith("bestmove ")) {
+					bestMove = message.substring(9);
+				}
+				writeLog("ENG: " + message);
+			}
+		};
+
+		generalAttributes = new EngineGeneralAttributes(messageWriter);
+		generalAttributes.loadEngineConfigFromFile();
+		generalAttributes.setOption("threads", String.valueOf(threads));
+		generalAttributes.setOption("hash", "64");
+
+		controller = new EngineController(generalAttributes, messageWriter);
+
+		newGame();
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+
+		int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1])
+				: Runtime.getRuntime().availableProcessors();
+
+		Random random = new Random(1);
+		boolean failed = false;
+
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+
+			StopLatencyBenchmark benchmark = new StopLatencyBenchmark(threads);
+
+			long warmupEnd = System.currentTimeMillis() + WARMUP_TIME;
+
+			while (System.currentTimeMillis() < warmupEnd) {
+				benchmark.measure(100 + random.nextInt(400));
+			}
+
+			long total = 0;
+			long max = 0;
+			int run = 0;
+			int early = 0;
+
+			for (int i = 0; i < runs; i++) {
+				long latency = benchmark.measure(100 + random.nextInt(400));
+
+				if (latency < 0) {
+					early++;
+					continue;
+				}
+
+				total += latency;
+				max = Math.max(max, latency);
+				run++;
+			}
+
+			boolean ok = run > 0 && max / 1000000.0 < MAX_LATENCY;
+			failed |= !ok;
+
+			System.out.println("threads " + threads + ": stop latency avg "
+					+ String.format("%.2f", total / 1000000.0 / Math.max(run, 1))
+					+ " ms, max " + String.format("%.2f", max / 1000000.0)
+					+ " ms (" + run + " runs, " + early
+					+ " finished before stop), "
+					+ (ok ? "ok" : "FAILED, limit " + MAX_LATENCY + " ms"));
+		}
+
+		if (failed) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Startet die Suche für die Farbe am Zug mit "go", stoppt sie nach der
+	 * übergebenen Zeit mit "stop" und führt den ausgegebenen Zug aus.
+	 *
+	 * @return die Zeit in ns, bis stop() mit ausgegebenem bestmove
+	 *         zurückkommt, -1 wenn die Suche schon vorher fertig war
+	 */
+	private long measure(long searchTime) throws InterruptedException {
+
+		generalAttributes.setColorToPlay(color);
+		bestMove = null;
+
+		controller.go();
+		Thread.sleep(searchTime);
+
+		boolean finished = bestMove != null;
+
+		long startTime = System.nanoTime();
+		controller.stop();
+		long latency = System.nanoTime() - startTime;
+
+		/* Schon vor stop fertig oder gar kein Zug ausgegeben */
+		String move = bestMove;
+
+		if (finished || move == null) {
+			latency = -1;
+		}
+
+		if (move == null || move.trim().isEmpty() || ++moves >= MAX_MOVES) {
+			newGame();
+		} else {
+			play(move);
+			color = (color == Constants.Color.GOLD) ? Constants.Color.SILVER
+					: Constants.Color.GOLD;
+		}
+
+		return latency;
+	}
+
+	/**
+	 * Neues Spiel mit der Aufstellung aus SearchBenchmark, Gold am Zug.
+	 */
+	private void newGame() {
+		controller.newGame();
+		play(SearchBenchmark.SETUP_GOLD);
+		play(SearchBenchmark.SETUP_SILVER);
+
+		color = Constants.Color.GOLD;
+		moves = 0;
+	}
+
+	/**
+	 * Führt einen Zug aus wie "makemove" im AEI-Protokoll.
+	 */
+	private void play(String move) {
+		for (String step : move.trim().split(" ")) {
+			controller.makeMove(step);
+		}
+
+		controller.registerBoardSituation();
+		controller.ponderMove();
+	}
+
+}
@@ -0,0 +1,301 @@
+package engine;
+
+import network.MessageOutputWriter;
+import board.Constants;
+import board.Step;
+
+/**
+ * Zeitverwaltung nach dem Uhren-Modell des AEI-Protokolls. Zu Beginn eines
+ * Zuges werden aus allen Zeit-Parametern (Sekunden) zwei Zeiten in
+ * Millisekunden berechnet:
+ *
+ * - soft: so lange soll der Zug normalerweise dauern. Der Anteil der Zugzeit
+ * hängt davon ab, wie viel ungenutzte Zeit (tcpercent, bis tcmax) in die
+ * Reserve wandert, dazu kommt ein Teil der Reserve.
+ *
+ * - maximum: härter begrenzt durch Zugzeit + Reserve, tcturntime und
+ * tctotal, jeweils abzüglich eines Sicherheitsabstands, der die vom Server
+ * gemessene Verzögerung des letzten Zuges (gused/sused) mit einschließt.
+ *
+ * Engines mit Iterative Deepening melden jede fertige Iteration. Ändert sich
+ * der beste Zug oder fällt der Wert, wird soft verlängert (höchstens bis
+ * maximum). Kann die nächste Iteration nicht mehr fertig werden, wird sofort
+ * aufgehört. Alle anderen Engines werden nach soft gestoppt.
+ *
+ * @author maurice
+ */
+public class TimeManager {
+
+	/* Sicherheitsabstand zur harten Grenze */
+	private static final long MARGIN = 1000;
+
+	/* Minimale Zeit für einen Zug */
+	private static final long MIN_TIME = 200;
+
+	/* Auf so viele Züge wird die Reserve höchstens verteilt */
+	private static final int RESERVE_MOVES = 20;
+
+	/* Bei tcpercent = 100 wird höchstens so viel der Zugzeit gespart */
+	private static final double SAVE_FACTOR = 0.25;
+
+	/* maximum ist höchstens dieses Vielfache von soft */
+	private static final double MAX_FACTOR = 3.0;
+
+	/* Verlängerung von soft bei einem neuen besten Zug (wird halbiert) */
+	private static final double BEST_MOVE_EXTENSION = 0.5;
+
+	/* Verlängerung von soft, wenn der Wert um mehr als SCORE_DROP fällt */
+	private static final double SCORE_DROP_EXTENSION = 0.3;
+	private static final int SCORE_DROP = 1000;
+
+	/* Wachstum der Zeit von einer Iteration zur nächsten (geschätzt) */
+	private static final double MIN_GROWTH = 2.0;
+	private static final double MAX_GROWTH = 8.0;
+	private static final double DEFAULT_GROWTH = 4.0;
+
+	private EngineGeneralAttributes generalAttributes;
+
+	private MessageOutputWriter messageWriter;
+
+	/* Beginn des Spiels (für tctotal) und Anzahl eigener Züge (für tcturns) */
+	private long gameStart = System.currentTimeMillis();
+	private int movesPlayed = 0;
+
+	/* Die selbst gemessene Zeit des letzten Zuges */
+	private long lastMoveTime = -1;
+
+	/* Zeiten des aktuellen Zuges */
+	private volatile boolean running = false;
+	private volatile long startTime;
+	private volatile long softTime;
+	private volatile long baseSoftTime;
+	private volatile long maximumTime;
+	private volatile boolean iterative;
+
+	/* Stand der letzten Iteration */
+	private int[] lastLine = null;
+	private int lastScore;
+	private long lastIterationTime;
+	private double instability;
+
+	public TimeManager(EngineGeneralAttributes generalAttributes,
+			MessageOutputWriter messageWriter) {
+		this.generalAttributes = generalAttributes;
+		this.messageWriter = messageWriter;
+	}
+
+	/**
+	 * Wird bei "newgame" aufgerufen.
+	 */
+	public void newGame() {
+		gameStart = System.currentTimeMillis();
+		movesPlayed = 0;
+		lastMoveTime = -1;
+		running = false;
+	}
+
+	/**
+	 * Berechnet soft und maximum für den Zug, der jetzt beginnt.
+	 */
+	public void startMove() {
+
+		boolean gold = generalAttributes.getColor() == Constants.Color.GOLD;
+		long reserve = (gold ? generalAttributes.getGreserve()
+				: generalAttributes.getSreserve()) * 1000L;
+		long moveTime = generalAttributes.getTcmove() * 1000L;
+		long used = generalAttributes.getMoveused() * 1000L;
+
+		/* Verzögerung zwischen Server und Engine beim letzten Zug */
+		long lag = 0;
+		if (lastMoveTime >= 0) {
+			long serverTime = (gold ? generalAttributes.getGused()
+					: generalAttributes.getSused()) * 1000L;
+
+			/* Der Server rundet auf Sekunden */
+			lag = Math.max(serverTime - 1000 - lastMoveTime, 0);
+		}
+
+		/* Harte Grenzen */
+		long hardTime = moveTime + reserve - used;
+
+		if (generalAttributes.getTcturntime() > 0) {
+			hardTime = Math.min(hardTime,
+					generalAttributes.getTcturntime() * 1000L - used);
+		}
+
+		long totalLeft = Long.MAX_VALUE;
+		if (generalAttributes.getTctotal() != Integer.MAX_VALUE) {
+			totalLeft = generalAttributes.getTctotal() * 1000L
+					- (System.currentTimeMillis() - gameStart);
+			hardTime = Math.min(hardTime, totalLeft);
+		}
+
+		hardTime = Math.max(hardTime - MARGIN - lag, MIN_TIME);
+
+		/* Auf wie viele Züge die Reserve (und tctotal) verteilt wird */
+		long movesLeft = RESERVE_MOVES;
+		if (generalAttributes.getTcturns() != Integer.MAX_VALUE) {
+			movesLeft = Math.max(Math.min(movesLeft,
+					generalAttributes.getTcturns() - movesPlayed), 1);
+		}
+
+		/*
+		 * Ungenutzte Zugzeit geht nur zu tcpercent in die Reserve und nur bis
+		 * tcmax. Was darüber hinaus gespart würde, ist verloren und wird
+		 * immer genutzt.
+		 */
+		double percent = generalAttributes.getTcpercent() / 100.0;
+		long soft = (long) (moveTime * (1.0 - SAVE_FACTOR * percent));
+
+		if (generalAttributes.getTcmax() != Integer.MAX_VALUE) {
+			long room = Math.max(generalAttributes.getTcmax() * 1000L
+					- reserve, 0);
+			long saveable = (percent > 0) ? (long) (room / percent) : 0;
+			soft = Math.max(soft, moveTime - saveable);
+		}
+
+		soft += reserve / movesLeft - used;
+
+		if (totalLeft != Long.MAX_VALUE) {
+			soft = Math.min(soft, totalLeft / movesLeft);
+		}
+
+		softTime = Math.max(Math.min(soft, hardTime), MIN_TIME);
+		baseSoftTime = softTime;
+		maximumTime = Math.max(Math.min((long) (softTime * MAX_FACTOR),
+				hardTime), softTime);
+
+		lastLine = null;
+		lastIterationTime = 0;
+		instability = 0.0;
+		iterative = false;
+		startTime = System.currentTimeMillis();
+		running = true;
+
+		messageWriter.sendMessage("log time budget: soft " + softTime
+				+ " ms, maximum " + maximumTime + " ms (hard " + hardTime
+				+ " ms, lag " + lag + " ms)");
+	}
+
+	/**
+	 * Eine Iteration ist fertig. Passt soft an die Stabilität der Suche an
+	 * und entscheidet, ob noch eine Iteration begonnen wird.
+	 *
+	 * @param line
+	 *            die Hauptvariante der Iteration
+	 * @param score
+	 *            ihr Wert
+	 * @param iterationTime
+	 *            Dauer der Iteration in ms
+	 * @return false, wenn die Suche aufhören soll
+	 */
+	public boolean iterationFinished(int[] line, int score,
+			long iterationTime) {
+
+		/* Beim Pondern läuft noch keine Uhr */
+		if (!running) {
+			return true;
+		}
+
+		iterative = true;
+
+		instability *= 0.5;
+		double drop = 0.0;
+
+		if (lastLine != null) {
+			if (!sameMove(lastLine, line)) {
+				instability += 1.0;
+			}
+
+			if (score < lastScore - SCORE_DROP) {
+				drop = SCORE_DROP_EXTENSION;
+			}
+		}
+
+		softTime = Math.min((long) (baseSoftTime
+				* (1.0 + BEST_MOVE_EXTENSION * instability + drop)),
+				maximumTime);
+
+		/* Dauer der nächsten Iteration schätzen */
+		double growth = DEFAULT_GROWTH;
+		if (lastIterationTime > 0 && iterationTime > 0) {
+			growth = Math.max(Math.min((double) iterationTime
+					/ lastIterationTime, MAX_GROWTH), MIN_GROWTH);
+		}
+
+		lastLine = line;
+		lastScore = score;
+		lastIterationTime = iterationTime;
+
+		long elapsed = System.currentTimeMillis() - startTime;
+		long predicted = (long) (iterationTime * growth);
+
+		if (elapsed >= softTime) {
+			return false;
+		}
+
+		if (elapsed + predicted > maximumTime) {
+			messageWriter.sendMessage("log time: next iteration (about "
+					+ predicted + " ms) cannot finish, stopping after "
+					+ elapsed + " ms");
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Ob zwei Zugfolgen mit demselben Zug (den ersten 4 Schritten) beginnen.
+	 */
+	private boolean sameMove(int[] a, int[] b) {
+		int steps = 0;
+
+		for (int i = 0; steps < 4; i++) {
+			if (i >= a.length || i >= b.length) {
+				return a.length == b.length;
+			}
+
+			if (a[i] != b[i]) {
+				return false;
+			}
+
+			steps += Step.getStepCount(a[i]);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Zeitpunkt, zu dem die Engine gestoppt wird: maximum für Engines, die
+	 * Iterationen melden (sie hören selbst nach soft auf), sonst soft.
+	 */
+	public long getDeadline() {
+		return startTime + (iterative ? maximumTime : softTime);
+	}
+
+	/**
+	 * Ob gerade ein Zug mit laufender Uhr gerechnet wird.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Ende des Zuges: loggt Budget und verbrauchte Zeit.
+	 */
+	public void finishMove() {
+
+		if (!running) {
+			return;
+		}
+
+		running = false;
+		movesPlayed++;
+		lastMoveTime = System.currentTimeMillis() - startTime;
+
+		messageWriter.sendMessage("log time: used " + lastMoveTime
+				+ " ms of soft " + softTime + " ms (base " + baseSoftTime
+				+ " ms, maximum " + maximumTime + " ms)");
+	}
+
+}
@@ -0,0 +1,106 @@
+package evaluation;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import network.MessageOutputWriter;
+import board.Bitboard;
+import board.MoveGenerator;
+import board.MoveList;
+import board.Piece;
+import board.Position;
+import engine.EngineGeneralAttributes;
+
+/**
+ * Misst, wie lange die Evaluierung eines Blattes dauert. Die Stellungen
+ * entstehen aus zufälligen Partien ab der Standard-Aufstellung, sind also
+ * bei jedem Lauf dieselben.
+ *
+ * Aufruf: java evaluation.EvaluationBenchmark [Partien] [Durchläufe]
+ *
+ * @author maurice
+ *
+ */
+public class EvaluationBenchmark {
+
+	private static final String SETUP_GOLD = "Ra1 Rb1 Rc1 Rd1 Re1 Rf1 Rg1 Rh1 Da2 Hb2 Cc2 Ed2 He2 Cf2 Mg2 Dh2";
+	private static final String SETUP_SILVER = "ra8 rb8 rc8 rd8 re8 rf8 rg8 rh8 da7 mb7 cc7 hd7 ee7 cf7 hg7 dh7";
+
+	public static void main(String[] args) {
+
+		int games = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+		int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+
+		EngineGeneralAttributes generalAttributes = new EngineGeneralAttributes(
+				new MessageOutputWriter());
+		SimpleEvaluation eval = new SimpleEvaluation(generalAttributes);
+
+		ArrayList<Bitboard> positions = generatePositions(generalAttributes,
+				games);
+
+		long checksum = 0;
+
+		for (int run = 0; run < runs; run++) {
+			long startTime = System.nanoTime();
+
+			for (Bitboard board : positions) {
+				checksum += eval.evaluateBoardState(board, false);
+			}
+
+			long estimatedTime = System.nanoTime() - startTime;
+
+			System.out.println("run " + run + ": " + positions.size()
+					+ " leaves, " + estimatedTime / positions.size()
+					+ " ns/leaf");
+		}
+
+		System.out.println("checksum: " + checksum);
+	}
+
+	/**
+	 * Spielt zufällige Partien und merkt sich jede entstandene Stellung.
+	 */
+	private static ArrayList<Bitboard> generatePositions(
+			EngineGeneralAttributes generalAttributes, int games) {
+
+		ArrayList<Bitboard> positions = new ArrayList<Bitboard>();
+		MoveGenerator moveGen = new MoveGenerator();
+		MoveList moveList = new MoveList();
+
+		for (int game = 0; game < games; game++) {
+			Bitboard board = new Bitboard(generalAttributes);
+
+			for (String piece : (SETUP_GOLD + " " + SETUP_SILVER).split(" ")) {
+				int color = Character.isUpperCase(piece.charAt(0)) ? 1 : 0;
+				int type = "emhdcr".indexOf(Character.toLowerCase(piece
+						.charAt(0)));
+				board.setPieceAtPosition(new Piece(new Position(
+						piece.charAt(1) - 'a', piece.charAt(2) - '1'), color,
+						type));
+			}
+
+			Random random = new Random(game);
+			int color = 1;
+
+			for (int step = 0; step < 200; step++) {
+				moveGen.generateAllColorMoves(board, color, moveList);
+
+				if (moveList.isEmpty()) {
+					break;
+				}
+
+				board.applyMoveAndRemovePieces(moveList.get(random
+						.nextInt(moveList.size())));
+				positions.add(board.cloneBitboard());
+
+				/* Grob: 3 Züge pro Spieler */
+				if (step % 3 == 2) {
+					color = 1 - color;
+				}
+			}
+		}
+
+		return positions;
+	}
+
+}
@@ -5,6 +5,8 @@ import java.util.LinkedList;
 import network.MessageOutputWriter;
 
 import board.Bitboard;
+import board.BitboardTables;
+import board.Bits;
 import board.Constants;
 import board.Move;
 import board.MoveScore;
@@ -468,255 +470,257 @@ public class SimpleEvaluation extends Evaluation {
 
 		long generalMap = board.getGeneralBitmap();
 
-		for (int trapCol = 0; trapCol < 8; trapCol++) {
-			for (int trapRow = 0; trapRow < 8; trapRow++) {
-				long mask = board.getMaskAt(trapCol, trapRow);
-				/* In dem anzuguckendem Bereich ist ein höherer Gegner! */
-				if ((mask & higherEnemyMap) != 0) {
-
-					boolean trapSupportedByEnemy = (area & higherEnemyMap) != 0;
-
-					/* Spalten checken! */
-					if (Math.abs(piece.getPosition().getCol() - trapCol) <= 1) {
-
-						long pieceColMap = board.getColMap(piece.getPosition()
-								.getCol());
-						long pieceCol = pieceColMap
-								& generalMap
-								& ~mask
-								& ~board.getMaskAt(
-										piece.getPosition().getCol(), piece
-												.getPosition().getRow());
-
-						long enemyColMap = board.getColMap(trapCol)
-								& generalMap;
-						long enemyCol = enemyColMap
-								& ~mask
-								& ~board.getMaskAt(
-										piece.getPosition().getCol(), piece
-												.getPosition().getRow());
-
-						for (int i = 0; i < 8; i++) {
-							if ((i < piece.getPosition().getRow() && i < trapRow)
-									|| (i > piece.getPosition().getRow() && i > trapRow)) {
-								pieceCol = pieceCol & ~board.getRowMap(i);
-								enemyCol = enemyCol & ~board.getRowMap(i);
-							}
-						}
+		/* Alle höheren Gegner in dem anzuguckendem Bereich */
+		long enemies = higherEnemyMap;
+
+		while (enemies != 0) {
+			int enemySquare = Bits.first(enemies);
+			enemies = Bits.removeFirst(enemies);
+
+			int trapCol = enemySquare & 7, trapRow = enemySquare >>> 3;
+			long mask = BitboardTables.MASK[enemySquare];
+
+			boolean trapSupportedByEnemy = (area & higherEnemyMap) != 0;
+
+			/* Spalten checken! */
+			if (Math.abs(piece.getPosition().getCol() - trapCol) <= 1) {
+
+				long pieceColMap = board.getColMap(piece.getPosition()
+						.getCol());
+				long pieceCol = pieceColMap
+						& generalMap
+						& ~mask
+						& ~board.getMaskAt(
+								piece.getPosition().getCol(), piece
+										.getPosition().getRow());
+
+				long enemyColMap = board.getColMap(trapCol)
+						& generalMap;
+				long enemyCol = enemyColMap
+						& ~mask
+						& ~board.getMaskAt(
+								piece.getPosition().getCol(), piece
+										.getPosition().getRow());
+
+				for (int i = 0; i < 8; i++) {
+					if ((i < piece.getPosition().getRow() && i < trapRow)
+							|| (i > piece.getPosition().getRow() && i > trapRow)) {
+						pieceCol = pieceCol & ~board.getRowMap(i);
+						enemyCol = enemyCol & ~board.getRowMap(i);
+					}
+				}
 
-						/*
-						 * Eine Spalte ist leer, oder
-						 * 
-						 * Andere Spalte ist leer, oder
-						 * 
-						 * Die zwei Felder dazwischen sind frei, wenn die
-						 * Figuren 2 auseinander stehen
-						 */
-
-						/*
-						 * Ein Trap befindet sich auf der gleichen Spalte, wie
-						 * die Figur --> Ist (soweit ich das sehe) immer auch
-						 * zwischen dem Gegner und der Figur!
-						 */
-						boolean trapOnPieceCol = piece.getPosition().getCol() == col;
-						boolean trapOnEnemyCol = trapCol == col;
-						/* Der Gegner ist zwei Steps weg */
-						boolean twoStepsBetween = Math.abs(trapRow
-								- piece.getPosition().getRow()) == 2;
-						boolean isSameCol = piece.getPosition().getCol() == trapCol;
-						/* Die Reihe zwischen Gegner und Figur */
-						int rowBetween = (int) Math.abs((trapRow
-								+ piece.getPosition().getRow() + 0.5) / 2);
-						/* Ob der Trap auf dem Feld zwischen den Figuren ist */
-						boolean trapOnRowBetween = (board.getRowMap(rowBetween) & board
-								.getMaskAt(col, row)) != 0;
-						/*
-						 * Ob das Feld zwischen den Figuren (quer - beide) leer
-						 * ist
-						 */
-						boolean pieceColMiddleEmpty = (board.getMaskAt(piece
-								.getPosition().getCol(), rowBetween) & generalMap) == 0;
-						boolean enemyColMiddleEmpty = (board.getMaskAt(trapCol,
-								rowBetween) & generalMap) == 0;
-
-						if (enemyCol == 0) {
-							if (twoStepsBetween || isSameCol) {
-								if (!trapOnEnemyCol
-										|| trapSupportedByEnemy
-										|| (!trapOnRowBetween
-												&& pieceColMiddleEmpty && enemyColMiddleEmpty)) {
+				/*
+				 * Eine Spalte ist leer, oder
+				 * 
+				 * Andere Spalte ist leer, oder
+				 * 
+				 * Die zwei Felder dazwischen sind frei, wenn die
+				 * Figuren 2 auseinander stehen
+				 */
 
-								}
-							} else {
-								return true;
-							}
-						}
+				/*
+				 * Ein Trap befindet sich auf der gleichen Spalte, wie
+				 * die Figur --> Ist (soweit ich das sehe) immer auch
+				 * zwischen dem Gegner und der Figur!
+				 */
+				boolean trapOnPieceCol = piece.getPosition().getCol() == col;
+				boolean trapOnEnemyCol = trapCol == col;
+				/* Der Gegner ist zwei Steps weg */
+				boolean twoStepsBetween = Math.abs(trapRow
+						- piece.getPosition().getRow()) == 2;
+				boolean isSameCol = piece.getPosition().getCol() == trapCol;
+				/* Die Reihe zwischen Gegner und Figur */
+				int rowBetween = (int) Math.abs((trapRow
+						+ piece.getPosition().getRow() + 0.5) / 2);
+				/* Ob der Trap auf dem Feld zwischen den Figuren ist */
+				boolean trapOnRowBetween = (board.getRowMap(rowBetween) & board
+						.getMaskAt(col, row)) != 0;
+				/*
+				 * Ob das Feld zwischen den Figuren (quer - beide) leer
+				 * ist
+				 */
+				boolean pieceColMiddleEmpty = (board.getMaskAt(piece
+						.getPosition().getCol(), rowBetween) & generalMap) == 0;
+				boolean enemyColMiddleEmpty = (board.getMaskAt(trapCol,
+						rowBetween) & generalMap) == 0;
+
+				if (enemyCol == 0) {
+					if (twoStepsBetween || isSameCol) {
+						if (!trapOnEnemyCol
+								|| trapSupportedByEnemy
+								|| (!trapOnRowBetween
+										&& pieceColMiddleEmpty && enemyColMiddleEmpty)) {
 
-						if (pieceCol == 0) {
-							if (twoStepsBetween || isSameCol) {
-								if ((!trapOnPieceCol || trapSupportedByEnemy || (!trapOnRowBetween
-										&& pieceColMiddleEmpty && enemyColMiddleEmpty))) {
-									return true;
-								}
-							} else {
-								return true;
-								// /* Ein Step zwischen Figur und Gegner */
-								//
-								// long enemyColorMap = board
-								// .getColorBitmap(otherColor(piece
-								// .getColor()));
-								// Piece bigEnemy = board
-								// .findPieceAt(new Position(trapCol,
-								// trapRow));
-								// long smallerOwnPiecesMap = board
-								// .getLowerEqualTypeMap(
-								// bigEnemy.getType() + 1,
-								// piece.getColor());
-								// int col1 = trapCol;
-								// int row1 = piece.getPosition().getRow();
-								// /* Ob Feld 1 leer ist */
-								// boolean isEmptyField1 =
-								// (board.getMaskAt(col1,
-								// row1) & generalMap) == 0;
-								// int directionRow1 = (trapRow > piece
-								// .getPosition().getRow()) ? -1 : 1;
-								// int directionCol1 = (trapCol > piece
-								// .getPosition().getCol()) ? -1 : 1;
-								// /* Ob Feld 1 ein Trap ist */
-								// boolean isTrap1 = (board.getMaskAt(trapCol,
-								// piece.getPosition().getRow()) & board
-								// .getMaskAt(col, row)) != 0;
-								// /*
-								// * Wenn das Feld ein Trap ist, aber das Feld
-								// * kann vom Gegner unterstützt werden oder
-								// wird
-								// * schon unterstützt. Und das Feld ist leer,
-								// * kann also vom Gegner begangen werden.
-								// */
-								// boolean indirectDoubleSupported1 =
-								// !isEmptyField1 ? false
-								// : (!isTrap1
-								// || (board.area(col, row
-								// + directionRow1, 1) & enemyColorMap) != 0 ||
-								// (board
-								// .area(col + directionCol1, row,
-								// 1) & enemyColorMap) != 0);
-								// if (indirectDoubleSupported1) {
-								// return true;
-								// }
-								//
-								// /*
-								// * Wenn da ein Gegner steht, aber dieser in
-								// * einem Schritt weggehen kann
-								// */
-								// if ((board.getMaskAt(col1, row1) &
-								// enemyColorMap) != 0
-								// && board.getPieceMovementBitmap(board
-								// .findPieceAt(new Position(col1,
-								// row1))) != 0) {
-								// return true;
-								// }
-								//
-								// /**
-								// * isSmallerPiece && kannWeggeschobenWerden &&
-								// * (IsNotATrap || TrapIsDirectDoubleSupported)
-								// */
+						}
+					} else {
+						return true;
+					}
+				}
 
-							}
+				if (pieceCol == 0) {
+					if (twoStepsBetween || isSameCol) {
+						if ((!trapOnPieceCol || trapSupportedByEnemy || (!trapOnRowBetween
+								&& pieceColMiddleEmpty && enemyColMiddleEmpty))) {
+							return true;
 						}
+					} else {
+						return true;
+						// /* Ein Step zwischen Figur und Gegner */
+						//
+						// long enemyColorMap = board
+						// .getColorBitmap(otherColor(piece
+						// .getColor()));
+						// Piece bigEnemy = board
+						// .findPieceAt(new Position(trapCol,
+						// trapRow));
+						// long smallerOwnPiecesMap = board
+						// .getLowerEqualTypeMap(
+						// bigEnemy.getType() + 1,
+						// piece.getColor());
+						// int col1 = trapCol;
+						// int row1 = piece.getPosition().getRow();
+						// /* Ob Feld 1 leer ist */
+						// boolean isEmptyField1 =
+						// (board.getMaskAt(col1,
+						// row1) & generalMap) == 0;
+						// int directionRow1 = (trapRow > piece
+						// .getPosition().getRow()) ? -1 : 1;
+						// int directionCol1 = (trapCol > piece
+						// .getPosition().getCol()) ? -1 : 1;
+						// /* Ob Feld 1 ein Trap ist */
+						// boolean isTrap1 = (board.getMaskAt(trapCol,
+						// piece.getPosition().getRow()) & board
+						// .getMaskAt(col, row)) != 0;
+						// /*
+						// * Wenn das Feld ein Trap ist, aber das Feld
+						// * kann vom Gegner unterstützt werden oder
+						// wird
+						// * schon unterstützt. Und das Feld ist leer,
+						// * kann also vom Gegner begangen werden.
+						// */
+						// boolean indirectDoubleSupported1 =
+						// !isEmptyField1 ? false
+						// : (!isTrap1
+						// || (board.area(col, row
+						// + directionRow1, 1) & enemyColorMap) != 0 ||
+						// (board
+						// .area(col + directionCol1, row,
+						// 1) & enemyColorMap) != 0);
+						// if (indirectDoubleSupported1) {
+						// return true;
+						// }
+						//
+						// /*
+						// * Wenn da ein Gegner steht, aber dieser in
+						// * einem Schritt weggehen kann
+						// */
+						// if ((board.getMaskAt(col1, row1) &
+						// enemyColorMap) != 0
+						// && board.getPieceMovementBitmap(board
+						// .findPieceAt(new Position(col1,
+						// row1))) != 0) {
+						// return true;
+						// }
+						//
+						// /**
+						// * isSmallerPiece && kannWeggeschobenWerden &&
+						// * (IsNotATrap || TrapIsDirectDoubleSupported)
+						// */
 
 					}
+				}
 
-					/* Reihen checken! */
-					if (Math.abs(piece.getPosition().getRow() - trapRow) <= 1) {
-
-						long pieceRowMap = board.getRowMap(piece.getPosition()
-								.getRow());
-						long pieceRow = pieceRowMap
-								& generalMap
-								& ~mask
-								& ~board.getMaskAt(
-										piece.getPosition().getCol(), piece
-												.getPosition().getRow());
-						long enemyRowMap = board.getColMap(trapRow);
-						long enemyRow = enemyRowMap
-								& generalMap
-								& ~mask
-								& ~board.getMaskAt(
-										piece.getPosition().getCol(), piece
-												.getPosition().getRow());
-
-						for (int i = 0; i < 8; i++) {
-							if ((i < piece.getPosition().getCol() && i < trapCol)
-									|| (i > piece.getPosition().getCol() && i > trapCol)) {
-								pieceRow = pieceRow & ~board.getColMap(i);
-								enemyRow = enemyRow & ~board.getColMap(i);
-							}
-						}
+			}
+
+			/* Reihen checken! */
+			if (Math.abs(piece.getPosition().getRow() - trapRow) <= 1) {
+
+				long pieceRowMap = board.getRowMap(piece.getPosition()
+						.getRow());
+				long pieceRow = pieceRowMap
+						& generalMap
+						& ~mask
+						& ~board.getMaskAt(
+								piece.getPosition().getCol(), piece
+										.getPosition().getRow());
+				long enemyRowMap = board.getColMap(trapRow);
+				long enemyRow = enemyRowMap
+						& generalMap
+						& ~mask
+						& ~board.getMaskAt(
+								piece.getPosition().getCol(), piece
+										.getPosition().getRow());
+
+				for (int i = 0; i < 8; i++) {
+					if ((i < piece.getPosition().getCol() && i < trapCol)
+							|| (i > piece.getPosition().getCol() && i > trapCol)) {
+						pieceRow = pieceRow & ~board.getColMap(i);
+						enemyRow = enemyRow & ~board.getColMap(i);
+					}
+				}
 
-						/*
-						 * Eine Spalte ist leer, oder
-						 * 
-						 * Andere Spalte ist leer, oder
-						 * 
-						 * Die zwei Felder dazwischen sind frei, wenn die
-						 * Figuren 2 auseinander stehen
-						 */
-
-						/*
-						 * Ein Trap befindet sich auf der gleichen Spalte, wie
-						 * die Figur --> Ist (soweit ich das sehe) immer auch
-						 * zwischen dem Gegner und der Figur!
-						 */
-						boolean trapOnPieceRow = piece.getPosition().getRow() == row;
-						boolean trapOnEnemyRow = trapRow == row;
-						/* Der Gegner ist zwei Steps weg */
-						boolean twoStepsBetween = Math.abs(trapCol
-								- piece.getPosition().getCol()) == 2;
-						boolean isSameRow = piece.getPosition().getRow() == trapRow;
-						/* Die Reihe zwischen Gegner und Figur */
-						int colBetween = (int) Math.abs((trapCol
-								+ piece.getPosition().getCol() + 0.5) / 2);
-						/* Ob der Trap auf dem Feld zwischen den Figuren ist */
-						boolean trapOnColBetween = (board.getColMap(colBetween) & board
-								.getMaskAt(col, row)) != 0;
-						/*
-						 * Ob das Feld zwischen den Figuren (quer - beide) leer
-						 * ist
-						 */
-						boolean pieceRowMiddleEmpty = (board.getMaskAt(
-								colBetween, piece.getPosition().getRow()) & generalMap) == 0;
-						boolean enemyRowMiddleEmpty = (board.getMaskAt(
-								colBetween, trapRow) & generalMap) == 0;
-
-						if (enemyRow == 0) {
-							if (twoStepsBetween || isSameRow) {
-								if (!trapOnEnemyRow
-										|| trapSupportedByEnemy
-										|| (!trapOnColBetween
-												&& pieceRowMiddleEmpty && enemyRowMiddleEmpty)) {
+				/*
+				 * Eine Spalte ist leer, oder
+				 * 
+				 * Andere Spalte ist leer, oder
+				 * 
+				 * Die zwei Felder dazwischen sind frei, wenn die
+				 * Figuren 2 auseinander stehen
+				 */
 
-								}
-							} else {
-								return true;
-							}
-						}
+				/*
+				 * Ein Trap befindet sich auf der gleichen Spalte, wie
+				 * die Figur --> Ist (soweit ich das sehe) immer auch
+				 * zwischen dem Gegner und der Figur!
+				 */
+				boolean trapOnPieceRow = piece.getPosition().getRow() == row;
+				boolean trapOnEnemyRow = trapRow == row;
+				/* Der Gegner ist zwei Steps weg */
+				boolean twoStepsBetween = Math.abs(trapCol
+						- piece.getPosition().getCol()) == 2;
+				boolean isSameRow = piece.getPosition().getRow() == trapRow;
+				/* Die Reihe zwischen Gegner und Figur */
+				int colBetween = (int) Math.abs((trapCol
+						+ piece.getPosition().getCol() + 0.5) / 2);
+				/* Ob der Trap auf dem Feld zwischen den Figuren ist */
+				boolean trapOnColBetween = (board.getColMap(colBetween) & board
+						.getMaskAt(col, row)) != 0;
+				/*
+				 * Ob das Feld zwischen den Figuren (quer - beide) leer
+				 * ist
+				 */
+				boolean pieceRowMiddleEmpty = (board.getMaskAt(
+						colBetween, piece.getPosition().getRow()) & generalMap) == 0;
+				boolean enemyRowMiddleEmpty = (board.getMaskAt(
+						colBetween, trapRow) & generalMap) == 0;
+
+				if (enemyRow == 0) {
+					if (twoStepsBetween || isSameRow) {
+						if (!trapOnEnemyRow
+								|| trapSupportedByEnemy
+								|| (!trapOnColBetween
+										&& pieceRowMiddleEmpty && enemyRowMiddleEmpty)) {
 
-						if (pieceRow == 0) {
-							if (twoStepsBetween || isSameRow) {
-								if ((!trapOnPieceRow || trapSupportedByEnemy || (!trapOnColBetween
-										&& pieceRowMiddleEmpty && enemyRowMiddleEmpty))) {
-									return true;
-								}
-							} else {
-								return true;
-							}
 						}
-
+					} else {
+						return true;
 					}
+				}
 
+				if (pieceRow == 0) {
+					if (twoStepsBetween || isSameRow) {
+						if ((!trapOnPieceRow || trapSupportedByEnemy || (!trapOnColBetween
+								&& pieceRowMiddleEmpty && enemyRowMiddleEmpty))) {
+							return true;
+						}
+					} else {
+						return true;
+					}
 				}
+
 			}
+
 		}
 
 		return capture;
@@ -2142,15 +2146,15 @@ public class SimpleEvaluation extends Evaluation {
 	 */
 	private double hostageSituation(Bitboard board, Piece piece, long generalMap) {
 
-		long trap11 = board.area(2, 2, 1);
-		long trap21 = board.area(5, 2, 1);
-		long trap31 = board.area(2, 5, 1);
-		long trap41 = board.area(5, 5, 1);
+		long trap11 = BitboardTables.AREA[18][1];
+		long trap21 = BitboardTables.AREA[21][1];
+		long trap31 = BitboardTables.AREA[42][1];
+		long trap41 = BitboardTables.AREA[45][1];
 
-		long trap1 = board.area(2, 2, 2) & ~trap11;
-		long trap2 = board.area(5, 2, 2) & ~trap21;
-		long trap3 = board.area(2, 5, 2) & ~trap31;
-		long trap4 = board.area(5, 5, 2) & ~trap41;
+		long trap1 = BitboardTables.AREA[18][2] & ~trap11;
+		long trap2 = BitboardTables.AREA[21][2] & ~trap21;
+		long trap3 = BitboardTables.AREA[42][2] & ~trap31;
+		long trap4 = BitboardTables.AREA[45][2] & ~trap41;
 		long piecePos = board.getMaskAt(piece.getPosition().getCol(), piece
 				.getPosition().getRow());
 
@@ -2323,16 +2327,19 @@ public class SimpleEvaluation extends Evaluation {
 				* Constants.EvalValue.MATERIAL_HARLOG;
 
 		for (int col = 0; col < 8; col++) {
-			for (int row = 0; row < 8; row++) {
+			/* Alle Figuren der Spalte, aufsteigend nach Reihe */
+			long pieces = generalMap & BitboardTables.COL[col];
 
-				if ((board.getMaskAt(col, row) & generalMap) != 0) {
-					Piece piece = board.findPieceAt(new Position(col, row));
-					long colorMap = board.getColorBitmap(piece.getColor());
+			while (pieces != 0) {
+				int row = Bits.first(pieces) >>> 3;
+				pieces = Bits.removeFirst(pieces);
 
-					score += trapControlEvaluation(board, piece, generalMap,
-							colorMap) * Constants.EvalValue.TRAPCONTROL;
+				Piece piece = board.findPieceAt(new Position(col, row));
+				long colorMap = board.getColorBitmap(piece.getColor());
+
+				score += trapControlEvaluation(board, piece, generalMap,
+						colorMap) * Constants.EvalValue.TRAPCONTROL;
 
-				}
 			}
 		}
 
@@ -2373,69 +2380,72 @@ public class SimpleEvaluation extends Evaluation {
 		 * Positionen evaluiert werden!
 		 */
 		for (int col = 0; col < 8; col++) {
-			for (int row = 0; row < 8; row++) {
+			/* Alle Figuren der Spalte, aufsteigend nach Reihe */
+			long pieces = generalMap & BitboardTables.COL[col];
 
-				if ((board.getMaskAt(col, row) & generalMap) != 0) {
-					Piece piece = board.findPieceAt(new Position(col, row));
-					long colorMap = board.getColorBitmap(piece.getColor());
+			while (pieces != 0) {
+				int row = Bits.first(pieces) >>> 3;
+				pieces = Bits.removeFirst(pieces);
 
-					score += trapControlEvaluation(board, piece, generalMap,
-							colorMap) * Constants.EvalValue.TRAPCONTROL;
+				Piece piece = board.findPieceAt(new Position(col, row));
+				long colorMap = board.getColorBitmap(piece.getColor());
 
-					// score += frozenEvaluation(board, piece)
-					// * Constants.EvalValue.TRAPCONTROL_FREEZING;
+				score += trapControlEvaluation(board, piece, generalMap,
+						colorMap) * Constants.EvalValue.TRAPCONTROL;
 
-					// score += mobilityEvaluation(board, piece, generalMap,
-					// colorMap) * Constants.EvalValue.MOVEMENT;
+				// score += frozenEvaluation(board, piece)
+				// * Constants.EvalValue.TRAPCONTROL_FREEZING;
 
-					score += enemyContactEvaluation(board, piece, generalMap,
-							colorMap)
-							* Constants.EvalValue.ENEMY_GENERAL_CONFLICT;
+				// score += mobilityEvaluation(board, piece, generalMap,
+				// colorMap) * Constants.EvalValue.MOVEMENT;
 
-					score += frameSituation(board, piece, generalMap)
-							* Constants.EvalValue.FRAME_SITUATION;
+				score += enemyContactEvaluation(board, piece, generalMap,
+						colorMap)
+						* Constants.EvalValue.ENEMY_GENERAL_CONFLICT;
 
-					score += hostageSituation(board, piece, generalMap)
-							* Constants.EvalValue.HOSTAGE_SITUATION;
+				score += frameSituation(board, piece, generalMap)
+						* Constants.EvalValue.FRAME_SITUATION;
 
-					score += forkSituation(board, piece, generalMap)
-							* Constants.EvalValue.FORK_SITUATION;
+				score += hostageSituation(board, piece, generalMap)
+						* Constants.EvalValue.HOSTAGE_SITUATION;
 
-					// score += elephantPositioning(board, piece, colorMap)
-					// * Constants.EvalValue.POSITIONING_ELEPHANT_CAMEL;
+				score += forkSituation(board, piece, generalMap)
+						* Constants.EvalValue.FORK_SITUATION;
 
-					score += pieceSquareTablePositionLookup(board, piece)
-							* Constants.EvalValue.POSITIONING_PIECE_SQUARE;
+				// score += elephantPositioning(board, piece, colorMap)
+				// * Constants.EvalValue.POSITIONING_ELEPHANT_CAMEL;
 
-					score += positioningLonely(board, piece, colorMap)
-							* Constants.EvalValue.POSITIONING_LONELY;
+				score += pieceSquareTablePositionLookup(board, piece)
+						* Constants.EvalValue.POSITIONING_PIECE_SQUARE;
 
-					score += pieceSquareTableSpeedLookup(board, piece)
-							* Constants.EvalValue.SPEED;
+				score += positioningLonely(board, piece, colorMap)
+						* Constants.EvalValue.POSITIONING_LONELY;
 
-					score += passiveElephant(board, piece, col)
-							* Constants.EvalValue.PASSIVE_ELEPHANT;
+				score += pieceSquareTableSpeedLookup(board, piece)
+						* Constants.EvalValue.SPEED;
 
-					// score += lonelyCamelOrElephant(board, piece, colorMap,
-					// col)
-					// * Constants.EvalValue.LONELY_ELEPHANT;
+				score += passiveElephant(board, piece, col)
+						* Constants.EvalValue.PASSIVE_ELEPHANT;
 
-					score += camelPositioning(board, piece)
-							* Constants.EvalValue.POSITIONING_CAMEL_GENERAL;
+				// score += lonelyCamelOrElephant(board, piece, colorMap,
+				// col)
+				// * Constants.EvalValue.LONELY_ELEPHANT;
 
-					score += rabbitWallEvaluation(board, piece)
-							* Constants.EvalValue.RABBIT_WALL;
+				score += camelPositioning(board, piece)
+						* Constants.EvalValue.POSITIONING_CAMEL_GENERAL;
 
-					score += rabbitFreewayEvaluation(board, piece, generalMap)
-							* Constants.EvalValue.RABBIT_FREEWAY;
+				score += rabbitWallEvaluation(board, piece)
+						* Constants.EvalValue.RABBIT_WALL;
 
-					score += advancedRabbitCrowding(board, piece, generalMap,
-							colorMap) * Constants.EvalValue.RABBIT_CROWDING;
+				score += rabbitFreewayEvaluation(board, piece, generalMap)
+						* Constants.EvalValue.RABBIT_FREEWAY;
 
-					score += Rabbit2StepGoal(board, piece, generalMap, colorMap)
-							* Constants.EvalValue.RABBIT_2_STEP_GOAL;
+				score += advancedRabbitCrowding(board, piece, generalMap,
+						colorMap) * Constants.EvalValue.RABBIT_CROWDING;
+
+				score += Rabbit2StepGoal(board, piece, generalMap, colorMap)
+						* Constants.EvalValue.RABBIT_2_STEP_GOAL;
 
-				}
 			}
 		}
 
@@ -5,6 +5,8 @@ import java.util.LinkedList;
 import engine.EngineGeneralAttributes;
 
 import board.Bitboard;
+import board.BitboardTables;
+import board.Bits;
 import board.Constants;
 import board.Move;
 import board.MoveGenerator;
@@ -83,27 +85,10 @@ public class TestEvaluation extends Evaluation {
 		int score = 0;
 		long typeMask = board.getTypeBitmap(color, type);
 
-		LinkedList<Long> trapList = new LinkedList<Long>();
-
-		trapList.add(board.getBitmapAroundPosition(2, 2)
-				& ~board.getMaskAt(2, 2));
-		trapList.add(board.getBitmapAroundPosition(5, 2)
-				& ~board.getMaskAt(5, 2));
-		trapList.add(board.getBitmapAroundPosition(2, 5)
-				& ~board.getMaskAt(2, 5));
-		trapList.add(board.getBitmapAroundPosition(5, 5)
-				& ~board.getMaskAt(5, 5));
-
 		/* Schleife über die 4 Traps */
-		for (long trapControl : trapList) {
-			/* Schleife über den Long */
-			for (int i = 0; i < 64; i++) {
-				long mask = (1L << i) & typeMask;
-				/* Ist dort eine Figur? */
-				if ((trapControl & mask) != 0) {
-					score++;
-				}
-			}
+		for (long trapControl : BitboardTables.TRAP_NEIGHBORS) {
+			/* Figuren des Typs neben dem Trap */
+			score += Bits.count(trapControl & typeMask);
 		}
 		return score;
 	}
@@ -121,19 +106,8 @@ public class TestEvaluation extends Evaluation {
 		int score = 0;
 		int run = 0, col = 0, row = 0;
 
-		LinkedList<Long> trapList = new LinkedList<Long>();
-
-		trapList.add(board.getBitmapAroundPosition(2, 2)
-				& ~board.getMaskAt(2, 2));
-		trapList.add(board.getBitmapAroundPosition(5, 2)
-				& ~board.getMaskAt(5, 2));
-		trapList.add(board.getBitmapAroundPosition(2, 5)
-				& ~board.getMaskAt(2, 5));
-		trapList.add(board.getBitmapAroundPosition(5, 5)
-				& ~board.getMaskAt(5, 5));
-
 		/* Schleife über die 4 Traps */
-		for (long trapControl : trapList) {
+		for (long trapControl : BitboardTables.TRAP_NEIGHBORS) {
 
 			col = (run % 2 == 0) ? 2 : 5;
 			row = (run < 2) ? 2 : 5;
@@ -229,19 +203,8 @@ public class TestEvaluation extends Evaluation {
 	private int getTrapcontrolEvaluation(Bitboard board) {
 		double score = 0;
 
-		LinkedList<Long> trapList = new LinkedList<Long>();
-
-		trapList.add(board.getBitmapAroundPosition(2, 2)
-				& ~board.getMaskAt(2, 2));
-		trapList.add(board.getBitmapAroundPosition(5, 2)
-				& ~board.getMaskAt(5, 2));
-		trapList.add(board.getBitmapAroundPosition(2, 5)
-				& ~board.getMaskAt(2, 5));
-		trapList.add(board.getBitmapAroundPosition(5, 5)
-				& ~board.getMaskAt(5, 5));
-
 		/* Schleife über die 4 Traps */
-		for (long trapControl : trapList) {
+		for (long trapControl : BitboardTables.TRAP_NEIGHBORS) {
 			/* Schleife über den Long */
 			for (int i = 0; i < 64; i++) {
 
@@ -273,24 +236,13 @@ public class TestEvaluation extends Evaluation {
 
 			/* Schleife über die Typen */
 			for (int type = 0; type < 6; type++) {
-				/* Schleife über den Long */
-				for (int i = 0; i < 64; i++) {
-					long maskG = (1L << i)
-							& board.getTypeBitmap(Constants.Color.GOLD, type);
-					long maskS = (1L << i)
-							& board.getTypeBitmap(Constants.Color.SILVER, type);
-					/* Ist dort eine Figur? */
-					if ((trapControl & maskG) != 0) {
-						score += getTypeImportance(type);
-					}
-
-					/* Ist dort eine Figur? */
-					if ((trapControl & maskS) != 0) {
-						score -= getTypeImportance(type);
-					}
-
-				}
-
+				/* Figuren des Typs neben dem Trap */
+				score += Bits.count(trapControl
+						& board.getTypeBitmap(Constants.Color.GOLD, type))
+						* getTypeImportance(type);
+				score -= Bits.count(trapControl
+						& board.getTypeBitmap(Constants.Color.SILVER, type))
+						* getTypeImportance(type);
 			}
 
 		}
@@ -369,66 +321,66 @@ public class TestEvaluation extends Evaluation {
 		for (int i = 0; i < 6; i++) {
 			long typeMap = bboard[i][Constants.Color.GOLD];
 
-			for (int j = 0; j < 64; j++) {
-				if (((1 << i) & typeMap) != 0) {
-					int col = j % 8, row = j / 8;
+			for (long pieces = typeMap; pieces != 0; pieces = Bits
+					.removeFirst(pieces)) {
+				int j = Bits.first(pieces);
+				int col = j % 8, row = j / 8;
 
-					/* Mindestens 2-3 eigene in unmittelbarer Nähe */
-					int bitCountG = board.getBitCount(board.area(col, row, 2)
-							& board.getColorBitmap(Constants.Color.GOLD));
-					if (bitCountG <= 2) {
-						score -= 4 * bitCountG;
-					} else {
-						score += bitCountG;
-					}
+				/* Mindestens 2-3 eigene in unmittelbarer Nähe */
+				int bitCountG = board.getBitCount(board.area(col, row, 2)
+						& board.getColorBitmap(Constants.Color.GOLD));
+				if (bitCountG <= 2) {
+					score -= 4 * bitCountG;
+				} else {
+					score += bitCountG;
+				}
 
-					/* Umgedreht für Silber */
-					int bitCountS = board.getBitCount(board.area(col, row, 2)
-							& board.getColorBitmap(Constants.Color.SILVER));
-					if (bitCountS <= 2) {
-						score += 4 * bitCountS;
-					} else {
-						score -= bitCountS;
-					}
+				/* Umgedreht für Silber */
+				int bitCountS = board.getBitCount(board.area(col, row, 2)
+						& board.getColorBitmap(Constants.Color.SILVER));
+				if (bitCountS <= 2) {
+					score += 4 * bitCountS;
+				} else {
+					score -= bitCountS;
+				}
 
-					/* Unsichere Position! */
-					if ((col == 2 && row == 2) || (col == 2 && row == 5)
-							|| (col == 5 && row == 2) || (col == 5 && row == 5)) {
-
-						int directHelpG = board.getBitCount(board.area(col,
-								row, 1)
-								& board.getColorBitmap(Constants.Color.GOLD));
-						int directHelpS = board.getBitCount(board.area(col,
-								row, 1)
-								& board.getColorBitmap(Constants.Color.SILVER));
-
-						/* Unsicher für Gold! */
-						if (directHelpG <= 1) {
-							score -= 4 - bitCountG;
-						}
-						/* Unsicher für Silber */
-						if (directHelpS <= 1) {
-							score += 4 - bitCountS;
-						}
-
-						/* Allgemeine Penalty fürs Stehen auf einem Trap! */
-						score -= 1;
+				/* Unsichere Position! */
+				if ((col == 2 && row == 2) || (col == 2 && row == 5)
+						|| (col == 5 && row == 2) || (col == 5 && row == 5)) {
 
+					int directHelpG = board.getBitCount(board.area(col,
+							row, 1)
+							& board.getColorBitmap(Constants.Color.GOLD));
+					int directHelpS = board.getBitCount(board.area(col,
+							row, 1)
+							& board.getColorBitmap(Constants.Color.SILVER));
+
+					/* Unsicher für Gold! */
+					if (directHelpG <= 1) {
+						score -= 4 - bitCountG;
+					}
+					/* Unsicher für Silber */
+					if (directHelpS <= 1) {
+						score += 4 - bitCountS;
 					}
 
-					/* Höhere gegnerische Figuren in unmittelbarer Nähe? */
-					for (int type = i + 1; type < 6; type++) {
-						int silverCnt = board.getBitCount(board.getTypeBitmap(
-								Constants.Color.SILVER, type)
-								& board.area(col, row, 2));
-						int goldCnt = board.getBitCount(board.getTypeBitmap(
-								Constants.Color.GOLD, type)
-								& board.area(col, row, 2));
+					/* Allgemeine Penalty fürs Stehen auf einem Trap! */
+					score -= 1;
 
-						score += goldCnt - silverCnt;
-					}
+				}
 
+				/* Höhere gegnerische Figuren in unmittelbarer Nähe? */
+				for (int type = i + 1; type < 6; type++) {
+					int silverCnt = board.getBitCount(board.getTypeBitmap(
+							Constants.Color.SILVER, type)
+							& board.area(col, row, 2));
+					int goldCnt = board.getBitCount(board.getTypeBitmap(
+							Constants.Color.GOLD, type)
+							& board.area(col, row, 2));
+
+					score += goldCnt - silverCnt;
 				}
+
 			}
 		}
 
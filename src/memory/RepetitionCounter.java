@@ -1,126 +1,95 @@
 package memory;
 
-import java.util.LinkedList;
-import java.util.Random;
+import java.util.HashMap;
 
 import board.Bitboard;
-import board.Piece;
-import board.Position;
 
 public class RepetitionCounter {
 
-	/* Liste mit Boardzuständen... */
-	private LinkedList<Repetition> repetitionList = new LinkedList<Repetition>();
-
 	/*
-	 * die Random-Bit-Werte für die Berechnung des Hashes später.
+	 * Boardzustände, über ihren Zobrist-Hash (board.Zobrist) erreichbar. Ein
+	 * Lookup ist daher unabhängig von der Länge der Partie.
 	 */
-	private long typePosTable[][][] = new long[2][6][64];
-
-	/* Konstruktor */
-	public RepetitionCounter() {
-		initZobristHash();
-	}
+	private HashMap<Long, Repetition> repetitions = new HashMap<Long, Repetition>();
 
 	/**
 	 * Berechnung der Anzahl an Spielfeldsituationen.
-	 * 
-	 * @param board
+	 *
 	 * @param hash
+	 *            Zobrist-Hash des Boards (Bitboard.getZobristHash)
 	 * @return
 	 */
-	public int getBoardCount(Bitboard board, long hash) {
+	public int getBoardCount(long hash) {
 
-		for (Repetition rep : repetitionList) {
-			if (rep.hash == hash) {
-				return rep.counter;
-			}
-		}
+		Repetition rep = repetitions.get(hash);
 
-		return 0;
+		return (rep == null) ? 0 : rep.counter;
 
 	}
 
 	/**
 	 * Gibt zurück, wie oft die Spielfeldsituation schon aufgetreten ist.
-	 * 
+	 *
 	 * @param board
 	 * @return
 	 */
 	public int getBoardCount(Bitboard board) {
-		long hash = generateZobristHashForTable(board);
-
-		return getBoardCount(board, hash);
-
+		return getBoardCount(board.getZobristHash());
 	}
 
 	/**
-	 * Speichert die übergebene Spielfeldsituation in der Liste ab und erhöht
-	 * u.U. den Zähler.
-	 * 
+	 * Speichert die übergebene Spielfeldsituation ab und erhöht u.U. den
+	 * Zähler.
+	 *
 	 * @param board
 	 *            Spielfeld
 	 */
 	public void saveBoard(Bitboard board) {
 
-		long hash = generateZobristHashForTable(board);
+		long hash = board.getZobristHash();
+		Repetition rep = repetitions.get(hash);
 
-		for (Repetition rep : repetitionList) {
-			if (rep.hash == hash) {
-				rep.counter++;
-				return;
-			}
+		if (rep != null) {
+			rep.counter++;
+		} else {
+			repetitions.put(hash, new Repetition(hash, 1));
 		}
 
-		repetitionList.addFirst(new Repetition(hash, 1));
-
 	}
 
 	/**
 	 * Gibt den Zobrist-Hash des Boards zurück;
-	 * 
+	 *
 	 * @param board
 	 * @return
 	 */
 	public long getBoardHash(Bitboard board) {
-		return generateZobristHashForTable(board);
+		return board.getZobristHash();
 	}
 
 	/**
-	 * Generiert aus einem Table einen kompletten Hash (Für den eigentlichen
-	 * Start-Wert!) und setzt ihn für das übergebene Bitboard ein!
+	 * Kopie mit eigenen Zählern, z.B. für eine Suche, die auf einer noch nicht
+	 * gespielten Stellung rechnet.
+	 *
+	 * @return die Kopie
 	 */
-	private long generateZobristHashForTable(Bitboard board) {
-		long hash = 0L;
-
-		for (int at = 0; at < 64; at++) {
-			/* Wenn das Feld nicht leer ist */
-			Position pos = new Position(at % 8, at / 8);
-			if (board.getBitmapAtPosition(pos) != 0) {
-				Piece piece = board.findPieceAt(pos);
-				hash ^= typePosTable[piece.getColor()][piece.getType()][at];
-			}
-		}
+	public RepetitionCounter cloneRepetitionCounter() {
 
-		return hash;
+		RepetitionCounter clone = new RepetitionCounter();
+
+		for (Repetition rep : repetitions.values()) {
+			clone.repetitions.put(rep.hash, new Repetition(rep.hash,
+					rep.counter));
+		}
 
+		return clone;
 	}
 
 	/**
-	 * Initialisiert das Table mit den random-Bitstrings, mit denen der spätere
-	 * Zobrist-Hash generiert und erzeugt werden kann.
+	 * Vergisst alle gespeicherten Spielfeldsituationen (neues Spiel).
 	 */
-	private void initZobristHash() {
-
-		Random rand = new Random();
-
-		for (int color = 0; color < 2; color++) {
-			for (int type = 0; type < 6; type++) {
-				for (int at = 0; at < 64; at++) {
-					typePosTable[color][type][at] = rand.nextLong();
-				}
-			}
-		}
+	public void clear() {
+		repetitions.clear();
 	}
 
 }
@@ -1,25 +1,81 @@
 package memory;
 
-import java.util.Random;
+import java.util.Arrays;
 
-import board.Bitboard;
-import board.MoveNormal;
-import board.Piece;
-import board.Position;
+import board.Constants;
+import board.Step;
 
+/**
+ * Transposition-Table als ein einziges long-Array. Jeder Eintrag besteht aus
+ * zwei longs: (hash ^ data) und data. Beim Lookup wird geprüft, ob
+ * (table[i] ^ table[i + 1]) wieder den Hash ergibt. Wurde der Eintrag
+ * zwischendurch von einem anderen Thread halb überschrieben, passt das nicht
+ * mehr und der Eintrag gilt als nicht vorhanden. Dadurch können alle
+ * Such-Threads ohne Locks und ohne Objekte lesen und schreiben.
+ * 
+ * Als Hash wird der Schlüssel aus board.Zobrist.key benutzt (Figuren, Farbe
+ * am Zug und übrige Schritte).
+ * 
+ * Je 4 Einträge bilden einen Bucket (64 Byte, eine Cache-Line). Ein Hash kann
+ * in jedem Eintrag seines Buckets stehen. Beim Schreiben wird der Eintrag
+ * ersetzt, der am wenigsten wert ist: leer, aus einer alten Suche
+ * (Generation), geringe Tiefe, kein exakter Wert.
+ * 
+ * Zu jedem Knoten wird außerdem der beste Zug (bzw. der, der den Cut-off
+ * erzeugt hat) in Kurzform (siehe board.Step.compress) gespeichert. Die
+ * Suche probiert ihn zuerst, ohne dafür die Kinder nachschlagen zu müssen.
+ * 
+ * Aufbau von data:
+ * 
+ * <pre>
+ * Bit  0-31  score
+ * Bit 32-39  depth
+ * Bit 40-41  nodeType
+ * Bit 42-44  moveNumber
+ * Bit 45     maximizingPlayer
+ * Bit 46-51  Generation der Suche
+ * Bit 52-62  bester Zug in Kurzform (0 = keiner)
+ * Bit 63     Eintrag belegt
+ * </pre>
+ * 
+ * @author maurice
+ */
 public class Transposition {
 
+	/* Kein Eintrag gefunden */
+	public static final long NO_ENTRY = 0L;
+
+	/* Einträge pro Bucket */
+	private static final int BUCKET_SIZE = 4;
+
+	/* Größe eines Buckets in Bytes (4 * 2 longs) */
+	private static final int BUCKET_BYTES = BUCKET_SIZE * 16;
+
+	private static final long VALID = 1L << 63;
+
+	/* moveNumber und maximizingPlayer: gehören zum Knoten, nicht zum Wert */
+	private static final long SIDE_BITS = 0xFL << 42;
+
+	/* Anzahl unterscheidbarer Generationen (6 Bit) */
+	private static final int GENERATION_MASK = 63;
+
 	/*
-	 * großes Array für konstanten Zugriff mit Hilfe des Indizes, welches aus
-	 * dem Zobrist-Hash ermittelt wird.
+	 * Anzahl Buckets, die für die Belegung stichprobenartig gezählt werden.
+	 * Klein gehalten, das Log läuft nach "stop" noch vor dem bestmove.
 	 */
-	private ZobristHash[] transpositionTable = null;
-	/* Größe des Hash-Tables */
-	private int size = 30000000;
+	private static final int OCCUPANCY_SAMPLE = 1 << 10;
+
 	/*
-	 * die Random-Bit-Werte für die Berechnung des Hashes später.
+	 * großes Array für konstanten Zugriff mit Hilfe des Indizes, welches aus
+	 * dem Zobrist-Hash ermittelt wird. Zwei longs pro Eintrag, 8 pro Bucket.
 	 */
-	private long typePosTable[][][] = new long[2][6][64];
+	private long[] transpositionTable = null;
+	/* Größe des Hash-Tables in MB (gewünscht) */
+	private int size;
+	/* Anzahl Buckets - 1 (Anzahl ist eine Zweierpotenz) */
+	private int mask = 0;
+	/* Generation der aktuellen Suche */
+	private int generation = 0;
 
 	/**
 	 * Konstruktor
@@ -29,124 +85,247 @@ public class Transposition {
 	 */
 	public Transposition(int size) {
 
-		/**
-		 * Hier muss die Berechnung rein, wieviele Instanzen tatsächlich
-		 * abgebildet werden dürfen.
-		 */
-
-
-		initZobristHash();
+		this.size = size;
 
 	}
 
 	/**
 	 * Erst hier wird der endgültige Speicher reserviert, und nicht wie vorher
-	 * bei Erstellung der Klasseninstanz.
+	 * bei Erstellung der Klasseninstanz. Passiert nur, wenn noch kein Table
+	 * mit dieser Größe existiert.
 	 */
 	public void initTranspsition() {
 
-		this.transpositionTable = new ZobristHash[size];
+		int buckets = getBucketCount(size);
+
+		if (transpositionTable == null
+				|| transpositionTable.length != 2 * BUCKET_SIZE * buckets) {
+			transpositionTable = null;
+			this.transpositionTable = new long[2 * BUCKET_SIZE * buckets];
+			this.mask = buckets - 1;
+		}
+
+	}
 
+	/**
+	 * Setzt die Größe in MB (AEI-Option "hash") und reserviert das Table
+	 * u.U. neu.
+	 */
+	public void initTranspsition(int size) {
+		this.size = size;
+		initTranspsition();
 	}
 
 	/**
-	 * Löscht das gesamte Transposition-Table und setzt es leer neu auf.
+	 * Größte Zweierpotenz an Buckets, die in size MB passt. Es wird höchstens
+	 * die Hälfte des Heaps genommen, damit die Suche selbst noch Speicher hat.
+	 */
+	private static int getBucketCount(int size) {
+		long bytes = Math.min((long) Math.max(size, 1) << 20, Runtime
+				.getRuntime().maxMemory() / 2);
+		long buckets = Math.max(bytes / BUCKET_BYTES, 1);
+
+		/* Ein int-Index über 8 longs pro Bucket */
+		buckets = Math.min(buckets, 1L << 27);
+
+		return (int) Long.highestOneBit(buckets);
+	}
+
+	/**
+	 * Löscht das gesamte Transposition-Table (nur bei "newgame"). Der
+	 * Speicher wird behalten.
 	 */
 	public void clearTable() {
-		transpositionTable = null;
-		this.transpositionTable = new ZobristHash[size];
+		if (transpositionTable != null) {
+			Arrays.fill(transpositionTable, 0L);
+		}
+	}
+
+	/**
+	 * Beginnt eine neue Suche: Einträge der vorherigen Suchen bleiben nutzbar,
+	 * werden ab jetzt aber bevorzugt ersetzt.
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & GENERATION_MASK;
 	}
 
 	/**
-	 * Macht einen Lookup auf das Table und gibt uU den Zobrist-Zeugs zurück.
+	 * Macht einen Lookup auf das Table und gibt uU den Eintrag zurück.
 	 * 
 	 * @param hash
 	 *            Der Hash
-	 * @return Zobrist-Knoten
+	 * @return der gepackte Eintrag (siehe get*-Methoden) oder NO_ENTRY
 	 */
-	public ZobristHash lookupHash(long hash) {
+	public long lookupHash(long hash) {
+
+		int index = ((int) hash & mask) * (2 * BUCKET_SIZE);
 
-		if (transpositionTable.length > Math.abs(hash) % (long) size) {
-			return transpositionTable[(int) (Math.abs(hash) % (long) size)];
+		for (int i = index; i < index + 2 * BUCKET_SIZE; i += 2) {
+			long data = transpositionTable[i + 1];
+
+			if ((transpositionTable[i] ^ data) == hash && data != NO_ENTRY) {
+				return data;
+			}
 		}
 
-		return null;
+		return NO_ENTRY;
 	}
 
 	/**
 	 * Fügt dem Table einen neuen Eintrag hinzu!
 	 * 
-	 * @param zobrist
-	 *            Zobrist als Value.
+	 * @param hash
+	 *            Hash der Stellung
+	 * @param depth
+	 *            Rekursionstiefe
+	 * @param score
+	 *            Der Evaluierte Wert
+	 * @param nodeType
+	 *            Der Typ des Knotens (Constants.NodeType)
+	 * @param moveNumber
+	 *            Bei welcher MoveNumber der Wert ermittelt wurde
+	 * @param maximizingPlayer
+	 *            Welcher Spieler am Zug ist
+	 * @param bestMove
+	 *            Kodierter bester Zug des Knotens oder Step.NONE
+	 * @return ob dafür der Eintrag einer anderen Stellung überschrieben wurde
+	 *         (für die Statistik der Suche)
 	 */
-	public void addTableEntry(ZobristHash zobrist) {
-		if (transpositionTable.length > Math.abs(zobrist.hash) % (long) size) {
-			long index = Math.abs(zobrist.hash) % (long) size;
-			transpositionTable[(int) index] = zobrist;
+	public boolean addTableEntry(long hash, int depth, int score, int nodeType,
+			int moveNumber, boolean maximizingPlayer, int bestMove) {
+
+		long data = VALID | (score & 0xFFFFFFFFL)
+				| ((long) (depth & 0xFF) << 32)
+				| ((long) (nodeType & 3) << 40)
+				| ((long) (moveNumber & 7) << 42)
+				| (maximizingPlayer ? 1L << 45 : 0L)
+				| ((long) generation << 46)
+				| ((long) Step.compress(bestMove) << 52);
+
+		int index = ((int) hash & mask) * (2 * BUCKET_SIZE);
+		int replace = index;
+		int replaceWorth = Integer.MAX_VALUE;
+
+		for (int i = index; i < index + 2 * BUCKET_SIZE; i += 2) {
+			long old = transpositionTable[i + 1];
+
+			/* Dieselbe Stellung: aktualisieren */
+			if ((transpositionTable[i] ^ old) == hash && old != NO_ENTRY) {
+
+				/*
+				 * Ein tieferer Eintrag desselben Knotens aus dieser Suche
+				 * bleibt, wenn der neue nur eine Schranke ist.
+				 */
+				if (getGeneration(old) == generation
+						&& ((old ^ data) & SIDE_BITS) == 0
+						&& getDepth(old) > depth
+						&& nodeType != Constants.NodeType.EXACT) {
+					return false;
+				}
+
+				replace = i;
+				replaceWorth = Integer.MIN_VALUE;
+				break;
+			}
+
+			int worth = getWorth(old);
+
+			if (worth < replaceWorth) {
+				replace = i;
+				replaceWorth = worth;
+			}
 		}
+
+		boolean replaced = replaceWorth != Integer.MIN_VALUE
+				&& transpositionTable[replace + 1] != NO_ENTRY;
+
+		transpositionTable[replace] = hash ^ data;
+		transpositionTable[replace + 1] = data;
+
+		return replaced;
 	}
 
 	/**
-	 * Generiert aus einem Table einen kompletten Hash (Für den eigentlichen
-	 * Start-Wert!) und setzt ihn für das übergebene Bitboard ein!
+	 * Wie viel ein Eintrag wert ist, wenn ein Platz im Bucket gebraucht wird.
+	 * Leere Einträge zuerst, dann alte Generationen, dann geringe Tiefe.
+	 * Exakte Werte sind etwas mehr wert als Schranken.
 	 */
-	public long generateZobristHashForTable(Bitboard board) {
-		long hash = 0L;
-
-		for (int at = 0; at < 64; at++) {
-			/* Wenn das Feld nicht leer ist */
-			Position pos = new Position(at % 8, at / 8);
-			if (board.getBitmapAtPosition(pos) != 0) {
-				Piece piece = board.findPieceAt(pos);
-				hash ^= typePosTable[piece.getColor()][piece.getType()][at];
-			}
+	private int getWorth(long entry) {
+
+		if (entry == NO_ENTRY) {
+			return Integer.MIN_VALUE + 1;
 		}
 
-		return hash;
+		int age = (generation - getGeneration(entry)) & GENERATION_MASK;
+		int worth = getDepth(entry) - 8 * age;
+
+		if (getNodeType(entry) == Constants.NodeType.EXACT) {
+			worth += 2;
+		}
 
+		return worth;
 	}
 
 	/**
-	 * Initialisiert das Table mit den random-Bitstrings, mit denen der spätere
-	 * Zobrist-Hash generiert und erzeugt werden kann.
+	 * Gibt eine Zeile mit der Belegung für das Log zurück, geschätzt über die
+	 * ersten Buckets. Trefferquote und Ersetzungen zählt jede Suche selbst
+	 * (siehe engine.SearchStatistics), das Table hat keine gemeinsamen
+	 * Zähler.
 	 */
-	private void initZobristHash() {
+	public String getStatistics() {
 
-		Random rand = new Random();
+		int buckets = Math.min(OCCUPANCY_SAMPLE, mask + 1);
+		int used = 0, current = 0;
 
-		for (int color = 0; color < 2; color++) {
-			for (int type = 0; type < 6; type++) {
-				for (int at = 0; at < 64; at++) {
-					typePosTable[color][type][at] = rand.nextLong();
+		for (int i = 0; i < buckets * 2 * BUCKET_SIZE; i += 2) {
+			long data = transpositionTable[i + 1];
+
+			if (data != NO_ENTRY) {
+				used++;
+				if (getGeneration(data) == generation) {
+					current++;
 				}
 			}
 		}
+
+		int entries = buckets * BUCKET_SIZE;
+
+		return "tt: " + (transpositionTable.length >>> 17) + "mb, occupancy "
+				+ String.format("%.1f", 100.0 * used / entries)
+				+ "% (this search "
+				+ String.format("%.1f", 100.0 * current / entries) + "%)";
 	}
 
-	/**
-	 * Funktion, um den Zobrist-Hash des übergebenen Boards zu updaten bezüglich
-	 * einer Position. Das kann z.B. das Setzen oder Entfernen einer Figur an
-	 * einer Position sein. Ein Zug bedingt daher mehrere Aufrufe dieser
-	 * Funktion (min. 1x setzen und 1x entfernen von der vorherigen Position)!
-	 * 
-	 * @param board
-	 *            das Bitboard, für den der Hash geupdated wird
-	 * @param color
-	 *            Farbe der zu setzenden Figur
-	 * @param type
-	 *            Typ der zu setzenden Figur
-	 * @param pos
-	 *            Position der zu setzenden Figur
-	 */
-	public void setTypeAt(Bitboard board, int color, int type, int pos) {
+	public static int getScore(long entry) {
+		return (int) entry;
+	}
+
+	public static int getDepth(long entry) {
+		return (int) (entry >>> 32) & 0xFF;
+	}
+
+	public static int getNodeType(long entry) {
+		return (int) (entry >>> 40) & 3;
+	}
+
+	public static int getMoveNumber(long entry) {
+		return (int) (entry >>> 42) & 7;
+	}
 
-		board.setZobristHash(board.getZobristHash()
-				^ typePosTable[color][type][pos]);
+	public static boolean isMaximizingPlayer(long entry) {
+		return ((entry >>> 45) & 1L) != 0;
+	}
 
+	/**
+	 * Der beste Zug in Kurzform (siehe board.Step.compress), 0 wenn keiner
+	 * gespeichert ist.
+	 */
+	public static int getBestMove(long entry) {
+		return (int) (entry >>> 52) & 0x7FF;
 	}
 
-	public void setTypeAt(Bitboard board, int color, int type, int col, int row) {
-		setTypeAt(board, color, type, 8 * col + row);
+	private static int getGeneration(long entry) {
+		return (int) (entry >>> 46) & GENERATION_MASK;
 	}
 
 }
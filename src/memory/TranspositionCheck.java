@@ -0,0 +1,105 @@
+package memory;
+
+import java.util.Random;
+
+import board.Step;
+
+/**
+ * Prüft das Packen der Einträge im Transposition-Table: Zufällige Einträge
+ * (fester Seed, mit den Randwerten aller Felder) werden geschrieben und
+ * direkt wieder gelesen, alle Felder müssen unverändert herauskommen. Ein
+ * Hash, der sich nur in den oberen Bits unterscheidet (gleicher Bucket),
+ * darf nichts finden.
+ *
+ * Bei der ersten Abweichung endet das Programm mit Exit-Code 1.
+ *
+ * Aufruf: java memory.TranspositionCheck [Einträge]
+ *
+ * @author maurice
+ *
+ */
+public class TranspositionCheck {
+
+	/* Randwerte für score, die in der Suche vorkommen */
+	private static final int[] SCORES = { 0, 1, -1, Integer.MAX_VALUE,
+			Integer.MIN_VALUE, 1000000000, -1000000000, 100000000, -100000000 };
+
+	public static void main(String[] args) {
+
+		int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+
+		Transposition transposition = new Transposition(16);
+		transposition.initTranspsition();
+		transposition.newSearch();
+
+		Random random = new Random(1);
+
+		for (int i = 0; i < count; i++) {
+
+			long hash = random.nextLong();
+			int depth = (i < 256) ? i : random.nextInt(256);
+			int score = (i < SCORES.length) ? SCORES[i] : random.nextInt();
+			int nodeType = random.nextInt(4);
+			int moveNumber = 1 + random.nextInt(4);
+			boolean maximizingPlayer = random.nextBoolean();
+			int bestMove = randomMove(random);
+
+			transposition.addTableEntry(hash, depth, score, nodeType,
+					moveNumber, maximizingPlayer, bestMove);
+
+			long entry = transposition.lookupHash(hash);
+
+			if (entry == Transposition.NO_ENTRY
+					|| Transposition.getScore(entry) != score
+					|| Transposition.getDepth(entry) != depth
+					|| Transposition.getNodeType(entry) != nodeType
+					|| Transposition.getMoveNumber(entry) != moveNumber
+					|| Transposition.isMaximizingPlayer(entry) != maximizingPlayer
+					|| Transposition.getBestMove(entry) != Step
+							.compress(bestMove)) {
+				fail("entry " + i + ": hash " + hash + ", depth " + depth
+						+ ", score " + score + ", nodeType " + nodeType
+						+ ", moveNumber " + moveNumber + ", maximizing "
+						+ maximizingPlayer + ", move "
+						+ Step.moveToString(bestMove) + " -> "
+						+ Long.toHexString(entry));
+			}
+
+			if (transposition.lookupHash(hash ^ (1L << 40)) != Transposition.NO_ENTRY) {
+				fail("entry " + i + ": found with a different hash " + hash);
+			}
+		}
+
+		System.out.println("transposition packing: " + count
+				+ " entries, ok");
+	}
+
+	/**
+	 * Ein zufälliger Zug: ein Schritt oder (Push/Pull) zwei, kein Zug ist
+	 * auch dabei.
+	 */
+	private static int randomMove(Random random) {
+
+		int kind = random.nextInt(8);
+
+		if (kind == 0) {
+			return Step.NONE;
+		}
+
+		int first = Step.create(random.nextInt(64), random.nextInt(4),
+				random.nextInt(6), random.nextInt(2));
+
+		if (kind < 4) {
+			return Step.move(first);
+		}
+
+		return Step.move(first, Step.create(random.nextInt(64),
+				random.nextInt(4), random.nextInt(6), random.nextInt(2)));
+	}
+
+	private static void fail(String message) {
+		System.out.println("FAILED: " + message);
+		System.exit(1);
+	}
+
+}
@@ -147,13 +147,15 @@ public class ServerCommunication {
 					/* Registrierung der Board-Situation */
 					engineController.registerBoardSituation();
 
+					/* Hat der Gegner den Zug gespielt, auf den wir pondern? */
+					engineController.ponderMove();
+
 					engineController.logBitboard();
 
 				} else if (firstMessage.equals("go")) {
 
 					if (secondMessage.equals("ponder")) {
-						messageWriter
-								.sendMessage("log pondering... ... ... naah, joking. Just chillin'");
+						engineController.ponder();
 					} else {
 						/* Startaufstellung oder Zug? */
 						if (isFirstMove) {